@@ -0,0 +1,34 @@
+#!/bin/bash
+
+# Ejecuta los benchmarks JMH con 1..N hilos y guarda el JSON de cada ejecución etiquetado
+# con el commit actual, para poder comparar resultados entre commits.
+#
+# Uso: ./benchmark.sh [patrón JMH] [hilos máximos]
+#   ./benchmark.sh UserServiceBenchmark 8
+
+cd "$(dirname "$0")"
+
+PATTERN=${1:-".*"}
+MAX_THREADS=${2:-$(nproc 2>/dev/null || sysctl -n hw.ncpu)}
+COMMIT=$(git rev-parse --short HEAD 2>/dev/null || echo "local")
+OUT_DIR="target/jmh/${COMMIT}"
+
+mkdir -p "$OUT_DIR"
+
+echo "⏱️  Benchmarks JMH (${PATTERN}) - commit ${COMMIT}"
+echo "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━"
+
+mvn -q -Pjmh test-compile || exit 1
+
+THREADS=1
+while [ "$THREADS" -le "$MAX_THREADS" ]; do
+    echo ""
+    echo "🧵 ${THREADS} hilo(s)..."
+    mvn -q -Pjmh exec:exec \
+        -Dbenchmark.args="${PATTERN} -t ${THREADS} -rf json -rff ${OUT_DIR}/threads-${THREADS}.json"
+    THREADS=$((THREADS * 2))
+done
+
+echo ""
+echo "✅ Resultados en: ${OUT_DIR}/"
+echo "   Comparar con otro commit: diff <(jq -S . target/jmh/<a>/threads-1.json) <(jq -S . target/jmh/<b>/threads-1.json)"
@@ -0,0 +1,56 @@
+#!/bin/bash
+
+# Arranca N instancias en local formando un clúster (app.cluster.enabled): cada una guarda solo los
+# ids que le asigna el anillo de hash consistente. Se arrancan de una en una; cada nodo nuevo se
+# anuncia a los anteriores y recibe su parte de los usuarios. Ctrl+C las detiene todas.
+#
+# Uso: ./cluster.sh [nodos] [puerto-inicial]
+#   ./cluster.sh 3 8081        # nodos en 8081, 8082 y 8083
+#   curl localhost:8081/api/cluster/nodes
+
+cd "$(dirname "$0")"
+
+NODES=${1:-3}
+BASE_PORT=${2:-8081}
+
+echo "🕸️  Clúster local de ${NODES} nodos"
+echo "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━"
+
+mvn -q clean package -DskipTests || exit 1
+JAR=$(ls target/*.jar | grep -v original | head -1)
+
+# Todos los nodos pueden darse de alta; el secreto autentica las altas y traspasos entre ellos
+MEMBERS=""
+for i in $(seq 0 $((NODES - 1))); do
+    MEMBERS="${MEMBERS:+${MEMBERS},}http://localhost:$((BASE_PORT + i))"
+done
+SECRET=${CLUSTER_SECRET:-$(head -c 24 /dev/urandom | base64 | tr -d '/+=')}
+
+PIDS=()
+trap 'kill "${PIDS[@]}" 2>/dev/null; wait 2>/dev/null' EXIT
+KNOWN=""
+for i in $(seq 0 $((NODES - 1))); do
+    PORT=$((BASE_PORT + i))
+    SELF="http://localhost:${PORT}"
+    # Ids snowflake con un nodo distinto por instancia: no se repiten tras un rebalanceo
+    java -jar "$JAR" --server.port="$PORT" --logging.level.root=WARN \
+        --app.cluster.enabled=true --app.cluster.self="$SELF" --app.cluster.nodes="$KNOWN" \
+        --app.cluster.members="$MEMBERS" --app.cluster.secret="$SECRET" \
+        --app.users.id-allocation.strategy=snowflake --app.users.id-allocation.node-id="$i" \
+        $APP_ARGS > "target/cluster-node-${PORT}.log" 2>&1 &
+    PIDS+=($!)
+    until curl -s "${SELF}/actuator/health" > /dev/null; do
+        if ! kill -0 "${PIDS[-1]}" 2>/dev/null; then
+            echo "❌ El nodo ${SELF} no arrancó; ver target/cluster-node-${PORT}.log"
+            exit 1
+        fi
+        sleep 1
+    done
+    echo "✅ ${SELF}"
+    KNOWN="${KNOWN:+${KNOWN},}${SELF}"
+done
+
+echo ""
+echo "Nodos: ${KNOWN}"
+echo "Logs en target/cluster-node-*.log; Ctrl+C para detenerlos"
+wait
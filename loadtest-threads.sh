@@ -0,0 +1,49 @@
+#!/bin/bash
+
+# Compara el pool de hilos de plataforma de Tomcat con el perfil virtual-threads bajo clientes lentos.
+# Construye el jar con -Pjava21 (incluye Jetty, que el perfil virtual-threads usa en lugar de Tomcat),
+# lo arranca dos veces (sin perfil y con --spring.profiles.active=virtual-threads) y ejecuta
+# SlowClientLoadTest contra cada instancia.
+#
+# Uso: ./loadtest-threads.sh [clientes lentos] [segundos por cuerpo] [GET por segundo]
+#   JAVA21_HOME=/ruta/jdk-21 ./loadtest-threads.sh 2000 10 100
+
+cd "$(dirname "$0")"
+
+SLOW=${1:-1000}
+SECONDS_PER_BODY=${2:-10}
+RATE=${3:-100}
+PORT=${PORT:-8081}
+JAVA_BIN=${JAVA21_HOME:+$JAVA21_HOME/bin/}java
+
+if ! "$JAVA_BIN" -version 2>&1 | grep -qE 'version "(2[1-9]|[3-9][0-9])'; then
+    echo "❌ Se necesita Java 21 o superior (definir JAVA21_HOME)"
+    exit 1
+fi
+
+echo "🧵 Comparativa de hilos con ${SLOW} clientes lentos"
+echo "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━"
+
+JAVA_HOME=${JAVA21_HOME:-$JAVA_HOME} mvn -q -Pjava21 clean package -DskipTests || exit 1
+JAVA_HOME=${JAVA21_HOME:-$JAVA_HOME} mvn -q -Ploadtest test-compile || exit 1
+JAR=$(ls target/*.jar | grep -v original | head -1)
+
+run() {
+    local label=$1
+    shift
+    echo ""
+    echo "▶️  ${label}"
+    "$JAVA_BIN" -jar "$JAR" --server.port="$PORT" --logging.level.root=WARN "$@" > "target/loadtest-${label}.log" 2>&1 &
+    local pid=$!
+    until curl -s "http://localhost:${PORT}/actuator/health" > /dev/null; do sleep 1; done
+    JAVA_HOME=${JAVA21_HOME:-$JAVA_HOME} mvn -q -Ploadtest exec:exec \
+        -Dloadtest.args="http://localhost:${PORT} ${SLOW} ${SECONDS_PER_BODY} ${RATE}"
+    kill "$pid"
+    wait "$pid" 2>/dev/null
+}
+
+run platform
+run virtual --spring.profiles.active=virtual-threads
+
+echo ""
+echo "✅ Logs del servidor en target/loadtest-*.log"
@@ -0,0 +1,37 @@
+#!/bin/bash
+
+# Arranca la aplicación en local y ejecuta RestApiLoadTest contra ella: carga en lazo abierto sobre
+# /api/users con latencias corregidas por omisión coordinada. Los argumentos se pasan tal cual al
+# generador (clave=valor); las opciones de la aplicación van en APP_ARGS.
+#
+# Uso: ./loadtest.sh [clave=valor...]
+#   ./loadtest.sh rate=1000 duration=60 mix=get:90,create:10
+#   APP_ARGS="--spring.profiles.active=prod --app.users.json-cache.enabled=true" ./loadtest.sh rate=2000
+
+cd "$(dirname "$0")"
+
+PORT=${PORT:-8081}
+
+echo "📈 Prueba de carga de la API REST"
+echo "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━"
+
+mvn -q clean package -DskipTests || exit 1
+mvn -q -Ploadtest test-compile || exit 1
+JAR=$(ls target/*.jar | grep -v original | head -1)
+
+java -jar "$JAR" --server.port="$PORT" --logging.level.root=WARN $APP_ARGS > target/loadtest-app.log 2>&1 &
+PID=$!
+trap 'kill "$PID" 2>/dev/null; wait "$PID" 2>/dev/null' EXIT
+until curl -s "http://localhost:${PORT}/actuator/health" > /dev/null; do
+    if ! kill -0 "$PID" 2>/dev/null; then
+        echo "❌ La aplicación no arrancó; ver target/loadtest-app.log"
+        exit 1
+    fi
+    sleep 1
+done
+
+mvn -q -Ploadtest exec:exec -Dloadtest.main=com.example.loadtest.RestApiLoadTest \
+    -Dloadtest.args="url=http://localhost:${PORT} $*"
+
+echo ""
+echo "✅ Log del servidor en target/loadtest-app.log"
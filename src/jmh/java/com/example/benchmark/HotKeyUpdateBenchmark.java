@@ -0,0 +1,90 @@
+package com.example.benchmark;
+
+import com.example.model.User;
+import com.example.service.UserService;
+import com.example.service.VersionConflictException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Escrituras concurrentes sobre pocas claves muy disputadas. {@code blindUpdate} reemplaza sin
+ * comprobar la versión (el último escritor gana y los demás cambios se pierden);
+ * {@code conditionalUpdate} hace lectura, cambio y escritura con la versión leída y reintenta
+ * ante {@link VersionConflictException}, como un cliente con {@code If-Match}. Los contadores
+ * auxiliares muestran los cambios aplicados y los conflictos por segundo.
+ *
+ * <p>Con {@code hotKeys=1} todos los hilos compiten por el mismo id; con más claves la
+ * contención se reparte entre las franjas de cerrojos del servicio.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(4)
+@State(Scope.Benchmark)
+public class HotKeyUpdateBenchmark {
+
+    @Param({"1", "16", "1024"})
+    public int hotKeys;
+
+    private UserService service;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        UserServiceBenchmark.setLogLevel("WARN");
+        service = new UserService(new SimpleMeterRegistry());
+        ids = new long[hotKeys];
+        for (int i = 0; i < hotKeys; i++) {
+            ids[i] = service.createUser(UserServiceBenchmark.user(i)).getId();
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Outcome {
+        public long applied;
+        public long conflicts;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            applied = 0;
+            conflicts = 0;
+        }
+    }
+
+    private long pick() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    private static User next(User current) {
+        return new User(null, current.getName(), current.getEmail(), current.getAge() % 148 + 1);
+    }
+
+    @Benchmark
+    public User blindUpdate(Outcome outcome) {
+        long id = pick();
+        User updated = service.updateUser(id, next(service.getUserById(id)));
+        outcome.applied++;
+        return updated;
+    }
+
+    @Benchmark
+    public User conditionalUpdate(Outcome outcome) {
+        long id = pick();
+        while (true) {
+            User current = service.getUserById(id);
+            try {
+                User updated = service.updateUser(id, next(current), current.getVersion());
+                outcome.applied++;
+                return updated;
+            } catch (VersionConflictException e) {
+                outcome.conflicts++;
+            }
+        }
+    }
+}
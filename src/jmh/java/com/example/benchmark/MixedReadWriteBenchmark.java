@@ -0,0 +1,76 @@
+package com.example.benchmark;
+
+import com.example.model.User;
+import com.example.repository.InMemoryUserRepository;
+import com.example.repository.PersistentUserRepository;
+import com.example.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Un escritor reemplaza usuarios al azar mientras un lector recorre el almacén completo a
+ * través de {@link UserRepository#readView()}. Mide el coste de los recorridos completos y de
+ * las escrituras cuando ambos compiten, con el mapa concurrente frente al almacén persistente.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Group)
+public class MixedReadWriteBenchmark {
+
+    @Param({"memory", "persistent"})
+    public String store;
+
+    @Param({"100000"})
+    public int size;
+
+    private UserRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = "persistent".equals(store) ? new PersistentUserRepository() : new InMemoryUserRepository();
+        for (long id = 1; id <= size; id++) {
+            repository.save(new User(id, "Usuario " + id, "usuario" + id + "@example.com", 30));
+        }
+    }
+
+    @Benchmark
+    @Group("scan")
+    @GroupThreads(1)
+    public void write() {
+        long id = 1 + ThreadLocalRandom.current().nextInt(size);
+        repository.save(new User(id, "Usuario " + id, "usuario" + id + "@example.com", 31));
+    }
+
+    @Benchmark
+    @Group("scan")
+    @GroupThreads(1)
+    public long countAdults() {
+        long[] adults = {0};
+        repository.readView().forEach(user -> {
+            if (user.getAge() >= 18) {
+                adults[0]++;
+            }
+        });
+        return adults[0];
+    }
+
+    @Benchmark
+    @Group("export")
+    @GroupThreads(1)
+    public void writeDuringExport() {
+        write();
+    }
+
+    @Benchmark
+    @Group("export")
+    @GroupThreads(1)
+    public List<User> findAll() {
+        return repository.readView().findAll();
+    }
+}
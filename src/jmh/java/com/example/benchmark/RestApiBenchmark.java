@@ -0,0 +1,111 @@
+package com.example.benchmark;
+
+import com.example.MonitoringApplication;
+import com.example.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Extremo a extremo de {@code GET /api/users}: vía MockMvc (dispatcher + serialización JSON,
+ * sin red) y vía HTTP contra el Tomcat embebido arrancado en un puerto libre.
+ *
+ * <p>Latencia con logging síncrono, asíncrono (perfil prod) y desactivado:
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Dbenchmark.args="RestApiBenchmark.mockMvcGetUser -bm sample -tu us \
+ *     -p users=100 -p profile=default,prod -p logLevel=OFF,INFO"
+ * </pre>
+ *
+ * <p>Asignación por petición con y sin JSON cacheado:
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Dbenchmark.args="RestApiBenchmark.mockMvc -prof gc -p users=10000"
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@State(Scope.Benchmark)
+public class RestApiBenchmark {
+
+    @Param({"100", "10000"})
+    public int users;
+
+    @Param({"WARN"})
+    public String logLevel;
+
+    /** Perfil Spring activo; {@code prod} usa los loggers asíncronos de log4j2-prod.xml. */
+    @Param({"default"})
+    public String profile;
+
+    /** {@code true}: respuestas de usuarios desde JSON ya serializado (app.users.json-cache). */
+    @Param({"false", "true"})
+    public boolean jsonCache;
+
+    private ServletWebServerApplicationContext context;
+    private MockMvc mockMvc;
+    private HttpClient client;
+    private HttpRequest listRequest;
+    private HttpRequest getRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = (ServletWebServerApplicationContext) new SpringApplicationBuilder(MonitoringApplication.class)
+                .properties("server.port=0", "app.users.json-cache.enabled=" + jsonCache)
+                .profiles(profile)
+                .run();
+        UserServiceBenchmark.setLogLevel(logLevel);
+
+        UserService service = context.getBean(UserService.class);
+        for (long i = 0; i < users; i++) {
+            service.createUser(UserServiceBenchmark.user(i));
+        }
+        long firstId = service.getUsersPage(0, 1).get(0).getId();
+
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        String base = "http://localhost:" + context.getWebServer().getPort();
+        listRequest = HttpRequest.newBuilder(URI.create(base + "/api/users")).build();
+        getRequest = HttpRequest.newBuilder(URI.create(base + "/api/users/" + firstId)).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] mockMvcGetAllUsers() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/users")).andReturn();
+        return result.getResponse().getContentAsByteArray();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public byte[] mockMvcGetUser() throws Exception {
+        return mockMvc.perform(get(getRequest.uri().getPath())).andReturn().getResponse().getContentAsByteArray();
+    }
+
+    @Benchmark
+    public byte[] httpGetAllUsers() throws Exception {
+        return client.send(listRequest, HttpResponse.BodyHandlers.ofByteArray()).body();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public byte[] httpGetUser() throws Exception {
+        return client.send(getRequest, HttpResponse.BodyHandlers.ofByteArray()).body();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.benchmark;
+
+import com.example.config.CachedUserJsonConverter;
+import com.example.model.User;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización de una lista de usuarios con Jackson frente a los bytes cacheados de
+ * {@link CachedUserJsonConverter}, escribiendo a un destino que descarta la salida para medir solo
+ * la serialización. Con {@code -prof gc} se ve la asignación por operación.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@State(Scope.Benchmark)
+public class UserJsonBenchmark {
+    private static final Type USER_LIST = new TypeReference<List<User>>() { }.getType();
+
+    @Param({"1", "100", "10000"})
+    public int users;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpOutputMessage sink = new HttpOutputMessage() {
+        private final HttpHeaders headers = new HttpHeaders();
+
+        @Override
+        public OutputStream getBody() {
+            return OutputStream.nullOutputStream();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    };
+    private CachedUserJsonConverter converter;
+    private List<User> list;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        converter = new CachedUserJsonConverter(objectMapper, 1_000_000);
+        list = new ArrayList<>(users);
+        for (long i = 1; i <= users; i++) {
+            User user = UserServiceBenchmark.user(i);
+            user.setId(i);
+            list.add(user);
+        }
+        // Caché caliente, como tras las primeras lecturas
+        converter.write(list, USER_LIST, MediaType.APPLICATION_JSON, sink);
+    }
+
+    @Benchmark
+    public void jackson() throws IOException {
+        objectMapper.writeValue(sink.getBody(), list);
+    }
+
+    @Benchmark
+    public void cached() throws IOException {
+        sink.getHeaders().clear();
+        converter.write(list, USER_LIST, MediaType.APPLICATION_JSON, sink);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.benchmark;
+
+import com.example.service.UserMetrics;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste por operación de la instrumentación de UserService: búsqueda del contador en el
+ * registro en cada llamada (comportamiento anterior) frente a medidores pre-registrados,
+ * y coste añadido del temporizador con histograma de percentiles.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserMetricsBenchmark {
+
+    private PrometheusMeterRegistry registry;
+    private UserMetrics metrics;
+
+    @Setup
+    public void setUp() {
+        registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        metrics = new UserMetrics(registry);
+    }
+
+    @Benchmark
+    public void counterLookupPerCall() {
+        registry.counter("users.retrieved").increment();
+    }
+
+    @Benchmark
+    public void counterPreRegistered() {
+        metrics.retrieved();
+    }
+
+    @Benchmark
+    public void counterAndTimerPreRegistered() {
+        long start = System.nanoTime();
+        metrics.retrieved();
+        metrics.record(UserMetrics.Operation.GET, start);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void counterLookupPerCallContended() {
+        registry.counter("users.retrieved").increment();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void counterAndTimerPreRegisteredContended() {
+        long start = System.nanoTime();
+        metrics.retrieved();
+        metrics.record(UserMetrics.Operation.GET, start);
+    }
+}
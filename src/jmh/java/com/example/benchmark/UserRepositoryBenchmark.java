@@ -0,0 +1,75 @@
+package com.example.benchmark;
+
+import com.example.model.User;
+import com.example.repository.CachingUserRepository;
+import com.example.repository.InMemoryUserRepository;
+import com.example.repository.OffHeapUserRepository;
+import com.example.repository.PersistentUserRepository;
+import com.example.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lecturas y escrituras por id sobre cada almacén. Con {@code -prof gc} se obtiene además la
+ * asignación por operación y el tiempo de GC.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class UserRepositoryBenchmark {
+
+    @Param({"memory", "off-heap", "cached-off-heap", "persistent"})
+    public String store;
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    private UserRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (store) {
+            case "off-heap":
+                repository = new OffHeapUserRepository();
+                break;
+            case "cached-off-heap":
+                // Caché del 2 % del almacén, suficiente para el conjunto caliente de findByIdSkewed
+                repository = new CachingUserRepository(new OffHeapUserRepository(), size / 50, 0, Duration.ZERO);
+                break;
+            case "persistent":
+                repository = new PersistentUserRepository();
+                break;
+            default:
+                repository = new InMemoryUserRepository();
+        }
+        for (long id = 1; id <= size; id++) {
+            repository.save(new User(id, "Usuario " + id, "usuario" + id + "@example.com", 30));
+        }
+    }
+
+    @Benchmark
+    public Optional<User> findById() {
+        return repository.findById(1 + ThreadLocalRandom.current().nextInt(size));
+    }
+
+    /** El 90 % de las lecturas va al 1 % de los ids. */
+    @Benchmark
+    public Optional<User> findByIdSkewed() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int range = random.nextInt(10) < 9 ? Math.max(1, size / 100) : size;
+        return repository.findById(1 + random.nextInt(range));
+    }
+
+    @Benchmark
+    public void save() {
+        long id = 1 + ThreadLocalRandom.current().nextInt(size);
+        repository.save(new User(id, "Usuario " + id, "usuario" + id + "@example.com", 31));
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.benchmark;
+
+import com.example.model.User;
+import com.example.repository.InMemoryUserRepository;
+import com.example.repository.OffHeapUserRepository;
+import com.example.repository.UserRepository;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Comparativa de ocupación de heap y pausas de GC entre almacenes. No es un benchmark JMH:
+ * mide el estado del heap con el almacén poblado y el coste de GC de una carga mixta.
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Dbenchmark.main=com.example.benchmark.UserRepositoryFootprint \
+ *     -Dbenchmark.args="5000000"
+ * </pre>
+ */
+public final class UserRepositoryFootprint {
+
+    private UserRepositoryFootprint() {
+    }
+
+    public static void main(String[] args) {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : users * 2;
+
+        System.out.printf("%-10s %12s %14s %14s %12s %12s%n",
+                "store", "users", "heap MB", "off-heap MB", "full GC ms", "churn GC ms");
+        measure("memory", InMemoryUserRepository::new, users, operations);
+        measure("off-heap", OffHeapUserRepository::new, users, operations);
+    }
+
+    private static void measure(String name, Supplier<UserRepository> factory, int users, int operations) {
+        long baseline = settledHeapUsed();
+        UserRepository repository = factory.get();
+        for (long id = 1; id <= users; id++) {
+            repository.save(user(id, (int) id));
+        }
+
+        long heap = settledHeapUsed() - baseline;
+        long offHeap = repository instanceof OffHeapUserRepository
+                ? ((OffHeapUserRepository) repository).offHeapBytes() : 0L;
+
+        long gcBefore = totalGcMillis();
+        System.gc();
+        long fullGc = totalGcMillis() - gcBefore;
+
+        Random random = new Random(7);
+        gcBefore = totalGcMillis();
+        for (int i = 0; i < operations; i++) {
+            long id = 1 + random.nextInt(users);
+            if ((i & 3) == 0) {
+                repository.save(user(id, i));
+            } else {
+                repository.findById(id);
+            }
+        }
+        long churnGc = totalGcMillis() - gcBefore;
+
+        System.out.printf("%-10s %12d %14.1f %14.1f %12d %12d%n",
+                name, repository.count(), heap / 1048576.0, offHeap / 1048576.0, fullGc, churnGc);
+    }
+
+    private static User user(long id, int seed) {
+        return new User(id, "Usuario " + seed, "usuario" + seed + "@example.com", 18 + seed % 80);
+    }
+
+    private static long settledHeapUsed() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long totalGcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(gc.getCollectionTime(), 0);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.benchmark;
+
+import com.example.model.AgeStats;
+import com.example.model.SearchResult;
+import com.example.model.User;
+import com.example.service.UserNotFoundException;
+import com.example.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendimiento de las operaciones de UserService con distintos tamaños de almacén. El número de
+ * hilos se elige al lanzar ({@code -t 1}, {@code -t 4}...); ver {@code benchmark.sh}.
+ *
+ * <p>{@code selectivity}: {@code rare} busca un fragmento que solo aparece en unos pocos
+ * nombres; {@code common} uno presente en el 10% de los usuarios; {@code short} uno más corto
+ * que un trigrama, que recorre todos los nombres (20% de coincidencias).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class UserServiceBenchmark {
+    static final String[] FIRST_NAMES = {
+            "Juan", "María", "Pedro", "Lucía", "Carlos", "Ana", "Jorge", "Elena", "Luis", "Sofía"
+    };
+
+    static User user(long seed) {
+        String first = FIRST_NAMES[(int) (seed % FIRST_NAMES.length)];
+        return new User(null, first + " Usuario" + seed, "usuario" + seed + "@example.com", 18 + (int) (seed % 70));
+    }
+
+    static void setLogLevel(String level) {
+        Configurator.setLevel("com.example", org.apache.logging.log4j.Level.toLevel(level));
+    }
+
+    @State(Scope.Benchmark)
+    public static class PopulatedStore {
+        @Param({"10000", "1000000"})
+        public int storeSize;
+
+        @Param({"WARN"})
+        public String logLevel;
+
+        UserService service;
+        long maxId;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            setLogLevel(logLevel);
+            service = new UserService(new SimpleMeterRegistry());
+            for (long i = 0; i < storeSize; i++) {
+                maxId = service.createUser(user(i)).getId();
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SearchQuery {
+        @Param({"rare", "common", "short"})
+        public String selectivity;
+
+        String query;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            switch (selectivity) {
+                case "rare":
+                    query = "usuario4242";
+                    break;
+                case "short":
+                    // Más corta que un trigrama: recorre todos los nombres
+                    query = "ía";
+                    break;
+                default:
+                    query = "lucía";
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class EmptyStore {
+        @Param({"WARN"})
+        public String logLevel;
+
+        UserService service;
+
+        // Almacén nuevo en cada iteración para que las altas no acumulen millones de usuarios
+        @Setup(Level.Iteration)
+        public void setUp() {
+            setLogLevel(logLevel);
+            service = new UserService(new SimpleMeterRegistry());
+        }
+    }
+
+    @Benchmark
+    public User createUser(EmptyStore store) {
+        return store.service.createUser(user(ThreadLocalRandom.current().nextInt(1_000_000)));
+    }
+
+    @Benchmark
+    public User getUserById(PopulatedStore store) {
+        return store.service.getUserById(1 + ThreadLocalRandom.current().nextLong(store.maxId));
+    }
+
+    /** Ids que nunca han existido, como los de un cliente que sondea al azar. */
+    @Benchmark
+    public Optional<User> findMissingUser(PopulatedStore store) {
+        return store.service.findUserById(store.maxId + 1 + ThreadLocalRandom.current().nextLong(1L << 40));
+    }
+
+    @Benchmark
+    public Object getMissingUser(PopulatedStore store) {
+        try {
+            return store.service.getUserById(store.maxId + 1 + ThreadLocalRandom.current().nextLong(1L << 40));
+        } catch (UserNotFoundException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public List<User> searchByName(PopulatedStore store, SearchQuery query) {
+        return store.service.searchByName(query.query);
+    }
+
+    /** Primeras 100 coincidencias: los trozos paran en cuanto se alcanzan. */
+    @Benchmark
+    public SearchResult searchByNameFirst100(PopulatedStore store, SearchQuery query) {
+        return store.service.searchByName(query.query, 100, null);
+    }
+
+    /** Histograma y percentiles de edad desde los contadores del índice. */
+    @Benchmark
+    public AgeStats ageStats(PopulatedStore store) {
+        return store.service.getAgeStats(0, 149, 10);
+    }
+
+    /** Primera página de 100 usuarios entre 30 y 39 años. */
+    @Benchmark
+    public List<User> usersByAgePage(PopulatedStore store) {
+        return store.service.getUsersByAge(30, 39, 0L, 100);
+    }
+
+    /** Alternativa previa: filtrar la lista completa para contar los usuarios entre 30 y 39 años. */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public long countByAgeFromFullList(PopulatedStore store) {
+        return store.service.getAllUsers().stream().filter(u -> u.getAge() >= 30 && u.getAge() <= 39).count();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public List<User> getAllUsers(PopulatedStore store) {
+        return store.service.getAllUsers();
+    }
+}
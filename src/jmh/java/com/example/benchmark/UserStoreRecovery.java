@@ -0,0 +1,61 @@
+package com.example.benchmark;
+
+import com.example.model.User;
+import com.example.repository.DurableUserRepository;
+import com.example.repository.InMemoryUserRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Mide el tiempo de recuperación del almacén duradero: instantánea de N usuarios más una cola
+ * de log con el 10% de escrituras posteriores.
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Dbenchmark.main=com.example.benchmark.UserStoreRecovery \
+ *     -Dbenchmark.args="10000000"
+ * </pre>
+ */
+public final class UserStoreRecovery {
+
+    private UserStoreRecovery() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path directory = Files.createTempDirectory("users-recovery");
+        try {
+            long start = System.nanoTime();
+            try (DurableUserRepository repository = open(directory)) {
+                for (long id = 1; id <= users; id++) {
+                    repository.save(new User(id, "Usuario " + id, "usuario" + id + "@example.com", 30));
+                }
+                repository.snapshot();
+                for (long id = 1; id <= users / 10; id++) {
+                    repository.save(new User(id, "Actualizado " + id, "usuario" + id + "@example.com", 31));
+                }
+            }
+            System.out.printf("Escritura de %d usuarios: %d ms%n", users, (System.nanoTime() - start) / 1_000_000);
+
+            start = System.nanoTime();
+            try (DurableUserRepository repository = open(directory)) {
+                System.out.printf("Recuperación de %d usuarios: %d ms%n",
+                        repository.count(), (System.nanoTime() - start) / 1_000_000);
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private static DurableUserRepository open(Path directory) throws IOException {
+        return new DurableUserRepository(new InMemoryUserRepository(), directory, 256 * 1024 * 1024, false,
+                Duration.ofMillis(10), Duration.ofDays(1), Long.MAX_VALUE, Executors.defaultThreadFactory());
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Búsqueda por email y comprobación de duplicados en {@link EmailIndex} con distintos tamaños.
+ * Está en el paquete del servicio porque el índice no es público; el coste debe ser el mismo con
+ * 100 mil que con 10 millones de usuarios (10 M necesita unos 3 GB de heap).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class EmailIndexBenchmark {
+
+    @Param({"100000", "1000000", "10000000"})
+    public int users;
+
+    private EmailIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new EmailIndex();
+        for (long id = 1; id <= users; id++) {
+            index.put(id, email(id), false);
+        }
+    }
+
+    static String email(long id) {
+        return "usuario" + id + "@example.com";
+    }
+
+    @Benchmark
+    public long[] findExisting() {
+        return index.find(EmailIndex.normalize(email(1 + ThreadLocalRandom.current().nextInt(users))));
+    }
+
+    @Benchmark
+    public long[] findMissing() {
+        return index.find(EmailIndex.normalize(email(users + 1 + ThreadLocalRandom.current().nextInt(users))));
+    }
+
+    /** Alta con restricción de unicidad sobre un email ya registrado: se rechaza sin modificar nada. */
+    @Benchmark
+    public boolean rejectDuplicate() {
+        int id = 1 + ThreadLocalRandom.current().nextInt(users);
+        return index.put(-id, email(id), true);
+    }
+}
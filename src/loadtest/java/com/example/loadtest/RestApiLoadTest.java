@@ -0,0 +1,357 @@
+package com.example.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generador de carga en lazo abierto para /api/users: lanza peticiones a ritmo fijo con una mezcla
+ * configurable de operaciones, sin esperar a que terminen las anteriores, y registra la latencia
+ * en HdrHistogram.
+ *
+ * <p>La latencia de respuesta se mide desde el instante en que la petición debía enviarse según
+ * el ritmo, no desde que se envió, para no ocultar las esperas en cola (omisión coordinada). Si se
+ * alcanza el límite de peticiones en curso, las siguientes esperan y esa espera cuenta. También
+ * se registra el tiempo de servicio (desde el envío real) para ver cuánto añade la cola.
+ *
+ * <pre>
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.main=com.example.loadtest.RestApiLoadTest \
+ *     -Dloadtest.args="url=http://localhost:8080 rate=500 duration=30 mix=get:70,list:5,search:10,create:10,update:4,delete:1"
+ * </pre>
+ * Argumentos {@code clave=valor} (todos opcionales): {@code url}, {@code rate} (peticiones por
+ * segundo), {@code duration} y {@code warmup} (segundos; el calentamiento no se registra),
+ * {@code concurrency} (peticiones en curso como máximo), {@code users} (usuarios creados antes de
+ * empezar), {@code mix} (pesos por operación) y {@code report} (directorio de los ficheros .hgrm).
+ */
+public final class RestApiLoadTest {
+
+    private static final long TIMEOUT_MS = 10_000;
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.SECONDS.toNanos(60);
+    private static final String[] FIRST_NAMES = {
+            "Juan", "María", "Pedro", "Lucía", "Carlos", "Ana", "Jorge", "Elena", "Luis", "Sofía"
+    };
+
+    enum Op {
+        GET, LIST, SEARCH, CREATE, UPDATE, DELETE
+    }
+
+    private final URI base;
+    private final HttpClient client;
+    private final Map<Op, Integer> mix;
+    private final int totalWeight;
+    private final int concurrency;
+    private final Semaphore inFlight;
+    private final Map<Op, Stats> stats = new EnumMap<>(Op.class);
+    private final Recorder interval = new Recorder(HIGHEST_TRACKABLE_NANOS, 3);
+    private final AtomicLong intervalErrors = new AtomicLong();
+    // Los GET y PUT usan los usuarios sembrados; los DELETE solo borran usuarios creados en la prueba
+    private long[] seededIds;
+    private final ConcurrentLinkedQueue<Long> createdIds = new ConcurrentLinkedQueue<>();
+    private volatile boolean recording;
+
+    private RestApiLoadTest(URI base, Map<Op, Integer> mix, int concurrency) {
+        this.base = base;
+        this.mix = mix;
+        this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        this.concurrency = concurrency;
+        this.inFlight = new Semaphore(concurrency);
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(TIMEOUT_MS))
+                .build();
+        for (Op op : Op.values()) {
+            stats.put(op, new Stats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        URI base = URI.create(options.getOrDefault("url", "http://localhost:8080"));
+        int rate = Integer.parseInt(options.getOrDefault("rate", "200"));
+        int duration = Integer.parseInt(options.getOrDefault("duration", "30"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "5"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "256"));
+        int users = Integer.parseInt(options.getOrDefault("users", "1000"));
+        Map<Op, Integer> mix = parseMix(options.getOrDefault("mix", "get:70,list:5,search:10,create:10,update:4,delete:1"));
+        Path report = Path.of(options.getOrDefault("report", "target/loadtest"));
+
+        RestApiLoadTest test = new RestApiLoadTest(base, mix, concurrency);
+        System.out.printf("Sembrando %d usuarios en %s%n", users, base);
+        test.seed(users);
+        System.out.printf("Carga: %d pet/s durante %d s (+%d s de calentamiento), %d en curso como máximo, mezcla %s%n",
+                rate, duration, warmup, concurrency, mix);
+        test.run(rate, warmup, duration);
+        test.report(System.out, duration);
+        test.writeHistograms(report);
+    }
+
+    private void seed(int users) throws IOException, InterruptedException {
+        seededIds = new long[users];
+        for (int i = 0; i < users; i++) {
+            HttpResponse<String> response = client.send(createRequest(i), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 201) {
+                throw new IllegalStateException("No se pudo sembrar el usuario " + i + ": HTTP " + response.statusCode());
+            }
+            seededIds[i] = idOf(response.body());
+        }
+    }
+
+    private void run(int rate, int warmupSeconds, int durationSeconds) throws InterruptedException {
+        ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "loadtest-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long recordFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = recordFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        progress.scheduleAtFixedRate(this::printInterval, 1, 1, TimeUnit.SECONDS);
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * periodNanos;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (!recording && intended >= recordFrom) {
+                recording = true;
+                interval.reset();
+            }
+            // Con el límite alcanzado se espera aquí; el retraso se mide desde 'intended'
+            inFlight.acquire();
+            send(pick(), intended, intended >= recordFrom);
+        }
+        // Se espera a las respuestas pendientes (como mucho un timeout)
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+        while (inFlightCount() > 0 && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        progress.shutdownNow();
+    }
+
+    private int inFlightCount() {
+        return concurrency - inFlight.availablePermits();
+    }
+
+    private void send(Op op, long intended, boolean record) {
+        HttpRequest request;
+        int expected = 200;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (op) {
+            case GET:
+                request = request("/api/users/" + randomSeededId()).GET().build();
+                break;
+            case LIST:
+                request = request("/api/users?limit=100&after=" + randomSeededId()).GET().build();
+                break;
+            case SEARCH:
+                String query = URLEncoder.encode("carga" + random.nextInt(seededIds.length), StandardCharsets.UTF_8);
+                request = request("/api/users/search?limit=20&name=" + query).GET().build();
+                break;
+            case CREATE:
+                request = createRequest(random.nextInt(1_000_000));
+                expected = 201;
+                break;
+            case UPDATE:
+                long id = randomSeededId();
+                request = request("/api/users/" + id)
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString(userJson((int) (id % 1_000_000), 18 + random.nextInt(60))))
+                        .build();
+                break;
+            default:
+                Long deleted = createdIds.poll();
+                if (deleted == null) {
+                    // Nada que borrar todavía: se sustituye por una lectura
+                    send(Op.GET, intended, record);
+                    return;
+                }
+                request = request("/api/users/" + deleted).DELETE().build();
+        }
+
+        int expectedStatus = expected;
+        long sent = System.nanoTime();
+        client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, error) -> {
+            long now = System.nanoTime();
+            inFlight.release();
+            boolean ok = error == null && response.statusCode() == expectedStatus;
+            if (ok && op == Op.CREATE) {
+                createdIds.add(idOf(response.body()));
+            }
+            if (!record) {
+                return;
+            }
+            Stats s = stats.get(op);
+            if (!ok) {
+                s.errors.incrementAndGet();
+                intervalErrors.incrementAndGet();
+            }
+            long responseTime = Math.min(now - intended, HIGHEST_TRACKABLE_NANOS);
+            s.response.recordValue(responseTime);
+            s.service.recordValue(Math.min(now - sent, HIGHEST_TRACKABLE_NANOS));
+            interval.recordValue(responseTime);
+        });
+    }
+
+    private Op pick() {
+        int roll = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Map.Entry<Op, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        return Op.GET;
+    }
+
+    private long randomSeededId() {
+        return seededIds[ThreadLocalRandom.current().nextInt(seededIds.length)];
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(base.resolve(path)).timeout(Duration.ofMillis(TIMEOUT_MS));
+    }
+
+    private HttpRequest createRequest(int index) {
+        return request("/api/users")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(userJson(index, 18 + index % 60)))
+                .build();
+    }
+
+    private static String userJson(int index, int age) {
+        return String.format("{\"name\":\"%s Carga%d\",\"email\":\"carga%d@example.com\",\"age\":%d}",
+                FIRST_NAMES[index % FIRST_NAMES.length], index, index, age);
+    }
+
+    private void printInterval() {
+        if (!recording) {
+            return;
+        }
+        Histogram h = interval.getIntervalHistogram();
+        System.out.printf("  %6d pet/s  p50=%7.2f ms  p99=%8.2f ms  max=%8.2f ms  errores=%d  en curso=%d%n",
+                h.getTotalCount(), ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(99)),
+                ms(h.getMaxValue()), intervalErrors.getAndSet(0), inFlightCount());
+    }
+
+    private void report(PrintStream out, int durationSeconds) {
+        out.println();
+        out.println("Latencia de respuesta (corregida por omisión coordinada), ms:");
+        out.printf("%-8s %9s %8s %8s %8s %8s %9s %9s %8s | %12s%n",
+                "op", "peticiones", "errores", "p50", "p90", "p99", "p99.9", "max", "pet/s", "servicio p99");
+        Histogram all = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+        long errors = 0;
+        for (Map.Entry<Op, Stats> entry : stats.entrySet()) {
+            Histogram response = entry.getValue().response.getIntervalHistogram();
+            Histogram service = entry.getValue().service.getIntervalHistogram();
+            entry.getValue().responseTotal = response;
+            long opErrors = entry.getValue().errors.get();
+            if (response.getTotalCount() == 0) {
+                continue;
+            }
+            all.add(response);
+            errors += opErrors;
+            printRow(out, entry.getKey().name().toLowerCase(), response, opErrors, durationSeconds,
+                    service.getValueAtPercentile(99));
+        }
+        printRow(out, "total", all, errors, durationSeconds, -1);
+    }
+
+    private static void printRow(PrintStream out, String name, Histogram h, long errors, int seconds, long serviceP99) {
+        out.printf("%-8s %9d %8d %8.2f %8.2f %8.2f %9.2f %9.2f %8.1f | %12s%n",
+                name, h.getTotalCount(), errors,
+                ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(90)), ms(h.getValueAtPercentile(99)),
+                ms(h.getValueAtPercentile(99.9)), ms(h.getMaxValue()), h.getTotalCount() / (double) seconds,
+                serviceP99 < 0 ? "" : String.format("%.2f", ms(serviceP99)));
+    }
+
+    /** Un fichero .hgrm por operación, en el formato de percentiles de HdrHistogram (ms). */
+    private void writeHistograms(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (Map.Entry<Op, Stats> entry : stats.entrySet()) {
+            Histogram h = entry.getValue().responseTotal;
+            if (h == null || h.getTotalCount() == 0) {
+                continue;
+            }
+            Path file = directory.resolve(entry.getKey().name().toLowerCase() + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, StandardCharsets.UTF_8)) {
+                h.outputPercentileDistribution(out, 1_000_000.0);
+            }
+        }
+        System.out.printf("Distribuciones de percentiles en %s%n", directory.toAbsolutePath());
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Argumento no válido (se espera clave=valor): " + arg);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    private static Map<Op, Integer> parseMix(String spec) {
+        Map<Op, Integer> mix = new EnumMap<>(Op.class);
+        for (String part : spec.split(",")) {
+            String[] pair = part.split(":");
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                mix.put(Op.valueOf(pair[0].trim().toUpperCase()), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("La mezcla no tiene ninguna operación: " + spec);
+        }
+        return mix;
+    }
+
+    private static long idOf(String body) {
+        int idStart = body.indexOf("\"id\":") + 5;
+        int idEnd = idStart;
+        while (idEnd < body.length() && Character.isDigit(body.charAt(idEnd))) {
+            idEnd++;
+        }
+        return Long.parseLong(body.substring(idStart, idEnd));
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static final class Stats {
+        final Recorder response = new Recorder(HIGHEST_TRACKABLE_NANOS, 3);
+        final Recorder service = new Recorder(HIGHEST_TRACKABLE_NANOS, 3);
+        final AtomicLong errors = new AtomicLong();
+        // Acumulado de toda la prueba, fijado al generar el informe
+        Histogram responseTotal;
+    }
+}
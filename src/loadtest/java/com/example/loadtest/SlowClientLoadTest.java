@@ -0,0 +1,229 @@
+package com.example.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Prueba de carga con clientes lentos: abre muchas conexiones que envían el cuerpo de un
+ * POST /api/users byte a byte (cada una retiene un hilo de petición mientras Tomcat lee el cuerpo)
+ * y, mientras tanto, lanza GET rápidos a ritmo fijo midiendo su latencia.
+ *
+ * <p>La latencia de los GET se mide desde el instante en que debían enviarse, no desde que se
+ * enviaron, para no ocultar las esperas en cola (omisión coordinada).
+ *
+ * <pre>
+ * mvn -Ploadtest test-compile exec:exec \
+ *     -Dloadtest.args="http://localhost:8080 2000 10 100"
+ * </pre>
+ * Argumentos: URL base, clientes lentos, segundos que tarda cada cuerpo, GET rápidos por segundo.
+ */
+public final class SlowClientLoadTest {
+
+    private static final long TIMEOUT_MS = 10_000;
+
+    private SlowClientLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        URI base = URI.create(args.length > 0 ? args[0] : "http://localhost:8080");
+        int slowClients = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int slowSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int fastRate = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(TIMEOUT_MS))
+                .build();
+        String userPath = createProbeUser(client, base);
+
+        List<SlowClient> slow = openSlowClients(base, slowClients);
+        System.out.printf("Clientes lentos conectados: %d/%d%n", slow.size(), slowClients);
+
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+        int bodyLength = SlowClient.body(0).length;
+        long tickMicros = Math.max(1, TimeUnit.SECONDS.toMicros(slowSeconds) / bodyLength);
+        AtomicInteger slowBroken = new AtomicInteger();
+        scheduler.scheduleAtFixedRate(() -> {
+            for (SlowClient c : slow) {
+                if (!c.trickle()) {
+                    slowBroken.incrementAndGet();
+                }
+            }
+        }, 0, tickMicros, TimeUnit.MICROSECONDS);
+
+        Histogram fast = new Histogram(TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS * 2), 3);
+        AtomicInteger fastErrors = new AtomicInteger();
+        int fastRequests = fastRate * slowSeconds;
+        CountDownLatch done = new CountDownLatch(fastRequests);
+        long periodNanos = TimeUnit.SECONDS.toNanos(1) / fastRate;
+        long start = System.nanoTime();
+        for (int i = 0; i < fastRequests; i++) {
+            long intended = start + i * periodNanos;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            HttpRequest request = HttpRequest.newBuilder(base.resolve(userPath))
+                    .timeout(Duration.ofMillis(TIMEOUT_MS)).GET().build();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                long latency = System.nanoTime() - intended;
+                if (error != null || response.statusCode() != 200) {
+                    fastErrors.incrementAndGet();
+                }
+                synchronized (fast) {
+                    fast.recordValue(Math.min(latency, fast.getHighestTrackableValue()));
+                }
+                done.countDown();
+            });
+        }
+        done.await(TIMEOUT_MS * 2, TimeUnit.MILLISECONDS);
+
+        // Se deja terminar el goteo y se recogen las respuestas de los clientes lentos
+        long remaining = TimeUnit.SECONDS.toNanos(slowSeconds) - (System.nanoTime() - start);
+        if (remaining > 0) {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        }
+        scheduler.shutdown();
+        scheduler.awaitTermination(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        int slowCompleted = 0;
+        for (SlowClient c : slow) {
+            c.finish();
+            if (c.created()) {
+                slowCompleted++;
+            }
+            c.close();
+        }
+
+        System.out.printf("Clientes lentos completados (201): %d/%d, cortados: %d%n",
+                slowCompleted, slowClients, slowBroken.get());
+        System.out.printf("GET rápidos: %d peticiones, %d errores%n", fastRequests, fastErrors.get());
+        System.out.printf("Latencia GET (ms): p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f%n",
+                ms(fast.getValueAtPercentile(50)), ms(fast.getValueAtPercentile(90)),
+                ms(fast.getValueAtPercentile(99)), ms(fast.getValueAtPercentile(99.9)), ms(fast.getMaxValue()));
+    }
+
+    private static String createProbeUser(HttpClient client, URI base) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(base.resolve("/api/users"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"name\":\"Sonda\",\"email\":\"sonda@example.com\",\"age\":30}"))
+                .build();
+        String body = client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+        int idStart = body.indexOf("\"id\":") + 5;
+        int idEnd = idStart;
+        while (idEnd < body.length() && Character.isDigit(body.charAt(idEnd))) {
+            idEnd++;
+        }
+        return "/api/users/" + body.substring(idStart, idEnd);
+    }
+
+    private static List<SlowClient> openSlowClients(URI base, int count) {
+        List<SlowClient> clients = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            try {
+                clients.add(new SlowClient(base, i));
+            } catch (IOException e) {
+                // Conexión rechazada: el servidor ha alcanzado su límite de conexiones
+            }
+        }
+        return clients;
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /** Conexión que envía las cabeceras de inmediato y el cuerpo de un byte en un byte. */
+    private static final class SlowClient {
+        private final Socket socket;
+        private final OutputStream out;
+        private final byte[] body;
+        private int written;
+        private boolean broken;
+        private String statusLine = "";
+
+        SlowClient(URI base, int index) throws IOException {
+            body = body(index);
+            socket = new Socket();
+            socket.connect(new InetSocketAddress(base.getHost(), base.getPort()), (int) TIMEOUT_MS);
+            socket.setSoTimeout((int) TIMEOUT_MS);
+            socket.setTcpNoDelay(true);
+            out = socket.getOutputStream();
+            String headers = "POST /api/users HTTP/1.1\r\n"
+                    + "Host: " + base.getHost() + "\r\n"
+                    + "Content-Type: application/json\r\n"
+                    + "Content-Length: " + body.length + "\r\n"
+                    + "Connection: close\r\n\r\n";
+            out.write(headers.getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        }
+
+        static byte[] body(int index) {
+            return String.format("{\"name\":\"Lento %06d\",\"email\":\"lento%06d@example.com\",\"age\":30}", index, index)
+                    .getBytes(StandardCharsets.UTF_8);
+        }
+
+        /** Envía el siguiente byte; devuelve false solo la primera vez que la conexión falla. */
+        boolean trickle() {
+            if (broken || written >= body.length) {
+                return true;
+            }
+            try {
+                out.write(body[written++]);
+                out.flush();
+                return true;
+            } catch (IOException e) {
+                broken = true;
+                return false;
+            }
+        }
+
+        void finish() {
+            try {
+                while (!broken && written < body.length) {
+                    out.write(body[written++]);
+                }
+                out.flush();
+                InputStream in = socket.getInputStream();
+                StringBuilder line = new StringBuilder();
+                int b;
+                while ((b = in.read()) != -1 && b != '\n') {
+                    line.append((char) b);
+                }
+                statusLine = line.toString();
+            } catch (IOException e) {
+                broken = true;
+            }
+        }
+
+        boolean created() {
+            return statusLine.startsWith("HTTP/1.1 201");
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Sin efecto: la conexión ya estaba cerrada
+            }
+        }
+    }
+}
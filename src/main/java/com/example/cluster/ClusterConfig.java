@@ -0,0 +1,27 @@
+package com.example.cluster;
+
+import com.example.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Modo clúster ({@code app.cluster.enabled}): cada instancia guarda solo los ids que le asigna el
+ * anillo de hash consistente y las altas se quedan con ids locales.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.cluster", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ClusterProperties.class)
+public class ClusterConfig {
+
+    @Bean
+    public ClusterRouter clusterRouter(ClusterProperties properties, ObjectMapper objectMapper,
+                                       MeterRegistry meterRegistry, UserService userService) {
+        ClusterRouter router = new ClusterRouter(properties, objectMapper, meterRegistry);
+        userService.setLocalKeys(router::isLocal);
+        return router;
+    }
+}
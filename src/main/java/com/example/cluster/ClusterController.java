@@ -0,0 +1,78 @@
+package com.example.cluster;
+
+import com.example.model.User;
+import com.example.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pertenencia al clúster y traspaso de usuarios entre nodos. Las altas y los traspasos escriben en
+ * este nodo, así que solo se aceptan de otro nodo ({@link ClusterRouter#isPeer}); el resto, 403.
+ */
+@RestController
+@RequestMapping("/api/cluster")
+@ConditionalOnProperty(prefix = "app.cluster", name = "enabled", havingValue = "true")
+@Slf4j
+public class ClusterController {
+    private final ClusterRouter router;
+    private final ClusterRebalancer rebalancer;
+    private final UserService userService;
+
+    public ClusterController(ClusterRouter router, ClusterRebalancer rebalancer, UserService userService) {
+        this.router = router;
+        this.rebalancer = rebalancer;
+        this.userService = userService;
+    }
+
+    @GetMapping("/nodes")
+    public Map<String, Object> nodes() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("self", router.self());
+        response.put("nodes", router.ring().nodes());
+        response.put("localUsers", userService.countUsers());
+        return response;
+    }
+
+    @PostMapping("/nodes")
+    public ResponseEntity<Map<String, Object>> join(@RequestBody Map<String, String> node, HttpServletRequest request)
+            throws IOException, InterruptedException {
+        String url = node.get("url");
+        if (url == null || url.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!router.isPeer(request) || !router.isMember(url)) {
+            log.warn("POST /api/cluster/nodes - Alta de {} rechazada desde {}", url, request.getRemoteAddr());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        log.info("POST /api/cluster/nodes - Alta del nodo {}", url);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("moved", rebalancer.join(url));
+        response.put("nodes", router.ring().nodes());
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping(value = "/_import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ImportResult> importUsers(@RequestBody byte[] body, HttpServletRequest request) throws IOException {
+        if (!router.isPeer(request)) {
+            log.warn("POST /api/cluster/_import - Traspaso rechazado desde {}", request.getRemoteAddr());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        List<User> users = router.readUsers(body);
+        List<Long> rejected = userService.importTransferred(users);
+        return ResponseEntity.ok(new ImportResult(users.size() - rejected.size(), rejected));
+    }
+}
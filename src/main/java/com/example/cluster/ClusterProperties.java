@@ -0,0 +1,30 @@
+package com.example.cluster;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "app.cluster")
+public class ClusterProperties {
+    private boolean enabled = false;
+    // URL base con la que los demás nodos llegan a este
+    private String self = "http://localhost:8080";
+    // Nodos conocidos al arrancar; este nodo se anuncia a ellos y recibe su parte de los usuarios
+    private List<String> nodes = new ArrayList<>();
+    // Nodos que pueden darse de alta más tarde (POST /api/cluster/nodes) además de los de nodes,
+    // que ya forman el anillo inicial; cualquier otra URL se rechaza
+    private List<String> members = new ArrayList<>();
+    // Secreto compartido de las peticiones entre nodos (cabecera X-Cluster-Secret). Sin él, las
+    // altas y traspasos solo exigen la cabecera X-Cluster-Forwarded, que cualquiera puede enviar
+    private String secret = "";
+    private int virtualNodes = 128;
+    // forward: el nodo reenvía la petición al propietario del id; redirect: responde 307 hacia él
+    private String routing = "forward";
+    private Duration timeout = Duration.ofSeconds(5);
+    // Usuarios por petición al traspasar claves a un nodo nuevo
+    private int transferBatchSize = 1000;
+}
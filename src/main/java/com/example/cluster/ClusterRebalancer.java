@@ -0,0 +1,117 @@
+package com.example.cluster;
+
+import com.example.model.User;
+import com.example.service.UserService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Altas de nodos. Al arrancar, el nodo se anuncia a los nodos configurados; cada uno lo añade a
+ * su anillo y le traspasa las claves que ahora le corresponden:
+ * <ol>
+ *     <li>copia al nuevo propietario los usuarios que dejan de ser locales (con su versión);</li>
+ *     <li>cambia al anillo nuevo, así que las peticiones de esas claves ya se reenvían;</li>
+ *     <li>borra las copias locales que siguen en la versión copiada y reenvía las que cambiaron
+ *     durante la copia (el destino se queda con la versión mayor).</li>
+ * </ol>
+ * Los usuarios que el destino rechaza (inválidos o con un email ya registrado allí) no se borran:
+ * se quedan en este nodo y se avisa en el log.
+ * Mientras dura el paso 1 las escrituras siguen llegando aquí, pero el nodo nuevo ya se considera
+ * propietario: las peticiones que le lleguen directamente pueden dar 404 hasta recibir la copia.
+ * Mientras dura el paso 3, una lectura en el destino puede no ver aún un cambio hecho aquí.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.cluster", name = "enabled", havingValue = "true")
+@Slf4j
+public class ClusterRebalancer {
+    private static final int MAX_RETRANSFERS = 3;
+
+    private final ClusterRouter router;
+    private final UserService userService;
+    private final int batchSize;
+
+    public ClusterRebalancer(ClusterRouter router, UserService userService, ClusterProperties properties) {
+        this.router = router;
+        this.userService = userService;
+        this.batchSize = Math.max(1, properties.getTransferBatchSize());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void announce() {
+        for (String peer : router.peers()) {
+            try {
+                router.announce(peer);
+            } catch (IOException e) {
+                log.warn("No se pudo anunciar el alta a {}: {}", peer, e.toString());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Añade {@code node} al anillo y le traspasa sus claves. Devuelve cuántos usuarios se movieron.
+     */
+    public synchronized int join(String node) throws IOException, InterruptedException {
+        HashRing current = router.ring();
+        if (current.contains(node)) {
+            return 0;
+        }
+        HashRing next = current.withNode(node);
+        long start = System.nanoTime();
+        Map<String, List<User>> moving = new HashMap<>();
+        userService.forEachUser(user -> {
+            String owner = next.ownerOf(user.getId());
+            if (!owner.equals(router.self())) {
+                moving.computeIfAbsent(owner, o -> new ArrayList<>()).add(user);
+            }
+        });
+        for (Map.Entry<String, List<User>> entry : moving.entrySet()) {
+            Set<Long> rejected = transfer(entry.getKey(), entry.getValue());
+            if (!rejected.isEmpty()) {
+                log.warn("{} rechazó {} usuarios; se quedan en {}", entry.getKey(), rejected.size(), router.self());
+                entry.getValue().removeIf(user -> rejected.contains(user.getId()));
+            }
+        }
+        router.setRing(next);
+
+        int moved = 0;
+        for (Map.Entry<String, List<User>> entry : moving.entrySet()) {
+            List<User> changed = userService.releaseUsers(entry.getValue());
+            int refused = 0;
+            for (int attempt = 0; !changed.isEmpty() && attempt < MAX_RETRANSFERS; attempt++) {
+                Set<Long> rejected = transfer(entry.getKey(), changed);
+                refused += rejected.size();
+                changed.removeIf(user -> rejected.contains(user.getId()));
+                changed = userService.releaseUsers(changed);
+            }
+            if (!changed.isEmpty()) {
+                log.warn("{} usuarios siguen cambiando en {} y no se traspasaron a {}", changed.size(), router.self(), entry.getKey());
+            }
+            moved += entry.getValue().size() - changed.size() - refused;
+        }
+        log.info("Nodo {} añadido al anillo: {} usuarios traspasados en {} ms",
+                node, moved, (System.nanoTime() - start) / 1_000_000);
+        return moved;
+    }
+
+    private Set<Long> transfer(String node, List<User> users) throws IOException, InterruptedException {
+        Set<Long> rejected = new HashSet<>();
+        for (int from = 0; from < users.size(); from += batchSize) {
+            rejected.addAll(router.transfer(node, users.subList(from, Math.min(users.size(), from + batchSize))));
+        }
+        return rejected;
+    }
+}
@@ -0,0 +1,298 @@
+package com.example.cluster;
+
+import com.example.config.InstanceJson;
+import com.example.model.SearchResult;
+import com.example.model.User;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reparto de ids entre los nodos del clúster y comunicación entre ellos: reenvío (o redirección)
+ * de peticiones al propietario de un id, consultas de dispersión y reunión sobre todos los nodos
+ * y envío de usuarios durante un rebalanceo.
+ *
+ * <p>Las peticiones entre nodos llevan la cabecera {@value #FORWARDED_HEADER}; el nodo que la
+ * recibe responde solo con sus datos locales, sin volver a reenviar ni dispersar. Con
+ * {@code app.cluster.secret} llevan además {@value #SECRET_HEADER}, que exigen las operaciones
+ * que escriben en otro nodo (altas y traspasos, ver {@link #isPeer}).
+ */
+@Slf4j
+public class ClusterRouter {
+    public static final String FORWARDED_HEADER = "X-Cluster-Forwarded";
+    static final String SECRET_HEADER = "X-Cluster-Secret";
+    public static final String PARTIAL_RESULT_HEADER = "X-Partial-Result";
+    private static final List<String> REQUEST_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE, HttpHeaders.ACCEPT, HttpHeaders.IF_MATCH, HttpHeaders.IF_NONE_MATCH);
+    private static final List<String> RESPONSE_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE, HttpHeaders.ETAG, HttpHeaders.LOCATION, PARTIAL_RESULT_HEADER);
+    private static final TypeReference<List<User>> USER_LIST = new TypeReference<>() {
+    };
+
+    private final String self;
+    private final byte[] secret;
+    private final Set<String> members = new HashSet<>();
+    private final boolean redirect;
+    private final Duration timeout;
+    private final HttpClient client;
+    private final ObjectMapper peerMapper;
+    private final MeterRegistry registry;
+    private volatile HashRing ring;
+
+    public ClusterRouter(ClusterProperties properties, ObjectMapper objectMapper, MeterRegistry registry) {
+        this.self = properties.getSelf();
+        this.secret = properties.getSecret() == null ? new byte[0] : properties.getSecret().getBytes(StandardCharsets.UTF_8);
+        this.redirect = "redirect".equalsIgnoreCase(properties.getRouting());
+        this.timeout = properties.getTimeout();
+        this.registry = registry;
+        List<String> nodes = new ArrayList<>();
+        for (String node : properties.getNodes()) {
+            if (!node.isBlank()) {
+                nodes.add(node.trim());
+            }
+        }
+        nodes.add(self);
+        this.ring = HashRing.of(nodes, properties.getVirtualNodes());
+        members.addAll(nodes);
+        for (String member : properties.getMembers()) {
+            if (!member.isBlank()) {
+                members.add(member.trim());
+            }
+        }
+        if (secret.length == 0) {
+            log.warn("Clúster sin app.cluster.secret: las altas y traspasos solo se identifican por {}", FORWARDED_HEADER);
+        }
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .build();
+        // Entre nodos la versión viaja en ambos sentidos
+        this.peerMapper = InstanceJson.mapper(objectMapper);
+        Gauge.builder("cluster.nodes", this, router -> router.ring.nodes().size())
+                .description("Nodos en el anillo de este proceso")
+                .register(registry);
+        log.info("Nodo {} en un anillo de {} nodos ({} puntos por nodo)", self, ring.nodes().size(), properties.getVirtualNodes());
+    }
+
+    public String self() {
+        return self;
+    }
+
+    public HashRing ring() {
+        return ring;
+    }
+
+    void setRing(HashRing ring) {
+        this.ring = ring;
+    }
+
+    public boolean isLocal(long id) {
+        return self.equals(ring.ownerOf(id));
+    }
+
+    public String ownerOf(long id) {
+        return ring.ownerOf(id);
+    }
+
+    /**
+     * Peticiones que llegan de otro nodo: se atienden solo con datos locales.
+     */
+    public static boolean isForwarded(HttpServletRequest request) {
+        return request.getHeader(FORWARDED_HEADER) != null;
+    }
+
+    /**
+     * Peticiones de otro nodo con permiso para escribir aquí: llevan {@value #FORWARDED_HEADER} y,
+     * si hay secreto configurado, {@value #SECRET_HEADER} con ese secreto.
+     */
+    boolean isPeer(HttpServletRequest request) {
+        if (!isForwarded(request)) {
+            return false;
+        }
+        if (secret.length == 0) {
+            return true;
+        }
+        String presented = request.getHeader(SECRET_HEADER);
+        return presented != null && MessageDigest.isEqual(secret, presented.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Nodos que pueden entrar en el anillo: los configurados en {@code nodes} y {@code members}.
+     */
+    boolean isMember(String node) {
+        return members.contains(node);
+    }
+
+    /**
+     * Envía la petición al nodo propietario y copia su respuesta, o responde 307 hacia él si el
+     * modo de enrutado es {@code redirect}. Si el propietario no responde, 502.
+     */
+    void forward(HttpServletRequest request, HttpServletResponse response, String owner) throws IOException {
+        String target = owner + request.getRequestURI() + (request.getQueryString() != null ? "?" + request.getQueryString() : "");
+        if (redirect) {
+            response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+            response.setHeader(HttpHeaders.LOCATION, target);
+            return;
+        }
+
+        long start = System.nanoTime();
+        byte[] body = request.getInputStream().readAllBytes();
+        HttpRequest.Builder builder = peerRequest(target)
+                .timeout(timeout)
+                .method(request.getMethod(), body.length == 0
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body));
+        for (String name : REQUEST_HEADERS) {
+            String value = request.getHeader(name);
+            if (value != null) {
+                builder.header(name, value);
+            }
+        }
+        try {
+            HttpResponse<byte[]> forwarded = client.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+            response.setStatus(forwarded.statusCode());
+            for (String name : RESPONSE_HEADERS) {
+                forwarded.headers().firstValue(name).ifPresent(value -> response.setHeader(name, value));
+            }
+            response.getOutputStream().write(forwarded.body());
+            record("forward", owner, start);
+        } catch (IOException e) {
+            log.warn("No se pudo reenviar {} {} a {}: {}", request.getMethod(), request.getRequestURI(), owner, e.toString());
+            response.sendError(HttpStatus.BAD_GATEWAY.value());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.sendError(HttpStatus.BAD_GATEWAY.value());
+        }
+    }
+
+    /**
+     * Dispersión y reunión: repite la consulta GET en el resto de nodos en paralelo, mezcla sus
+     * listas con la local en orden de id y se queda con los {@code limit} primeros. Si algún nodo
+     * falla o devuelve un resultado parcial, el resultado se marca como parcial.
+     */
+    public SearchResult gather(HttpServletRequest request, List<User> local, int limit) {
+        long start = System.nanoTime();
+        String pathAndQuery = request.getRequestURI() + (request.getQueryString() != null ? "?" + request.getQueryString() : "");
+        List<String> peers = peers();
+        List<CompletableFuture<HttpResponse<byte[]>>> responses = new ArrayList<>(peers.size());
+        for (String peer : peers) {
+            HttpRequest peerRequest = peerRequest(peer + pathAndQuery)
+                    .timeout(timeout)
+                    .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                    .GET()
+                    .build();
+            responses.add(client.sendAsync(peerRequest, HttpResponse.BodyHandlers.ofByteArray()));
+        }
+
+        List<User> merged = new ArrayList<>(local);
+        boolean partial = false;
+        for (int i = 0; i < peers.size(); i++) {
+            try {
+                HttpResponse<byte[]> response = responses.get(i).get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+                if (response.statusCode() != HttpStatus.OK.value()) {
+                    throw new IOException("HTTP " + response.statusCode());
+                }
+                merged.addAll(peerMapper.readValue(response.body(), USER_LIST));
+                partial |= response.headers().firstValue(PARTIAL_RESULT_HEADER).isPresent();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                partial = true;
+            } catch (Exception e) {
+                log.warn("El nodo {} no respondió a {}: {}", peers.get(i), pathAndQuery, e.toString());
+                partial = true;
+            }
+        }
+        merged.sort(Comparator.comparing(User::getId));
+        List<User> users = merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+        record("gather", "all", start);
+        return new SearchResult(users, partial);
+    }
+
+    /**
+     * Copia usuarios (con su versión) a otro nodo a través de {@code POST /api/cluster/_import}.
+     * Devuelve los ids que el destino rechazó (inválidos o con un email ya registrado allí).
+     */
+    List<Long> transfer(String node, Collection<User> users) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpRequest request = peerRequest(node + "/api/cluster/_import")
+                .timeout(timeout)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(peerMapper.writeValueAsBytes(users)))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != HttpStatus.OK.value()) {
+            throw new IOException("Traspaso a " + node + " rechazado: HTTP " + response.statusCode());
+        }
+        record("transfer", node, start);
+        return peerMapper.readValue(response.body(), ImportResult.class).getRejected();
+    }
+
+    /**
+     * Pide a {@code node} que añada este nodo a su anillo; él traspasa a este nodo sus claves.
+     */
+    void announce(String node) throws IOException, InterruptedException {
+        // Sin plazo: el nodo responde cuando termina de traspasar las claves
+        HttpRequest request = peerRequest(node + "/api/cluster/nodes")
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(peerMapper.writeValueAsBytes(Map.of("url", self))))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != HttpStatus.OK.value()) {
+            throw new IOException("Alta en " + node + " rechazada: HTTP " + response.statusCode());
+        }
+        log.info("Alta anunciada a {}: {}", node, response.body());
+    }
+
+    List<User> readUsers(byte[] json) throws IOException {
+        return peerMapper.readValue(json, USER_LIST);
+    }
+
+    List<String> peers() {
+        List<String> peers = new ArrayList<>(ring.nodes());
+        peers.remove(self);
+        return peers;
+    }
+
+    private HttpRequest.Builder peerRequest(String uri) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(uri)).header(FORWARDED_HEADER, self);
+        if (secret.length > 0) {
+            builder.header(SECRET_HEADER, new String(secret, StandardCharsets.UTF_8));
+        }
+        return builder;
+    }
+
+    private void record(String kind, String node, long startNanos) {
+        Timer.builder("cluster.requests")
+                .description("Peticiones entre nodos del clúster")
+                .tag("kind", kind)
+                .tag("node", node)
+                .register(registry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.cluster;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Las peticiones a {@code /api/users/{id}} de ids que pertenecen a otro nodo se reenvían (o se
+ * redirigen) a su propietario antes de llegar al controlador. Las que ya vienen de otro nodo se
+ * atienden siempre aquí, para que dos anillos desfasados no se reenvíen la petición en bucle.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.cluster", name = "enabled", havingValue = "true")
+public class ClusterRoutingFilter extends OncePerRequestFilter {
+    private static final String PREFIX = "/api/users/";
+
+    private final ClusterRouter router;
+
+    public ClusterRoutingFilter(ClusterRouter router) {
+        this.router = router;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return ClusterRouter.isForwarded(request) || userId(request.getRequestURI()) < 0;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String owner = router.ownerOf(userId(request.getRequestURI()));
+        if (owner.equals(router.self())) {
+            chain.doFilter(request, response);
+        } else {
+            router.forward(request, response, owner);
+        }
+    }
+
+    /** Id de {@code /api/users/{id}}, o -1 si la ruta es otra. */
+    static long userId(String uri) {
+        if (!uri.startsWith(PREFIX) || uri.length() == PREFIX.length() || uri.length() - PREFIX.length() > 19) {
+            return -1L;
+        }
+        for (int i = PREFIX.length(); i < uri.length(); i++) {
+            char c = uri.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1L;
+            }
+        }
+        try {
+            return Long.parseLong(uri, PREFIX.length(), uri.length(), 10);
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Anillo de hash consistente con nodos virtuales: cada nodo ocupa {@code virtualNodes} puntos
+ * del anillo y un id pertenece al primer punto en sentido horario desde su hash. Al añadir un
+ * nodo solo se mueven a él las claves de los tramos que ocupa (≈ 1/N del total).
+ *
+ * <p>Es inmutable: los cambios de pertenencia crean un anillo nuevo. Con el mismo conjunto de
+ * nodos, todos los procesos calculan el mismo reparto.
+ */
+public final class HashRing {
+    private final List<String> nodes;
+    private final int virtualNodes;
+    private final NavigableMap<Long, String> points = new TreeMap<>();
+
+    private HashRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("El anillo necesita al menos un nodo y un punto por nodo");
+        }
+        // Orden fijo para que las colisiones de puntos se resuelvan igual en todos los procesos
+        this.nodes = List.copyOf(new TreeSet<>(nodes));
+        this.virtualNodes = virtualNodes;
+        for (String node : this.nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                points.put(mix(fnv1a(node + "#" + i)), node);
+            }
+        }
+    }
+
+    public static HashRing of(Collection<String> nodes, int virtualNodes) {
+        return new HashRing(nodes, virtualNodes);
+    }
+
+    public String ownerOf(long id) {
+        Map.Entry<Long, String> point = points.ceilingEntry(mix(id));
+        return (point != null ? point : points.firstEntry()).getValue();
+    }
+
+    public boolean contains(String node) {
+        return Collections.binarySearch(nodes, node) >= 0;
+    }
+
+    public List<String> nodes() {
+        return nodes;
+    }
+
+    public HashRing withNode(String node) {
+        if (contains(node)) {
+            return this;
+        }
+        List<String> next = new ArrayList<>(nodes);
+        next.add(node);
+        return new HashRing(next, virtualNodes);
+    }
+
+    public HashRing withoutNode(String node) {
+        List<String> next = new ArrayList<>(nodes);
+        next.remove(node);
+        return next.size() == nodes.size() ? this : new HashRing(next, virtualNodes);
+    }
+
+    /** Finalizador de MurmurHash3: ids consecutivos quedan repartidos por todo el anillo. */
+    static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private static long fnv1a(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
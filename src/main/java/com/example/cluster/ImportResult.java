@@ -0,0 +1,20 @@
+package com.example.cluster;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Respuesta de {@code POST /api/cluster/_import}: usuarios aceptados (aplicados o ya presentes con
+ * una versión igual o mayor) e ids rechazados, que el nodo de origen no borra.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportResult {
+    private int imported;
+    private List<Long> rejected = new ArrayList<>();
+}
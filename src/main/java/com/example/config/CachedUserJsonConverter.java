@@ -0,0 +1,136 @@
+package com.example.config;
+
+import com.example.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+
+/**
+ * Escribe {@code User} y colecciones de {@code User} como JSON desde bytes UTF-8 ya serializados
+ * por Jackson, sin reflexión en los aciertos. Las listas se escriben concatenando esos bytes
+ * directamente en el buffer de la respuesta.
+ *
+ * <p>Cada entrada guarda una copia del usuario con el que se serializó y solo se usa si coincide
+ * con el que se va a escribir: cualquier cambio (updateUser, operaciones masivas) invalida la
+ * entrada en la siguiente lectura, sin depender de avisos desde las rutas de escritura. Solo
+ * escribe; la lectura de peticiones sigue en el conversor de Jackson.
+ */
+public class CachedUserJsonConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    private final ObjectMapper objectMapper;
+    private final Cache<Long, Entry> cache;
+
+    public CachedUserJsonConverter(ObjectMapper objectMapper, long maximumSize) {
+        super(MediaType.APPLICATION_JSON);
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .executor(Runnable::run)
+                .build();
+    }
+
+    /**
+     * Publica aciertos, fallos y tamaño como métricas {@code cache.*} con {@code cache=users-json}.
+     */
+    public void bindMetrics(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "users-json");
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return User.class == clazz;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (!canWrite(mediaType)) {
+            return false;
+        }
+        if (User.class == clazz) {
+            return true;
+        }
+        // List<User> declarado en el método del controlador
+        if (type instanceof ParameterizedType && Collection.class.isAssignableFrom(clazz)) {
+            Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+            return arguments.length == 1 && arguments[0] == User.class;
+        }
+        return false;
+    }
+
+    @Override
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        OutputStream out = outputMessage.getBody();
+        if (body instanceof User) {
+            out.write(bytes((User) body));
+            return;
+        }
+        out.write('[');
+        boolean first = true;
+        for (Object user : (Collection<?>) body) {
+            if (!first) {
+                out.write(',');
+            }
+            out.write(bytes((User) user));
+            first = false;
+        }
+        out.write(']');
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new UnsupportedOperationException("Conversor solo de escritura");
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new UnsupportedOperationException("Conversor solo de escritura");
+    }
+
+    byte[] bytes(User user) throws IOException {
+        Long id = user.getId();
+        if (id == null) {
+            return objectMapper.writeValueAsBytes(user);
+        }
+        Entry entry = cache.getIfPresent(id);
+        if (entry != null && entry.user.equals(user)) {
+            return entry.json;
+        }
+        byte[] json = objectMapper.writeValueAsBytes(user);
+        // Copia: el almacén en memoria devuelve la instancia guardada, que no debe cambiar la entrada
+        cache.put(id, new Entry(new User(id, user.getName(), user.getEmail(), user.getAge(), user.getVersion()), json));
+        return json;
+    }
+
+    private static final class Entry {
+        final User user;
+        final byte[] json;
+
+        Entry(User user, byte[] json) {
+            this.user = user;
+            this.json = json;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.config;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.async.DiscardingAsyncQueueFullPolicy;
+import org.apache.logging.log4j.core.async.EventRoute;
+import org.apache.logging.log4j.util.PropertiesUtil;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Política de cola llena de los loggers asíncronos: descarta los eventos de nivel
+ * {@code log4j2.discardThreshold} o inferior y deja esperar a los más graves. Log4j2 la instancia
+ * por nombre ({@code log4j2.asyncQueueFullPolicy}), así que el contador de descartes es estático
+ * para que {@link LoggingMetrics} pueda publicarlo.
+ */
+public class CountingDiscardQueueFullPolicy extends DiscardingAsyncQueueFullPolicy {
+
+    private static final AtomicLong DROPPED = new AtomicLong();
+
+    public CountingDiscardQueueFullPolicy() {
+        super(Level.toLevel(PropertiesUtil.getProperties().getStringProperty("log4j2.discardThreshold"), Level.INFO));
+    }
+
+    @Override
+    public EventRoute getRoute(long backgroundThreadId, Level level) {
+        EventRoute route = super.getRoute(backgroundThreadId, level);
+        if (route == EventRoute.DISCARD) {
+            DROPPED.incrementAndGet();
+        }
+        return route;
+    }
+
+    public static long droppedEvents() {
+        return DROPPED.get();
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+
+/**
+ * JSON entre instancias (clúster, réplicas). A diferencia de la API pública, los campos de solo
+ * lectura como la versión de cada usuario también se leen del cuerpo.
+ */
+public final class InstanceJson {
+
+    private InstanceJson() {
+    }
+
+    public static ObjectMapper mapper(ObjectMapper base) {
+        return base.copy().setAnnotationIntrospector(new JacksonAnnotationIntrospector() {
+            @Override
+            public JsonProperty.Access findPropertyAccess(Annotated annotated) {
+                return null;
+            }
+        });
+    }
+}
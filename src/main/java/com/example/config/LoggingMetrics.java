@@ -0,0 +1,48 @@
+package com.example.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.async.AsyncLoggerConfig;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.jmx.RingBufferAdmin;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Métricas de la cola de los loggers asíncronos: ocupación, capacidad y eventos descartados.
+ * La configuración se resuelve en cada lectura porque Spring Boot reconfigura Log4j2 al arrancar;
+ * con la configuración síncrona (log4j2.xml) la cola no existe y los valores son 0.
+ */
+@Component
+public class LoggingMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("logging.async.queue.depth", this,
+                        m -> ringBuffer(admin -> admin.getBufferSize() - admin.getRemainingCapacity()))
+                .description("Eventos de log pendientes en la cola asíncrona")
+                .register(registry);
+        Gauge.builder("logging.async.queue.capacity", this, m -> ringBuffer(RingBufferAdmin::getBufferSize))
+                .description("Capacidad de la cola asíncrona de logging")
+                .register(registry);
+        FunctionCounter.builder("logging.async.dropped", this, m -> CountingDiscardQueueFullPolicy.droppedEvents())
+                .description("Eventos de log descartados con la cola llena")
+                .register(registry);
+    }
+
+    private static long ringBuffer(ToLongFunction<RingBufferAdmin> value) {
+        LoggerContext context = (LoggerContext) LogManager.getContext(false);
+        Configuration config = context.getConfiguration();
+        boolean async = config.getRootLogger() instanceof AsyncLoggerConfig
+                || config.getLoggers().values().stream().anyMatch(AsyncLoggerConfig.class::isInstance);
+        if (!async) {
+            return 0;
+        }
+        return value.applyAsLong(config.getAsyncLoggerConfigDelegate().createRingBufferAdmin(context.getName(), ""));
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.config;
+
+import com.example.tracing.Phase;
+import com.example.tracing.RequestTrace;
+import org.apache.logging.log4j.core.Appender;
+import org.apache.logging.log4j.core.Core;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.config.AppenderControl;
+import org.apache.logging.log4j.core.config.AppenderRef;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.config.Property;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginConfiguration;
+import org.apache.logging.log4j.core.config.plugins.PluginElement;
+import org.apache.logging.log4j.core.config.plugins.PluginFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Appender que reenvía cada evento a los appenders referenciados y suma el tiempo a la fase
+ * {@code log} de la petición en curso. Solo mide algo con loggers síncronos: con los asíncronos
+ * del perfil prod los appenders se ejecutan en el hilo del disruptor, fuera de la petición.
+ *
+ * <pre>
+ * &lt;PhaseTiming name="Timed"&gt;
+ *     &lt;AppenderRef ref="Console"/&gt;
+ * &lt;/PhaseTiming&gt;
+ * </pre>
+ */
+@Plugin(name = "PhaseTiming", category = Core.CATEGORY_NAME, elementType = Appender.ELEMENT_TYPE)
+public final class PhaseTimingAppender extends AbstractAppender {
+    private final Configuration configuration;
+    private final AppenderRef[] refs;
+    private final List<AppenderControl> appenders = new ArrayList<>();
+
+    private PhaseTimingAppender(String name, Filter filter, Configuration configuration, AppenderRef[] refs) {
+        super(name, filter, null, true, Property.EMPTY_ARRAY);
+        this.configuration = configuration;
+        this.refs = refs;
+    }
+
+    @PluginFactory
+    public static PhaseTimingAppender createAppender(@PluginAttribute("name") String name,
+                                                     @PluginElement("AppenderRef") AppenderRef[] refs,
+                                                     @PluginElement("Filter") Filter filter,
+                                                     @PluginConfiguration Configuration configuration) {
+        if (name == null || refs == null || refs.length == 0) {
+            LOGGER.error("PhaseTiming necesita un nombre y al menos un AppenderRef");
+            return null;
+        }
+        return new PhaseTimingAppender(name, filter, configuration, refs);
+    }
+
+    @Override
+    public void start() {
+        for (AppenderRef ref : refs) {
+            Appender appender = configuration.getAppender(ref.getRef());
+            if (appender == null) {
+                LOGGER.error("PhaseTiming {}: appender {} no encontrado", getName(), ref.getRef());
+            } else {
+                appenders.add(new AppenderControl(appender, ref.getLevel(), ref.getFilter()));
+            }
+        }
+        super.start();
+    }
+
+    @Override
+    public void append(LogEvent event) {
+        long start = System.nanoTime();
+        for (AppenderControl appender : appenders) {
+            appender.callAppender(event);
+        }
+        RequestTrace.record(Phase.LOG, start);
+    }
+}
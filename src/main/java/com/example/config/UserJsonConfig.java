@@ -0,0 +1,34 @@
+package com.example.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Con {@code app.users.json-cache.enabled} las respuestas de usuarios se escriben desde JSON ya
+ * serializado. El conversor va delante del de Jackson para que lo elija primero.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.users.json-cache", name = "enabled", havingValue = "true")
+@Slf4j
+public class UserJsonConfig implements WebMvcConfigurer {
+    private final CachedUserJsonConverter converter;
+
+    public UserJsonConfig(ObjectMapper objectMapper, UserStoreProperties properties, MeterRegistry meterRegistry) {
+        long maximumSize = properties.getJsonCache().getMaximumSize();
+        log.info("Caché de JSON de usuarios activada: {} usuarios como máximo", maximumSize);
+        this.converter = new CachedUserJsonConverter(objectMapper, maximumSize);
+        converter.bindMetrics(meterRegistry);
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, converter);
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.config;
+
+import com.example.repository.CachingUserRepository;
+import com.example.repository.DurableUserRepository;
+import com.example.repository.InMemoryUserRepository;
+import com.example.repository.OffHeapUserRepository;
+import com.example.repository.PersistentUserRepository;
+import com.example.repository.TracingUserRepository;
+import com.example.repository.UserRepository;
+import com.example.service.BlockIdAllocator;
+import com.example.service.IdAllocator;
+import com.example.service.SnowflakeIdAllocator;
+import com.example.service.UserIdFilter;
+import com.example.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadFactory;
+
+@Configuration
+@EnableConfigurationProperties(UserStoreProperties.class)
+@Slf4j
+public class UserStoreConfig {
+
+    @Bean
+    public IdAllocator idAllocator(UserStoreProperties properties) {
+        UserStoreProperties.IdAllocation config = properties.getIdAllocation();
+        log.info("Asignación de ids de usuario: {}", config.getStrategy());
+        switch (config.getStrategy()) {
+            case "block":
+                return new BlockIdAllocator(config.getBlockSize(), Runtime.getRuntime().availableProcessors() * 2);
+            case "snowflake":
+                return new SnowflakeIdAllocator(config.getNodeId());
+            default:
+                throw new IllegalArgumentException("Estrategia de ids desconocida: " + config.getStrategy());
+        }
+    }
+
+    @Bean
+    public UserIdFilter userIdFilter(UserStoreProperties properties) {
+        UserStoreProperties.IdFilter config = properties.getIdFilter();
+        UserIdFilter filter = new UserIdFilter(config.getExpectedUsers(), config.getFalsePositiveRate());
+        log.info("Filtro de ids de usuario: {} usuarios esperados, {} KB", config.getExpectedUsers(),
+                filter.sizeInBytes() / 1024);
+        return filter;
+    }
+
+    /**
+     * Restricciones de {@link UserService} que vienen de {@code app.users}; se aplican con todos
+     * los beans creados, antes de que el servidor acepte peticiones.
+     */
+    @Bean
+    public SmartInitializingSingleton userServiceConstraints(UserService userService, UserStoreProperties properties) {
+        return () -> {
+            userService.setUniqueEmail(properties.isUniqueEmail());
+            if (properties.isUniqueEmail()) {
+                log.info("Emails únicos activados: se rechazan altas y cambios con un email ya registrado");
+            }
+        };
+    }
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    // Fase store del trazado de peticiones (ver com.example.tracing)
+    @Value("${app.tracing.enabled:true}")
+    private boolean tracingEnabled;
+
+    @Bean
+    public UserRepository userRepository(UserStoreProperties properties, MeterRegistry meterRegistry) throws IOException {
+        UserStoreProperties.Store config = properties.getStore();
+        log.info("Almacén de usuarios: {}", config.getType());
+        UserRepository repository;
+        switch (config.getType()) {
+            case "memory":
+                repository = new InMemoryUserRepository();
+                break;
+            case "off-heap":
+                repository = new OffHeapUserRepository(config.getRecordsPerSlab(), config.getArenaSlabBytes());
+                break;
+            case "persistent":
+                repository = new PersistentUserRepository();
+                break;
+            default:
+                throw new IllegalArgumentException("Tipo de almacén desconocido: " + config.getType());
+        }
+
+        UserStoreProperties.Persistence persistence = properties.getPersistence();
+        if (persistence.isEnabled()) {
+            log.info("Persistencia de usuarios activada en {}", persistence.getDirectory());
+            repository = new DurableUserRepository(repository, Path.of(persistence.getDirectory()),
+                    persistence.getSegmentBytes(), persistence.isSync(), persistence.getFlushInterval(),
+                    persistence.getSnapshotInterval(), persistence.getSnapshotMinRecords(), threadFactory("users-persistence-"));
+        }
+
+        UserStoreProperties.Cache cache = properties.getCache();
+        if (cache.isEnabled()) {
+            log.info("Caché de usuarios activada: tamaño máximo {}, peso máximo {}, caducidad {}",
+                    cache.getMaximumSize(), cache.getMaximumWeight(), cache.getExpireAfterWrite());
+            CachingUserRepository caching = new CachingUserRepository(repository, cache.getMaximumSize(),
+                    cache.getMaximumWeight(), cache.getExpireAfterWrite());
+            caching.bindMetrics(meterRegistry);
+            repository = caching;
+        }
+        if (tracingEnabled) {
+            repository = new TracingUserRepository(repository);
+        }
+        return repository;
+    }
+
+    /**
+     * Hilos de las tareas en segundo plano: virtuales si el perfil virtual-threads está activo
+     * y el JRE lo permite, de plataforma (daemon) en caso contrario.
+     */
+    private ThreadFactory threadFactory(String prefix) {
+        if (virtualThreads && Runtime.version().feature() >= 21) {
+            return new VirtualThreadTaskExecutor(prefix).getVirtualThreadFactory();
+        }
+        if (virtualThreads) {
+            log.warn("Hilos virtuales solicitados pero el JRE es {}; se usan hilos de plataforma", Runtime.version());
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(prefix);
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+}
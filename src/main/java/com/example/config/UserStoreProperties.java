@@ -0,0 +1,94 @@
+package com.example.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.users")
+public class UserStoreProperties {
+    private IdAllocation idAllocation = new IdAllocation();
+    private Store store = new Store();
+    private Persistence persistence = new Persistence();
+    private Cache cache = new Cache();
+    private JsonCache jsonCache = new JsonCache();
+    private GzipCache gzipCache = new GzipCache();
+    private IdFilter idFilter = new IdFilter();
+    private Page page = new Page();
+    // Rechaza (409) altas y cambios con un email ya registrado por otro usuario
+    private boolean uniqueEmail = false;
+
+    @Data
+    public static class IdAllocation {
+        // block: bloques por hilo en una sola instancia; snowflake: tiempo+nodo+secuencia
+        private String strategy = "block";
+        private int blockSize = 1024;
+        private long nodeId = 0;
+    }
+
+    @Data
+    public static class Store {
+        // memory: ConcurrentHashMap en el heap; off-heap: registros fijos en ByteBuffer directos;
+        // persistent: trie inmutable con lecturas de instantánea en O(1)
+        private String type = "memory";
+        private int recordsPerSlab = 65_536;
+        private int arenaSlabBytes = 4 * 1024 * 1024;
+    }
+
+    @Data
+    public static class Persistence {
+        private boolean enabled = false;
+        private String directory = "data/users";
+        private int segmentBytes = 64 * 1024 * 1024;
+        // true: cada escritura espera a que su registro esté en disco (commit en grupo)
+        private boolean sync = true;
+        private Duration flushInterval = Duration.ofMillis(2);
+        private Duration snapshotInterval = Duration.ofMinutes(5);
+        private long snapshotMinRecords = 100_000;
+    }
+
+    @Data
+    public static class Cache {
+        private boolean enabled = false;
+        // Límite por número de usuarios; si maximum-weight > 0 se limita por bytes aproximados
+        private long maximumSize = 100_000;
+        private long maximumWeight = 0;
+        // Duration.ZERO: sin caducidad
+        private Duration expireAfterWrite = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class JsonCache {
+        // Respuestas de User y List<User> escritas desde bytes JSON ya serializados
+        private boolean enabled = false;
+        private long maximumSize = 1_000_000;
+    }
+
+    @Data
+    public static class Page {
+        // Filas por página de /users (el parámetro size se limita a max-size)
+        private int size = 50;
+        private int maxSize = 500;
+        // Filas ya renderizadas por página y orden, válidas mientras el almacén no cambie
+        private boolean fragmentCache = false;
+        private long fragmentCacheSize = 256;
+    }
+
+    @Data
+    public static class GzipCache {
+        // Listas de GET /api/users ya comprimidas con gzip, por etiqueta del almacén y consulta
+        private boolean enabled = false;
+        // Las respuestas más pequeñas se envían sin comprimir
+        private int minResponseBytes = 2048;
+        private long maximumBytes = 64L * 1024 * 1024;
+    }
+
+    @Data
+    public static class IdFilter {
+        // Filtro de Bloom de ids existentes: descarta sin consultar el almacén los ids inexistentes.
+        // Unos 5 MB; con off-heap o persistencia y millones de usuarios conviene subirlo (ver DEVELOPMENT.md)
+        private long expectedUsers = 1 << 20;
+        private double falsePositiveRate = 0.01;
+    }
+}
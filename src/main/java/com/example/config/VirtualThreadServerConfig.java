@@ -0,0 +1,27 @@
+package com.example.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.web.embedded.jetty.JettyServletWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Servidor embebido del perfil virtual-threads. Tomcat 10.1 bloquea la lectura del cuerpo de la
+ * petición con wait() dentro de un bloque synchronized, lo que en Java 21 ancla el hilo virtual a su
+ * portador: con clientes lentos el planificador acaba creando un portador por conexión. Jetty 12
+ * usa locks y no tiene ese problema, así que, si está en el classpath (-Pjava21), sustituye a Tomcat.
+ */
+@Configuration
+@Profile("virtual-threads")
+@ConditionalOnClass(name = "org.eclipse.jetty.server.Server")
+@Slf4j
+public class VirtualThreadServerConfig {
+
+    @Bean
+    public JettyServletWebServerFactory jettyServletWebServerFactory() {
+        log.info("Perfil virtual-threads: servidor Jetty con hilos virtuales");
+        return new JettyServletWebServerFactory();
+    }
+}
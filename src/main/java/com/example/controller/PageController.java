@@ -1,25 +1,64 @@
 package com.example.controller;
 
+import com.example.cluster.ClusterRouter;
+import com.example.config.UserStoreProperties;
+import com.example.model.AgeStats;
+import com.example.model.BulkItemResult;
+import com.example.model.BulkOperation;
+import com.example.model.BulkResponse;
+import com.example.model.SearchResult;
 import com.example.model.User;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.example.service.DuplicateEmailException;
+import com.example.service.MonitoringStream;
+import com.example.service.UserNotFoundException;
 import com.example.service.UserService;
+import com.example.service.VersionConflictException;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Controller
 @Slf4j
 public class PageController {
+    private static final Set<String> PAGE_SORTS = Set.of("id", "name", "email", "age");
+
     private final UserService userService;
+    private final MonitoringStream monitoringStream;
+    private final UserRowsRenderer rowsRenderer;
+    private final UserStoreProperties.Page pageConfig;
 
-    public PageController(UserService userService) {
+    public PageController(UserService userService, MonitoringStream monitoringStream,
+                          UserRowsRenderer rowsRenderer, UserStoreProperties properties) {
         this.userService = userService;
+        this.monitoringStream = monitoringStream;
+        this.rowsRenderer = rowsRenderer;
+        this.pageConfig = properties.getPage();
     }
 
     @GetMapping("/")
@@ -29,12 +68,32 @@ public class PageController {
         return "index";
     }
 
+    /**
+     * Una página de usuarios ordenada en el servidor: solo se leen y renderizan {@code size}
+     * filas, así que el coste no crece con el almacén. Un orden desconocido se trata como id y
+     * una página fuera de rango muestra la última.
+     */
     @GetMapping("/users")
-    public String usersPage(Model model) {
-        log.info("Acceso a la página de usuarios");
-        List<User> users = userService.getAllUsers();
-        model.addAttribute("users", users);
-        model.addAttribute("userCount", users.size());
+    public String usersPage(@RequestParam(defaultValue = "0") int page,
+                            @RequestParam(required = false) Integer size,
+                            @RequestParam(defaultValue = "id") String sort,
+                            @RequestParam(defaultValue = "asc") String dir,
+                            Model model) {
+        log.info("Acceso a la página de usuarios: page={}, sort={}, dir={}", page, sort, dir);
+        int pageSize = size == null ? pageConfig.getSize() : Math.max(1, Math.min(size, pageConfig.getMaxSize()));
+        String order = PAGE_SORTS.contains(sort) ? sort : "id";
+        boolean descending = "desc".equalsIgnoreCase(dir);
+        int userCount = userService.countUsers();
+        int pages = Math.max(1, (userCount + pageSize - 1) / pageSize);
+        int current = Math.max(0, Math.min(page, pages - 1));
+
+        model.addAttribute("rows", rowsRenderer.rows(order, descending, current, pageSize));
+        model.addAttribute("userCount", userCount);
+        model.addAttribute("page", current);
+        model.addAttribute("pages", pages);
+        model.addAttribute("size", pageSize);
+        model.addAttribute("sort", order);
+        model.addAttribute("dir", descending ? "desc" : "asc");
         return "users";
     }
 
@@ -44,16 +103,39 @@ public class PageController {
         model.addAttribute("title", "Dashboard de Monitoreo");
         return "monitoring";
     }
+
+    /**
+     * Métricas del dashboard por Server-Sent Events, compartidas entre todos los suscriptores.
+     */
+    @GetMapping(value = "/monitoring/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter monitoringStream() {
+        return monitoringStream.subscribe();
+    }
 }
 
 @RestController
 @RequestMapping("/api/users")
 @Slf4j
 class UserRestController {
+    static final String NDJSON = "application/x-ndjson";
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String PARTIAL_RESULT_HEADER = "X-Partial-Result";
+    private static final int DEFAULT_PAGE_LIMIT = 100;
+    private static final int MAX_PAGE_LIMIT = 1000;
+    private static final int BULK_CHUNK_SIZE = 1000;
+    // Usuarios del stream NDJSON entre vaciados explícitos del generador
+    private static final int STREAM_FLUSH_SIZE = 1000;
+
     private final UserService userService;
+    private final ObjectMapper objectMapper;
+    // Solo en modo clúster (app.cluster.enabled)
+    private final ClusterRouter cluster;
 
-    public UserRestController(UserService userService) {
+    public UserRestController(UserService userService, ObjectMapper objectMapper, ObjectProvider<ClusterRouter> cluster) {
         this.userService = userService;
+        this.objectMapper = objectMapper;
+        this.cluster = cluster.getIfAvailable();
     }
 
     @PostMapping
@@ -61,38 +143,176 @@ class UserRestController {
         log.info("POST /api/users - Creando nuevo usuario");
         try {
             User createdUser = userService.createUser(user);
-            return ResponseEntity.status(HttpStatus.CREATED).body(createdUser);
+            return ResponseEntity.status(HttpStatus.CREATED).eTag(etag(createdUser)).body(createdUser);
+        } catch (DuplicateEmailException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             log.error("Error al crear usuario", e);
             return ResponseEntity.badRequest().build();
         }
     }
 
+    @PostMapping(value = "/_bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkResponse> bulk(@RequestBody List<BulkOperation> operations) {
+        log.info("POST /api/users/_bulk - Aplicando {} operaciones", operations.size());
+        long start = System.nanoTime();
+        List<BulkItemResult> items = userService.applyBulk(operations);
+        return ResponseEntity.ok(bulkResponse(items, start, null));
+    }
+
+    /**
+     * Aplica las operaciones por bloques según se leen. Una línea inválida no deshace los bloques
+     * anteriores: se aplican las operaciones previas a ella y se responde 400 con sus resultados,
+     * de modo que el cliente sabe que la primera no aplicada es la de índice {@code total}.
+     */
+    @PostMapping(value = "/_bulk", consumes = NDJSON)
+    public ResponseEntity<BulkResponse> bulkNdjson(InputStream body) throws IOException {
+        log.info("POST /api/users/_bulk - Aplicando operaciones NDJSON");
+        long start = System.nanoTime();
+        List<BulkItemResult> items = new ArrayList<>();
+        List<BulkOperation> chunk = new ArrayList<>(BULK_CHUNK_SIZE);
+        try (MappingIterator<BulkOperation> operations = objectMapper.readerFor(BulkOperation.class).readValues(body)) {
+            while (operations.hasNextValue()) {
+                chunk.add(operations.nextValue());
+                if (chunk.size() == BULK_CHUNK_SIZE) {
+                    applyChunk(chunk, items);
+                }
+            }
+        } catch (JsonProcessingException e) {
+            applyChunk(chunk, items);
+            log.warn("POST /api/users/_bulk - Operación {} inválida, aplicadas las anteriores: {}",
+                    items.size(), e.getOriginalMessage());
+            return ResponseEntity.badRequest().body(bulkResponse(items, start,
+                    "Operación " + items.size() + " inválida: " + e.getOriginalMessage()));
+        }
+        applyChunk(chunk, items);
+        return ResponseEntity.ok(bulkResponse(items, start, null));
+    }
+
+    private void applyChunk(List<BulkOperation> chunk, List<BulkItemResult> items) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        int offset = items.size();
+        for (BulkItemResult result : userService.applyBulk(chunk)) {
+            result.setIndex(result.getIndex() + offset);
+            items.add(result);
+        }
+        chunk.clear();
+    }
+
+    private static BulkResponse bulkResponse(List<BulkItemResult> items, long start, String error) {
+        int succeeded = 0;
+        for (BulkItemResult item : items) {
+            if (item.getStatus() < 300) {
+                succeeded++;
+            }
+        }
+        long tookMs = (System.nanoTime() - start) / 1_000_000;
+        return new BulkResponse(items.size(), succeeded, items.size() - succeeded, tookMs, items, error);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<User> getUser(@PathVariable Long id) {
         log.info("GET /api/users/{} - Obteniendo usuario", id);
-        try {
-            User user = userService.getUserById(id);
-            return ResponseEntity.ok(user);
-        } catch (Exception e) {
-            log.error("Error al obtener usuario", e);
-            return ResponseEntity.notFound().build();
-        }
+        return userService.findUserById(id)
+                .map(user -> ResponseEntity.ok().eTag(etag(user)).body(user))
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    /**
+     * Las listas llevan la etiqueta del almacén ({@link #storeEtag}); con {@code If-None-Match}
+     * igual a la actual responde 304 sin leer ni serializar ningún usuario.
+     */
     @GetMapping
-    public ResponseEntity<List<User>> getAllUsers() {
-        log.info("GET /api/users - Obteniendo todos los usuarios");
-        List<User> users = userService.getAllUsers();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<List<User>> getAllUsers(@RequestParam(required = false) Long after,
+                                                  @RequestParam(required = false) Integer limit,
+                                                  @RequestParam(required = false) Integer minAge,
+                                                  @RequestParam(required = false) Integer maxAge,
+                                                  HttpServletRequest request, WebRequest webRequest) {
+        if (notModified(request, webRequest)) {
+            return null;
+        }
+        boolean byAge = minAge != null || maxAge != null;
+        int fromAge = minAge == null ? 0 : minAge;
+        int toAge = maxAge == null ? Integer.MAX_VALUE : maxAge;
+        if (after == null && limit == null) {
+            if (byAge) {
+                log.info("GET /api/users - Obteniendo usuarios por edad: {}-{}", fromAge, toAge);
+                return respond(gather(request, userService.getUsersByAge(fromAge, toAge), Integer.MAX_VALUE));
+            }
+            log.info("GET /api/users - Obteniendo todos los usuarios");
+            List<User> users = userService.getAllUsers();
+            return respond(gather(request, users, Integer.MAX_VALUE));
+        }
+
+        int pageLimit = limit == null ? DEFAULT_PAGE_LIMIT : Math.max(1, Math.min(limit, MAX_PAGE_LIMIT));
+        long cursor = after == null ? 0L : after;
+        log.info("GET /api/users - Obteniendo página de usuarios: after={}, limit={}", after, pageLimit);
+        List<User> local = byAge
+                ? userService.getUsersByAge(fromAge, toAge, cursor, pageLimit)
+                : userService.getUsersPage(cursor, pageLimit);
+        SearchResult page = gather(request, local, pageLimit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getUsers().size() == pageLimit) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(page.getUsers().get(pageLimit - 1).getId()));
+        }
+        if (page.isPartial()) {
+            response.header(PARTIAL_RESULT_HEADER, "true");
+        }
+        return response.body(page.getUsers());
     }
 
+    @GetMapping(produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamAllUsers(HttpServletRequest request, WebRequest webRequest) {
+        if (notModified(request, webRequest)) {
+            return null;
+        }
+        log.info("GET /api/users - Transmitiendo usuarios en NDJSON");
+        // Sin vaciar tras cada valor: el generador y el contenedor agrupan las escrituras
+        ObjectWriter writer = objectMapper.writerFor(User.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            // Cada línea es un valor raíz; el separador por defecto (un espacio) la descuadraría
+            generator.setRootValueSeparator(null);
+            int[] written = {0};
+            try {
+                userService.forEachUser(user -> {
+                    try {
+                        writer.writeValue(generator, user);
+                        generator.writeRaw('\n');
+                        if (++written[0] % STREAM_FLUSH_SIZE == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            generator.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    /**
+     * Con {@code If-Match} el cambio solo se aplica si el usuario sigue en la versión de esa
+     * etiqueta; si otro escritor se adelantó responde 412 y el cliente debe releer y reintentar.
+     */
     @PutMapping("/{id}")
-    public ResponseEntity<User> updateUser(@PathVariable Long id, @RequestBody User user) {
+    public ResponseEntity<User> updateUser(@PathVariable Long id, @RequestBody User user,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         log.info("PUT /api/users/{} - Actualizando usuario", id);
         try {
-            User updatedUser = userService.updateUser(id, user);
-            return ResponseEntity.ok(updatedUser);
+            User updatedUser = userService.updateUser(id, user, expectedVersion(ifMatch));
+            return ResponseEntity.ok().eTag(etag(updatedUser)).body(updatedUser);
+        } catch (UserNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (DuplicateEmailException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (VersionConflictException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
         } catch (Exception e) {
             log.error("Error al actualizar usuario", e);
             return ResponseEntity.badRequest().build();
@@ -100,23 +320,137 @@ class UserRestController {
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Map<String, String>> deleteUser(@PathVariable Long id) {
+    public ResponseEntity<Map<String, String>> deleteUser(@PathVariable Long id,
+                                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         log.info("DELETE /api/users/{} - Eliminando usuario", id);
         try {
-            userService.deleteUser(id);
+            userService.deleteUser(id, expectedVersion(ifMatch));
             Map<String, String> response = new HashMap<>();
             response.put("message", "Usuario eliminado exitosamente");
             return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            log.error("Error al eliminar usuario", e);
+        } catch (UserNotFoundException e) {
             return ResponseEntity.notFound().build();
+        } catch (VersionConflictException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+    }
+
+    static String etag(User user) {
+        return "\"" + user.getVersion() + "\"";
+    }
+
+    /**
+     * Identificador de todo lo que se calcula con el almacén local: resumen del contenido y
+     * versión del almacén. Dentro de un proceso la versión solo se repite si no hubo escrituras;
+     * el resumen evita que tras un reinicio la misma versión se confunda con otro contenido.
+     */
+    static String storeTag(UserService userService) {
+        long version = userService.storeVersion();
+        return Long.toHexString(userService.contentHash()) + "-" + version;
+    }
+
+    /**
+     * Etiqueta débil de las listas: el mismo contenido puede salir sin comprimir o comprimido al
+     * vuelo por el contenedor, y Tomcat no comprime respuestas con una etiqueta fuerte.
+     * {@code If-None-Match} se compara en modo débil, así que sigue respondiendo 304.
+     */
+    static String storeEtag(UserService userService) {
+        return "W/\"" + storeTag(userService) + "\"";
+    }
+
+    /**
+     * Compara {@code If-None-Match} con la etiqueta del almacén y la añade a la respuesta. La
+     * etiqueta se toma antes de leer los datos, así que una escritura concurrente solo puede
+     * dejar una respuesta más nueva que su etiqueta, nunca más antigua. En modo clúster las
+     * listas incluyen datos de otros nodos y no llevan etiqueta.
+     */
+    private boolean notModified(HttpServletRequest request, WebRequest webRequest) {
+        if (cluster != null && !ClusterRouter.isForwarded(request)) {
+            return false;
+        }
+        return webRequest.checkNotModified(storeEtag(userService));
+    }
+
+    /**
+     * Versión esperada según {@code If-Match}: {@code null} sin cabecera o con {@code *}. Se admite
+     * una sola etiqueta fuerte; una etiqueta débil, una lista o un valor mal formado nunca
+     * coinciden (comparación fuerte), así que se traducen a una versión imposible y acaban en 412.
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+            return -1L;
+        }
+        try {
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    @GetMapping("/stats/age")
+    public ResponseEntity<AgeStats> getAgeStats(@RequestParam(defaultValue = "0") int minAge,
+                                                @RequestParam(defaultValue = "149") int maxAge,
+                                                @RequestParam(defaultValue = "10") int bucket,
+                                                WebRequest webRequest) {
+        if (webRequest.checkNotModified(storeEtag(userService))) {
+            return null;
         }
+        log.info("GET /api/users/stats/age - Estadísticas de edad: {}-{}", minAge, maxAge);
+        return ResponseEntity.ok(userService.getAgeStats(minAge, maxAge, bucket));
     }
 
+    @GetMapping("/by-email")
+    public ResponseEntity<List<User>> getUsersByEmail(@RequestParam String email, HttpServletRequest request,
+                                                      WebRequest webRequest) {
+        if (notModified(request, webRequest)) {
+            return null;
+        }
+        log.info("GET /api/users/by-email - Buscando usuarios por email");
+        return respond(gather(request, userService.findUsersByEmail(email), Integer.MAX_VALUE));
+    }
+
+    /**
+     * Con {@code limit} la búsqueda para al encontrar ese número de usuarios; con
+     * {@code timeoutMs} devuelve lo encontrado al vencer el plazo y lo indica en
+     * {@value #PARTIAL_RESULT_HEADER}. En modo clúster cada nodo aplica el límite y el plazo a
+     * sus usuarios y se devuelven los {@code limit} primeros por id.
+     */
     @GetMapping("/search")
-    public ResponseEntity<List<User>> searchUsers(@RequestParam String name) {
+    public ResponseEntity<List<User>> searchUsers(@RequestParam String name,
+                                                  @RequestParam(required = false) Integer limit,
+                                                  @RequestParam(required = false) Long timeoutMs,
+                                                  HttpServletRequest request) {
         log.info("GET /api/users/search - Buscando usuarios por nombre: {}", name);
-        List<User> results = userService.searchByName(name);
-        return ResponseEntity.ok(results);
+        if ((limit != null && limit < 1) || (timeoutMs != null && timeoutMs < 1)) {
+            return ResponseEntity.badRequest().build();
+        }
+        int maxResults = limit == null ? Integer.MAX_VALUE : limit;
+        SearchResult local = userService.searchByName(name, maxResults,
+                timeoutMs == null ? null : Duration.ofMillis(timeoutMs));
+        SearchResult result = gather(request, local.getUsers(), maxResults);
+        result.setPartial(result.isPartial() || local.isPartial());
+        return respond(result);
+    }
+
+    /**
+     * En modo clúster completa la lista local con la del resto de nodos, salvo que la petición
+     * ya venga de otro nodo.
+     */
+    private SearchResult gather(HttpServletRequest request, List<User> local, int limit) {
+        if (cluster == null || ClusterRouter.isForwarded(request)) {
+            return new SearchResult(local, false);
+        }
+        return cluster.gather(request, local, limit);
+    }
+
+    private static ResponseEntity<List<User>> respond(SearchResult result) {
+        if (result.isPartial()) {
+            return ResponseEntity.ok().header(PARTIAL_RESULT_HEADER, "true").body(result.getUsers());
+        }
+        return ResponseEntity.ok(result.getUsers());
     }
 }
@@ -0,0 +1,150 @@
+package com.example.controller;
+
+import com.example.cluster.ClusterRouter;
+import com.example.config.UserStoreProperties;
+import com.example.service.UserService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Respuestas JSON de {@code GET /api/users} comprimidas con gzip una sola vez: el cuerpo
+ * comprimido se guarda con la etiqueta del almacén y la consulta en la clave y se reutiliza
+ * mientras no haya escrituras, sin leer usuarios, serializar ni comprimir de nuevo. Solo se
+ * aplica si el cliente acepta gzip; si no, responde el controlador y, con
+ * {@code server.compression}, el contenedor comprime el resto de respuestas al vuelo.
+ *
+ * <p>Los bytes comprimidos se guardan y no cambian mientras no cambie el almacén, así que llevan
+ * una etiqueta fuerte propia (la del almacén con el sufijo {@value #GZIP_SUFFIX}); un
+ * {@code If-None-Match} con ella se responde 304 sin pasar por el controlador.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.users.gzip-cache", name = "enabled", havingValue = "true")
+class PrecompressedListFilter extends OncePerRequestFilter {
+    static final String GZIP_SUFFIX = "-gzip";
+    private static final String PATH = "/api/users";
+
+    private final UserService userService;
+    private final ClusterRouter cluster;
+    private final int minResponseBytes;
+    private final Cache<String, Entry> cache;
+
+    PrecompressedListFilter(UserService userService, ObjectProvider<ClusterRouter> cluster,
+                            UserStoreProperties properties, MeterRegistry registry) {
+        this.userService = userService;
+        this.cluster = cluster.getIfAvailable();
+        UserStoreProperties.GzipCache config = properties.getGzipCache();
+        this.minResponseBytes = config.getMinResponseBytes();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(config.getMaximumBytes())
+                .weigher((String key, Entry entry) -> entry.body.length)
+                .recordStats()
+                .executor(Runnable::run)
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "users-gzip");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return !"GET".equals(request.getMethod())
+                || !PATH.equals(request.getRequestURI())
+                || !acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))
+                || (accept != null && accept.contains(UserRestController.NDJSON))
+                // En modo clúster las listas reúnen datos de otros nodos
+                || (cluster != null && !ClusterRouter.isForwarded(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        // Como en el controlador, la etiqueta se toma antes de leer los datos
+        String tag = UserRestController.storeTag(userService);
+        String storeEtag = "W/\"" + tag + "\"";
+        String etag = "\"" + tag + GZIP_SUFFIX + "\"";
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && ifNoneMatch.contains(etag)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            response.setHeader(HttpHeaders.ETAG, etag);
+            return;
+        }
+
+        String key = etag + "?" + (request.getQueryString() != null ? request.getQueryString() : "");
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null) {
+            ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+            chain.doFilter(request, wrapper);
+            if (wrapper.getStatus() != HttpStatus.OK.value()
+                    || !storeEtag.equals(wrapper.getHeader(HttpHeaders.ETAG))
+                    || wrapper.getHeader(UserRestController.PARTIAL_RESULT_HEADER) != null
+                    || wrapper.getContentSize() < minResponseBytes) {
+                wrapper.copyBodyToResponse();
+                return;
+            }
+            entry = new Entry(gzip(wrapper.getContentAsByteArray()), wrapper.getContentType(),
+                    wrapper.getHeader(UserRestController.NEXT_CURSOR_HEADER));
+            cache.put(key, entry);
+        } else {
+            response.setContentType(entry.contentType);
+            if (entry.nextCursor != null) {
+                response.setHeader(UserRestController.NEXT_CURSOR_HEADER, entry.nextCursor);
+            }
+        }
+        response.setStatus(HttpStatus.OK.value());
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        response.setContentLength(entry.body.length);
+        response.getOutputStream().write(entry.body);
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                // gzip;q=0 es un rechazo explícito
+                return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8192)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private static final class Entry {
+        final byte[] body;
+        final String contentType;
+        final String nextCursor;
+
+        Entry(byte[] body, String contentType, String nextCursor) {
+            this.body = body;
+            this.contentType = contentType;
+            this.nextCursor = nextCursor;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.controller;
+
+import com.example.config.UserStoreProperties;
+import com.example.model.User;
+import com.example.service.UserService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filas de la tabla de {@code /users} renderizadas con la plantilla {@code user-rows}. Con
+ * {@code app.users.page.fragment-cache} el HTML de cada página y orden se guarda con la versión
+ * del almacén en la clave: mientras no haya escrituras se sirve sin leer usuarios ni volver a
+ * renderizar, y la primera escritura deja todas las entradas sin uso hasta que caducan por tamaño.
+ */
+@Component
+class UserRowsRenderer {
+    private final ITemplateEngine templateEngine;
+    private final UserService userService;
+    private final Cache<String, String> fragments;
+    private final Timer hits;
+    private final Timer misses;
+
+    UserRowsRenderer(ITemplateEngine templateEngine, UserService userService,
+                     UserStoreProperties properties, MeterRegistry registry) {
+        this.templateEngine = templateEngine;
+        this.userService = userService;
+        UserStoreProperties.Page config = properties.getPage();
+        if (config.isFragmentCache()) {
+            this.fragments = Caffeine.newBuilder()
+                    .maximumSize(config.getFragmentCacheSize())
+                    .recordStats()
+                    .executor(Runnable::run)
+                    .build();
+            CaffeineCacheMetrics.monitor(registry, fragments, "users-page");
+        } else {
+            this.fragments = null;
+        }
+        this.hits = render(registry, "hit");
+        this.misses = render(registry, "miss");
+    }
+
+    private static Timer render(MeterRegistry registry, String cache) {
+        return Timer.builder("users.page.render")
+                .description("Tiempo de obtener las filas de una página de /users")
+                .tag("cache", cache)
+                .register(registry);
+    }
+
+    String rows(String sort, boolean descending, int page, int size) {
+        long start = System.nanoTime();
+        if (fragments == null) {
+            String html = renderRows(sort, descending, page, size);
+            misses.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return html;
+        }
+        // La versión se lee antes que los usuarios: una escritura concurrente puede dejar en la
+        // entrada datos más nuevos que su clave, nunca más antiguos
+        String key = userService.storeVersion() + "/" + sort + "/" + (descending ? "desc" : "asc") + "/" + page + "/" + size;
+        String html = fragments.getIfPresent(key);
+        if (html != null) {
+            hits.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return html;
+        }
+        html = renderRows(sort, descending, page, size);
+        fragments.put(key, html);
+        misses.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return html;
+    }
+
+    private String renderRows(String sort, boolean descending, int page, int size) {
+        List<User> users = userService.getUsersSorted(sort, descending, page * size, size);
+        Context context = new Context(Locale.getDefault(), Map.of("users", users));
+        return templateEngine.process("user-rows", context);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Agregados de edad de los usuarios en un rango: recuento, extremos, media, percentiles e
+ * histograma por tramos. Los campos estadísticos se omiten si no hay usuarios.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AgeStats {
+    private long count;
+    private Integer min;
+    private Integer max;
+    private Double mean;
+    private Integer p50;
+    private Integer p90;
+    private Integer p99;
+    private List<Bucket> histogram;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Bucket {
+        private int from;
+        private int to;
+        private long count;
+    }
+}
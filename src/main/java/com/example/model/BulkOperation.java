@@ -0,0 +1,24 @@
+package com.example.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Operación individual de una petición masiva: {@code create} (usa {@code user}),
+ * {@code update} (usa {@code id} y {@code user}) o {@code delete} (usa {@code id}).
+ * Con {@code version}, el cambio o la baja solo se aplican si el registro sigue en esa versión.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOperation {
+    private String op;
+    private Long id;
+    private User user;
+    private Long version;
+
+    public BulkOperation(String op, Long id, User user) {
+        this(op, id, user, null);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkResponse {
+    private int total;
+    private int succeeded;
+    private int failed;
+    private long tookMs;
+    private List<BulkItemResult> items;
+    // Solo si el lote se interrumpió: las operaciones de items ya están aplicadas
+    private String error;
+}
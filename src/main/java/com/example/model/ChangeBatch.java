@@ -0,0 +1,20 @@
+package com.example.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Lote de cambios para una réplica. {@code epoch} identifica el registro del líder (cambia si se
+ * reinicia) y {@code lastSeq} es el último número de secuencia emitido, para medir el retraso.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeBatch {
+    private long epoch;
+    private long lastSeq;
+    private List<UserChange> changes;
+}
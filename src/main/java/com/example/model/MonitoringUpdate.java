@@ -0,0 +1,42 @@
+package com.example.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Evento del stream de monitoreo: totales acumulados y, por operación, la tasa y las latencias
+ * del último intervalo. Solo aparecen las operaciones con actividad en ese intervalo.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MonitoringUpdate {
+    // Fuera de equals para detectar intervalos sin cambios
+    @EqualsAndHashCode.Exclude
+    private long timestamp;
+    private int users;
+    private long created;
+    private long retrieved;
+    private long updated;
+    private long deleted;
+    private long notFound;
+    private Map<String, OperationStats> operations;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class OperationStats {
+        // Operaciones por segundo
+        private double rate;
+        private double meanMs;
+        // Nulos si el registro no publica histogramas
+        private Double p50Ms;
+        private Double p99Ms;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Resultado de una búsqueda con límite y plazo. {@code partial} indica que el plazo venció antes
+ * de revisar todos los candidatos, así que puede faltar alguna coincidencia.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResult {
+    private List<User> users;
+    private boolean partial;
+}
@@ -0,0 +1,26 @@
+package com.example.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Petición lenta registrada por el trazado de peticiones, con su tiempo total y el desglose
+ * por fase en milisegundos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlowRequest {
+    private Instant timestamp;
+    private String method;
+    private String uri;
+    // Patrón de la ruta del controlador, p. ej. /api/users/{id}
+    private String endpoint;
+    private int status;
+    private double totalMs;
+    private Map<String, Double> phasesMs;
+}
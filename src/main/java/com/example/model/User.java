@@ -1,5 +1,6 @@
 package com.example.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -12,6 +13,13 @@ public class User {
     private String name;
     private String email;
     private int age;
+    // Versión del registro: 1 al crearlo y +1 en cada cambio. La asigna el servicio, nunca el cliente
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
+
+    public User(Long id, String name, String email, int age) {
+        this(id, name, email, age, 0L);
+    }
 
     public boolean isValid() {
         return name != null && !name.isEmpty() && 
@@ -0,0 +1,23 @@
+package com.example.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Evento del registro de cambios: {@code upsert} (lleva el usuario completo, con su versión) o
+ * {@code delete}. {@code seq} es consecutivo y global; {@code timestamp} en ms del líder.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserChange {
+    public static final String UPSERT = "upsert";
+    public static final String DELETE = "delete";
+
+    private long seq;
+    private long timestamp;
+    private String type;
+    private long id;
+    private User user;
+}
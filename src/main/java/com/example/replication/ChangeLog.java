@@ -0,0 +1,132 @@
+package com.example.replication;
+
+import com.example.model.User;
+import com.example.model.UserChange;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Registro ordenado de los cambios de usuarios, en un anillo con los últimos {@code capacity}
+ * eventos. Las réplicas lo leen a partir de su último número de secuencia; si ese punto ya se ha
+ * sobrescrito deben recargar una instantánea.
+ *
+ * <p>El servicio publica cada cambio con el cerrojo del id tomado, así que el orden de la
+ * secuencia respeta el orden de los cambios de cada usuario.
+ *
+ * <p>Solo los escritores comparten cerrojo, y lo sueltan nada más publicar la secuencia. Las
+ * lecturas copian el anillo sin cerrojo y las consultas largas esperan aparcadas fuera de él, así
+ * que un escritor nunca compite con las réplicas en espera.
+ */
+public class ChangeLog {
+    private final AtomicReferenceArray<UserChange> ring;
+    // Identifica este registro: tras un reinicio del líder la secuencia vuelve a empezar
+    private final long epoch = System.currentTimeMillis();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    // Se publica después de escribir su evento en el anillo
+    private final AtomicLong lastSeq = new AtomicLong();
+    private final Queue<Thread> waiters = new ConcurrentLinkedQueue<>();
+
+    public ChangeLog(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("La capacidad del registro debe ser positiva");
+        }
+        this.ring = new AtomicReferenceArray<>(capacity);
+    }
+
+    public long epoch() {
+        return epoch;
+    }
+
+    public long lastSeq() {
+        return lastSeq.get();
+    }
+
+    public void upserted(User user) {
+        append(UserChange.UPSERT, user.getId(), user);
+    }
+
+    public void deleted(long id) {
+        append(UserChange.DELETE, id, null);
+    }
+
+    private void append(String type, long id, User user) {
+        appendLock.lock();
+        try {
+            long seq = lastSeq.get() + 1;
+            ring.set(slot(seq), new UserChange(seq, System.currentTimeMillis(), type, id, user));
+            lastSeq.set(seq);
+        } finally {
+            appendLock.unlock();
+        }
+        if (!waiters.isEmpty()) {
+            for (Thread waiter : waiters) {
+                LockSupport.unpark(waiter);
+            }
+        }
+    }
+
+    /**
+     * Como máximo {@code max} eventos con secuencia mayor que {@code after}. Si no hay ninguno
+     * espera hasta {@code waitMillis} a que llegue alguno. Devuelve {@code null} si {@code after}
+     * ya no está en el anillo (o es de otro registro) y la réplica necesita una instantánea.
+     */
+    public List<UserChange> since(long after, int max, long waitMillis) throws InterruptedException {
+        long last = lastSeq.get();
+        if (covers(after, last) && last <= after && waitMillis > 0) {
+            last = await(after, waitMillis);
+        }
+        if (!covers(after, last)) {
+            return null;
+        }
+        long to = Math.min(last, after + max);
+        List<UserChange> changes = new ArrayList<>((int) (to - after));
+        for (long seq = after + 1; seq <= to; seq++) {
+            UserChange change = ring.get(slot(seq));
+            if (change.getSeq() != seq) {
+                // Sobrescrito mientras se copiaba: la réplica se ha quedado atrás
+                return null;
+            }
+            changes.add(change);
+        }
+        return changes;
+    }
+
+    private long await(long after, long waitMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+        Thread current = Thread.currentThread();
+        waiters.add(current);
+        try {
+            long last;
+            // Se vuelve a leer la secuencia tras apuntarse: un cambio anterior no avisaría
+            while ((last = lastSeq.get()) <= after) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                LockSupport.parkNanos(this, remaining);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            return last;
+        } finally {
+            waiters.remove(current);
+        }
+    }
+
+    private boolean covers(long after, long last) {
+        return after <= last && after >= last - ring.length();
+    }
+
+    private int slot(long seq) {
+        return (int) (seq % ring.length());
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.replication;
+
+import com.example.config.InstanceJson;
+import com.example.model.ChangeBatch;
+import com.example.model.User;
+import com.example.model.UserChange;
+import com.example.service.UserService;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Réplica de lectura: un hilo sigue el registro de cambios del líder con consultas largas y los
+ * aplica al almacén local. Arranca (y vuelve a empezar) desde una instantánea cuando no tiene
+ * ninguna, cuando el líder ya no guarda su punto del registro o se reinició, y cuando el retraso
+ * supera {@code app.replication.snapshot-lag} eventos.
+ *
+ * <p>{@link #stalenessMillis()} acota la antigüedad de los datos: es el tiempo desde la última
+ * consulta al líder tras la cual la réplica no tenía cambios pendientes.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.replication", name = "role", havingValue = "follower")
+@Slf4j
+public class ReplicaFollower {
+    private final ReplicationProperties properties;
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
+    private final HttpClient client;
+    private final Counter snapshots;
+    private final Counter applied;
+
+    // -1: sin instantánea cargada
+    private volatile long epoch = -1;
+    private volatile long appliedSeq;
+    private volatile long leaderSeq;
+    // Instante (ms) de la última consulta tras la que no quedaban cambios pendientes; 0: nunca
+    private volatile long caughtUpAt;
+    private volatile boolean running;
+    private Thread thread;
+
+    public ReplicaFollower(ReplicationProperties properties, UserService userService,
+                           ObjectMapper objectMapper, MeterRegistry registry) {
+        this.properties = properties;
+        this.userService = userService;
+        this.objectMapper = InstanceJson.mapper(objectMapper);
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.snapshots = registry.counter("replication.snapshots");
+        this.applied = registry.counter("replication.changes.applied");
+        Gauge.builder("replication.lag.events", this, ReplicaFollower::lagEvents)
+                .description("Eventos del líder aún no aplicados en la réplica")
+                .register(registry);
+        TimeGauge.builder("replication.staleness", this, TimeUnit.MILLISECONDS,
+                        follower -> Math.min(follower.stalenessMillis(), Integer.MAX_VALUE))
+                .description("Antigüedad máxima de los datos de la réplica")
+                .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, "replica-follower");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Réplica de {} iniciada", properties.getLeaderUrl());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    public long lagEvents() {
+        return Math.max(0, leaderSeq - appliedSeq);
+    }
+
+    public long stalenessMillis() {
+        long at = caughtUpAt;
+        return at == 0 ? Long.MAX_VALUE : System.currentTimeMillis() - at;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                if (epoch < 0 || lagEvents() > properties.getSnapshotLag()) {
+                    loadSnapshot();
+                }
+                poll();
+            } catch (IOException e) {
+                log.warn("No se pudo leer del líder {}: {}", properties.getLeaderUrl(), e.toString());
+                try {
+                    Thread.sleep(properties.getRetryInterval().toMillis());
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void poll() throws IOException, InterruptedException {
+        long requestedAt = System.currentTimeMillis();
+        Duration wait = properties.getPollWait();
+        URI uri = URI.create(properties.getLeaderUrl() + "/api/replication/changes?after=" + appliedSeq
+                + "&epoch=" + epoch + "&limit=" + properties.getBatchSize() + "&waitMs=" + wait.toMillis());
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(wait.plusSeconds(10)).GET().build();
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() == 410) {
+            log.info("El líder ya no tiene la secuencia {}: se recarga una instantánea", appliedSeq);
+            epoch = -1;
+            return;
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("HTTP " + response.statusCode());
+        }
+
+        ChangeBatch batch = objectMapper.readValue(response.body(), ChangeBatch.class);
+        List<UserChange> changes = batch.getChanges();
+        if (!changes.isEmpty()) {
+            userService.applyChanges(changes);
+            appliedSeq = changes.get(changes.size() - 1).getSeq();
+            applied.increment(changes.size());
+        }
+        leaderSeq = batch.getLastSeq();
+        if (appliedSeq >= leaderSeq) {
+            caughtUpAt = requestedAt;
+        }
+    }
+
+    private void loadSnapshot() throws IOException, InterruptedException {
+        long start = System.currentTimeMillis();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(properties.getLeaderUrl() + "/api/replication/snapshot"))
+                .GET()
+                .build();
+        HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) {
+                throw new IOException("Instantánea rechazada: HTTP " + response.statusCode());
+            }
+            long snapshotEpoch = Long.parseLong(response.headers().firstValue(ReplicationController.EPOCH_HEADER).orElseThrow());
+            long snapshotSeq = Long.parseLong(response.headers().firstValue(ReplicationController.SEQ_HEADER).orElseThrow());
+
+            Set<Long> ids = new HashSet<>();
+            List<User> batch = new ArrayList<>(properties.getBatchSize());
+            try (MappingIterator<User> users = objectMapper.readerFor(User.class).readValues(body)) {
+                while (users.hasNext()) {
+                    User user = users.next();
+                    ids.add(user.getId());
+                    batch.add(user);
+                    if (batch.size() == properties.getBatchSize()) {
+                        userService.importUsers(batch);
+                        batch.clear();
+                    }
+                }
+            }
+            userService.importUsers(batch);
+            int removed = userService.retainUsers(ids::contains);
+
+            epoch = snapshotEpoch;
+            appliedSeq = snapshotSeq;
+            leaderSeq = Math.max(leaderSeq, snapshotSeq);
+            snapshots.increment();
+            log.info("Instantánea del líder cargada: {} usuarios en la secuencia {}, {} eliminados, {} ms",
+                    ids.size(), snapshotSeq, removed, System.currentTimeMillis() - start);
+        }
+    }
+}
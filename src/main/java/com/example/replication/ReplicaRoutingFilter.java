@@ -0,0 +1,58 @@
+package com.example.replication;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * En una réplica, las escrituras de {@code /api/users} se redirigen (307) al líder, igual que las
+ * lecturas cuando los datos son más antiguos que {@code app.replication.max-staleness}. Las que se
+ * atienden aquí indican la antigüedad en {@value #STALENESS_HEADER}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.replication", name = "role", havingValue = "follower")
+// Antes que los filtros que responden desde caché, para no servir datos más antiguos de lo permitido
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class ReplicaRoutingFilter extends OncePerRequestFilter {
+    static final String STALENESS_HEADER = "X-Replica-Staleness-Ms";
+
+    private final ReplicaFollower follower;
+    private final String leaderUrl;
+    private final long maxStalenessMillis;
+
+    public ReplicaRoutingFilter(ReplicaFollower follower, ReplicationProperties properties) {
+        this.follower = follower;
+        this.leaderUrl = properties.getLeaderUrl();
+        this.maxStalenessMillis = properties.getMaxStaleness().toMillis();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/users");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean read = "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+        long staleness = follower.stalenessMillis();
+        if (!read || staleness > maxStalenessMillis) {
+            String query = request.getQueryString();
+            response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+            response.setHeader(HttpHeaders.LOCATION, leaderUrl + request.getRequestURI() + (query != null ? "?" + query : ""));
+            return;
+        }
+        response.setHeader(STALENESS_HEADER, String.valueOf(staleness));
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.replication;
+
+import com.example.service.UserService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Replicación de lectura ({@code app.replication.role}): el líder publica cada cambio de usuarios
+ * en un {@link ChangeLog} y las réplicas ({@link ReplicaFollower}) lo siguen por HTTP.
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicationProperties.class)
+@Slf4j
+public class ReplicationConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.replication", name = "role", havingValue = "leader")
+    public ChangeLog changeLog(ReplicationProperties properties, UserService userService, MeterRegistry meterRegistry) {
+        ChangeLog changeLog = new ChangeLog(properties.getLogCapacity());
+        userService.setChangeLog(changeLog);
+        Gauge.builder("replication.log.sequence", changeLog, ChangeLog::lastSeq)
+                .description("Último número de secuencia publicado en el registro de cambios")
+                .register(meterRegistry);
+        log.info("Líder de replicación: registro de cambios de {} eventos", properties.getLogCapacity());
+        return changeLog;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.replication;
+
+import com.example.model.ChangeBatch;
+import com.example.model.User;
+import com.example.model.UserChange;
+import com.example.service.UserService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Lado del líder: registro de cambios para las réplicas y la instantánea desde la que arrancan.
+ */
+@RestController
+@RequestMapping("/api/replication")
+@ConditionalOnProperty(prefix = "app.replication", name = "role", havingValue = "leader")
+@Slf4j
+public class ReplicationController {
+    static final String EPOCH_HEADER = "X-Replication-Epoch";
+    static final String SEQ_HEADER = "X-Replication-Seq";
+    private static final int MAX_BATCH = 10_000;
+    private static final long MAX_WAIT_MS = 30_000;
+
+    private final ChangeLog changeLog;
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
+
+    public ReplicationController(ChangeLog changeLog, UserService userService, ObjectMapper objectMapper) {
+        this.changeLog = changeLog;
+        this.userService = userService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Cambios con secuencia mayor que {@code after}. Sin cambios pendientes espera hasta
+     * {@code waitMs} (consulta larga). 410 si {@code after} ya no está en el registro o
+     * {@code epoch} es de otro registro: la réplica debe cargar una instantánea.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<ChangeBatch> changes(@RequestParam long after,
+                                               @RequestParam long epoch,
+                                               @RequestParam(defaultValue = "1000") int limit,
+                                               @RequestParam(defaultValue = "0") long waitMs) throws InterruptedException {
+        if (epoch != changeLog.epoch()) {
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        }
+        List<UserChange> changes = changeLog.since(after, Math.max(1, Math.min(limit, MAX_BATCH)),
+                Math.max(0, Math.min(waitMs, MAX_WAIT_MS)));
+        if (changes == null) {
+            log.info("Réplica en la secuencia {} fuera del registro (último {}): necesita instantánea", after, changeLog.lastSeq());
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        }
+        return ResponseEntity.ok(new ChangeBatch(changeLog.epoch(), changeLog.lastSeq(), changes));
+    }
+
+    /**
+     * Todos los usuarios en NDJSON. Las cabeceras llevan la secuencia tomada antes del recorrido:
+     * aplicando después los cambios posteriores a ella (por versión) la réplica converge aunque el
+     * recorrido vea escrituras concurrentes.
+     */
+    @GetMapping(value = "/snapshot", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> snapshot() {
+        long seq = changeLog.lastSeq();
+        log.info("GET /api/replication/snapshot - Instantánea en la secuencia {}", seq);
+        ObjectWriter writer = objectMapper.writerFor(User.class);
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            try {
+                userService.forEachUser(user -> {
+                    try {
+                        writer.writeValue(generator, user);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            generator.flush();
+        };
+        return ResponseEntity.ok()
+                .header(EPOCH_HEADER, String.valueOf(changeLog.epoch()))
+                .header(SEQ_HEADER, String.valueOf(seq))
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+}
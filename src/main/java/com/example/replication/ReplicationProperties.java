@@ -0,0 +1,24 @@
+package com.example.replication;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.replication")
+public class ReplicationProperties {
+    // none; leader: publica el registro de cambios; follower: réplica de lectura de leader-url
+    private String role = "none";
+    // Eventos que guarda el líder; una réplica más atrasada recarga una instantánea
+    private int logCapacity = 100_000;
+    private String leaderUrl = "http://localhost:8080";
+    // Espera máxima de cada consulta larga al líder cuando no hay cambios
+    private Duration pollWait = Duration.ofSeconds(1);
+    private int batchSize = 1000;
+    // Con más eventos de retraso que este, la réplica recarga una instantánea en vez del registro
+    private long snapshotLag = 50_000;
+    // Lecturas con más antigüedad que esta se redirigen al líder
+    private Duration maxStaleness = Duration.ofSeconds(5);
+    private Duration retryInterval = Duration.ofSeconds(1);
+}
@@ -0,0 +1,137 @@
+package com.example.repository;
+
+import com.example.model.User;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Caché de lectura por id delante de otro almacén. Caffeine decide la admisión con W-TinyLFU,
+ * así que los pocos ids muy leídos se quedan aunque haya recorridos de ids fríos.
+ *
+ * <p>Cada fallo se carga una sola vez aunque lleguen muchas lecturas a la vez del mismo id; el resto
+ * espera a esa carga. Las escrituras van al almacén y después invalidan la entrada: si había una
+ * carga en curso con el valor anterior, la invalidación espera a que termine y la descarta.
+ * Los ids inexistentes no se guardan en la caché.
+ */
+public class CachingUserRepository implements UserRepository, AutoCloseable {
+
+    // Tamaño aproximado de un User en el heap sin contar las cadenas
+    private static final int USER_OVERHEAD_BYTES = 64;
+
+    private final UserRepository delegate;
+    private final LoadingCache<Long, User> cache;
+
+    public CachingUserRepository(UserRepository delegate, long maximumSize, long maximumWeight,
+                                 Duration expireAfterWrite) {
+        this.delegate = delegate;
+        // Mantenimiento (expulsión, caducidad) en el hilo que escribe: en contenedores con pocas CPU
+        // el traspaso al common pool cuesta más que el propio trabajo
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats().executor(Runnable::run);
+        if (maximumWeight > 0) {
+            builder.maximumWeight(maximumWeight)
+                    .weigher((Long id, User user) -> USER_OVERHEAD_BYTES + 2 * (length(user.getName()) + length(user.getEmail())));
+        } else {
+            builder.maximumSize(maximumSize);
+        }
+        if (expireAfterWrite != null && !expireAfterWrite.isZero()) {
+            builder.expireAfterWrite(expireAfterWrite);
+        }
+        this.cache = builder.build(id -> delegate.findById(id).orElse(null));
+    }
+
+    /**
+     * Publica aciertos, fallos, expulsiones y tamaño como métricas {@code cache.*} con {@code cache=users}.
+     */
+    public void bindMetrics(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "users");
+    }
+
+    @Override
+    public Optional<User> findById(long id) {
+        return Optional.ofNullable(cache.get(id));
+    }
+
+    @Override
+    public boolean existsById(long id) {
+        return cache.getIfPresent(id) != null || delegate.existsById(id);
+    }
+
+    @Override
+    public void save(User user) {
+        delegate.save(user);
+        cache.invalidate(user.getId());
+    }
+
+    @Override
+    public void saveAll(Collection<User> batch) {
+        delegate.saveAll(batch);
+        for (User user : batch) {
+            cache.invalidate(user.getId());
+        }
+    }
+
+    @Override
+    public User deleteById(long id) {
+        User removed = delegate.deleteById(id);
+        cache.invalidate(id);
+        return removed;
+    }
+
+    @Override
+    public void deferDurability() {
+        delegate.deferDurability();
+    }
+
+    @Override
+    public void awaitDeferred() {
+        delegate.awaitDeferred();
+    }
+
+    @Override
+    public int count() {
+        return delegate.count();
+    }
+
+    @Override
+    public void forEach(Consumer<User> action) {
+        delegate.forEach(action);
+    }
+
+    @Override
+    public List<User> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<User> findPage(long after, int limit) {
+        return delegate.findPage(after, limit);
+    }
+
+    @Override
+    public UserRepository readView() {
+        return delegate.readView();
+    }
+
+    /**
+     * Cierra el almacén envuelto si lo necesita (p. ej. {@link DurableUserRepository}).
+     */
+    @Override
+    public void close() throws Exception {
+        cache.invalidateAll();
+        if (delegate instanceof AutoCloseable) {
+            ((AutoCloseable) delegate).close();
+        }
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
@@ -0,0 +1,341 @@
+package com.example.repository;
+
+import com.example.model.User;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Decorador que hace duradero cualquier {@link UserRepository}: cada escritura se añade a un
+ * {@link WriteAheadLog} mapeado en memoria antes de aplicarse, y periódicamente se vuelca una
+ * instantánea compactada ({@code snapshot-<n>.dat}) que sustituye a los segmentos anteriores
+ * a {@code n}. Al arrancar se carga la última instantánea y se reaplica el resto del log.
+ *
+ * <p>Las instantáneas no detienen las escrituras: el log se rota bajo un cerrojo exclusivo
+ * breve y los registros posteriores se vuelven a aplicar al recuperar, lo cual es idempotente
+ * porque cada registro contiene el estado completo del usuario.
+ */
+@Slf4j
+public class DurableUserRepository implements UserRepository, AutoCloseable {
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".dat";
+    private static final int STRIPES = 64;
+
+    private final UserRepository delegate;
+    private final Path directory;
+    private final boolean sync;
+    private final long snapshotMinRecords;
+    private final WriteAheadLog wal;
+    private final ScheduledExecutorService scheduler;
+
+    // Las escrituras toman el cerrojo compartido; la rotación del log para una instantánea, el exclusivo
+    private final ReentrantReadWriteLock rotationLock = new ReentrantReadWriteLock();
+    // Serializa log+aplicación por id para que el orden del log coincida con el del almacén
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private final AtomicLong recordsSinceSnapshot = new AtomicLong();
+    // Con sync, escrituras aplazadas del hilo: {profundidad de deferDurability, última secuencia}
+    private final ThreadLocal<long[]> deferred = new ThreadLocal<>();
+
+    public DurableUserRepository(UserRepository delegate, Path directory, int segmentBytes, boolean sync,
+                                 Duration flushInterval, Duration snapshotInterval, long snapshotMinRecords,
+                                 ThreadFactory threadFactory) throws IOException {
+        this.delegate = delegate;
+        this.directory = directory;
+        this.sync = sync;
+        this.snapshotMinRecords = snapshotMinRecords;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+
+        Files.createDirectories(directory);
+        long nextSegment = recover();
+        this.wal = new WriteAheadLog(directory, segmentBytes, nextSegment);
+
+        this.scheduler = Executors.newScheduledThreadPool(2, threadFactory);
+        long flushNanos = Math.max(flushInterval.toNanos(), TimeUnit.MICROSECONDS.toNanos(100));
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushNanos, flushNanos, TimeUnit.NANOSECONDS);
+        long snapshotMillis = snapshotInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::snapshotIfNeeded, snapshotMillis, snapshotMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Optional<User> findById(long id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public boolean existsById(long id) {
+        return delegate.existsById(id);
+    }
+
+    @Override
+    public void save(User user) {
+        byte[] record = UserRecordCodec.encodeUpsert(user);
+        long sequence = write(user.getId(), record, () -> delegate.save(user));
+        awaitIfSync(sequence);
+    }
+
+    @Override
+    public void saveAll(Collection<User> batch) {
+        // Un solo commit en grupo para todo el lote
+        long last = 0;
+        for (User user : batch) {
+            byte[] record = UserRecordCodec.encodeUpsert(user);
+            last = write(user.getId(), record, () -> delegate.save(user));
+        }
+        awaitIfSync(last);
+    }
+
+    @Override
+    public User deleteById(long id) {
+        User[] removed = new User[1];
+        byte[] record = UserRecordCodec.encodeDelete(id);
+        long sequence = write(id, record, () -> removed[0] = delegate.deleteById(id));
+        awaitIfSync(sequence);
+        return removed[0];
+    }
+
+    @Override
+    public void deferDurability() {
+        if (!sync) {
+            return;
+        }
+        long[] state = deferred.get();
+        if (state == null) {
+            deferred.set(new long[] {1, 0});
+        } else {
+            state[0]++;
+        }
+    }
+
+    @Override
+    public void awaitDeferred() {
+        long[] state = deferred.get();
+        if (state == null || --state[0] > 0) {
+            return;
+        }
+        deferred.remove();
+        if (state[1] > 0) {
+            wal.awaitDurable(state[1]);
+        }
+    }
+
+    @Override
+    public int count() {
+        return delegate.count();
+    }
+
+    @Override
+    public void forEach(Consumer<User> action) {
+        delegate.forEach(action);
+    }
+
+    @Override
+    public List<User> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<User> findPage(long after, int limit) {
+        return delegate.findPage(after, limit);
+    }
+
+    @Override
+    public UserRepository readView() {
+        return delegate.readView();
+    }
+
+    /**
+     * Escribe una instantánea compactada y elimina los segmentos y las instantáneas anteriores.
+     */
+    public void snapshot() throws IOException {
+        snapshotLock.lock();
+        try {
+            long number;
+            rotationLock.writeLock().lock();
+            try {
+                number = wal.roll();
+                recordsSinceSnapshot.set(0);
+            } finally {
+                rotationLock.writeLock().unlock();
+            }
+
+            long start = System.nanoTime();
+            Path target = snapshotPath(number);
+            Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+            long[] written = new long[1];
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                 OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16)) {
+                delegate.forEach(user -> {
+                    try {
+                        out.write(UserRecordCodec.encodeUpsert(user));
+                        written[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            // El renombrado debe estar en disco antes de borrar los segmentos que sustituye
+            WriteAheadLog.syncDirectory(directory);
+
+            for (Long segment : WriteAheadLog.existingSegments(directory)) {
+                if (segment < number) {
+                    Files.deleteIfExists(WriteAheadLog.segmentPath(directory, segment));
+                }
+            }
+            for (Long older : existingSnapshots()) {
+                if (older < number) {
+                    Files.deleteIfExists(snapshotPath(older));
+                }
+            }
+            WriteAheadLog.syncDirectory(directory);
+            log.info("Instantánea de usuarios escrita: {} registros en {} ms ({})",
+                    written[0], TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), target.getFileName());
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        wal.close();
+    }
+
+    private long write(long id, byte[] record, Runnable apply) {
+        ReentrantLock stripe = stripes[(int) (id ^ (id >>> 32)) & (STRIPES - 1)];
+        rotationLock.readLock().lock();
+        stripe.lock();
+        try {
+            long sequence = wal.append(record);
+            apply.run();
+            recordsSinceSnapshot.incrementAndGet();
+            return sequence;
+        } finally {
+            stripe.unlock();
+            rotationLock.readLock().unlock();
+        }
+    }
+
+    private void awaitIfSync(long sequence) {
+        if (!sync) {
+            return;
+        }
+        long[] state = deferred.get();
+        if (state != null) {
+            state[1] = Math.max(state[1], sequence);
+        } else {
+            wal.awaitDurable(sequence);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            wal.flush();
+        } catch (RuntimeException e) {
+            log.error("Error al forzar el log de usuarios a disco", e);
+        }
+    }
+
+    private void snapshotIfNeeded() {
+        if (recordsSinceSnapshot.get() < snapshotMinRecords) {
+            return;
+        }
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            log.error("Error al escribir la instantánea de usuarios", e);
+        }
+    }
+
+    /**
+     * Carga la última instantánea y reaplica los segmentos posteriores. Devuelve el número del
+     * segmento en el que deben continuar las escrituras.
+     */
+    private long recover() throws IOException {
+        long start = System.nanoTime();
+        UserRecordCodec.Visitor visitor = new UserRecordCodec.Visitor() {
+            @Override
+            public void upsert(User user) {
+                delegate.save(user);
+            }
+
+            @Override
+            public void delete(long id) {
+                delegate.deleteById(id);
+            }
+        };
+
+        long first = 0;
+        List<Long> snapshots = existingSnapshots();
+        if (!snapshots.isEmpty()) {
+            first = snapshots.get(snapshots.size() - 1);
+            try (FileChannel channel = FileChannel.open(snapshotPath(first), StandardOpenOption.READ)) {
+                UserRecordCodec.scan(channel, 0, visitor);
+            }
+        }
+
+        long next = first;
+        for (Long segment : WriteAheadLog.existingSegments(directory)) {
+            if (segment < first) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(WriteAheadLog.segmentPath(directory, segment), StandardOpenOption.READ)) {
+                UserRecordCodec.scan(channel, 0, visitor);
+            }
+            next = segment + 1;
+        }
+
+        log.info("Usuarios recuperados desde {}: {} en {} ms", directory, delegate.count(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        // Siempre se empieza un segmento nuevo para no escribir detrás de una cola posiblemente corrupta
+        return next;
+    }
+
+    private List<Long> existingSnapshots() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length())))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Path snapshotPath(long number) {
+        return directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, number, SNAPSHOT_SUFFIX));
+    }
+}
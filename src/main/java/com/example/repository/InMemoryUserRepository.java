@@ -0,0 +1,79 @@
+package com.example.repository;
+
+import com.example.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+
+/**
+ * Almacén en el heap sobre {@link ConcurrentHashMap}, con un índice ordenado de ids para
+ * la paginación por clave.
+ */
+public class InMemoryUserRepository implements UserRepository {
+    private final Map<Long, User> users = new ConcurrentHashMap<>();
+    private final NavigableSet<Long> orderedIds = new ConcurrentSkipListSet<>();
+
+    @Override
+    public Optional<User> findById(long id) {
+        return Optional.ofNullable(users.get(id));
+    }
+
+    @Override
+    public boolean existsById(long id) {
+        return users.containsKey(id);
+    }
+
+    @Override
+    public void save(User user) {
+        users.put(user.getId(), user);
+        orderedIds.add(user.getId());
+    }
+
+    @Override
+    public User deleteById(long id) {
+        User removed = users.remove(id);
+        orderedIds.remove(id);
+        return removed;
+    }
+
+    @Override
+    public int count() {
+        return users.size();
+    }
+
+    @Override
+    public void forEach(Consumer<User> action) {
+        for (Long id : orderedIds) {
+            User user = users.get(id);
+            if (user != null) {
+                action.accept(user);
+            }
+        }
+    }
+
+    @Override
+    public List<User> findAll() {
+        return new ArrayList<>(users.values());
+    }
+
+    @Override
+    public List<User> findPage(long after, int limit) {
+        List<User> page = new ArrayList<>(Math.min(limit, 64));
+        for (Long id : orderedIds.tailSet(after, false)) {
+            if (page.size() >= limit) {
+                break;
+            }
+            User user = users.get(id);
+            if (user != null) {
+                page.add(user);
+            }
+        }
+        return page;
+    }
+}
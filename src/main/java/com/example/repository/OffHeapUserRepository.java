@@ -0,0 +1,350 @@
+package com.example.repository;
+
+import com.example.model.User;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Almacén fuera del heap: cada usuario ocupa un registro de tamaño fijo en bloques de
+ * {@link ByteBuffer} directos y los textos (nombre y email) se guardan en UTF-8 en un arena
+ * de bloques directos. El índice id→registro es un {@link LongIntHashMap} de arrays
+ * primitivos, de modo que el recolector no tiene que recorrer un objeto por usuario; un
+ * {@link SortedLongSet} guarda además los ids en orden para paginar sin recorrer el almacén.
+ *
+ * <p>Las lecturas construyen un {@link User} nuevo (de vida corta) en cada llamada. Los textos
+ * reemplazados se compactan cuando el espacio muerto supera al espacio vivo.
+ */
+public class OffHeapUserRepository implements UserRepository {
+    public static final int DEFAULT_RECORDS_PER_SLAB = 65_536;
+    public static final int DEFAULT_ARENA_SLAB_BYTES = 4 * 1024 * 1024;
+
+    static final int RECORD_SIZE = 48;
+    private static final int ID = 0;
+    private static final int NAME_REF = 8;
+    private static final int EMAIL_REF = 16;
+    private static final int AGE = 24;
+    private static final int NAME_LEN = 28;
+    private static final int EMAIL_LEN = 32;
+    private static final int VERSION = 40;
+
+    private final int recordsPerSlab;
+    private final int arenaSlabBytes;
+    private final List<ByteBuffer> recordSlabs = new ArrayList<>();
+    private final LongIntHashMap index = new LongIntHashMap(1024);
+    // Puede conservar ids ya borrados: se podan cuando superan a los vivos
+    private final SortedLongSet orderedIds = new SortedLongSet(1024);
+    private StringArena arena;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int highWater;
+    // Copia volátil del tamaño para que count() (y el gauge users.count) no tome el cerrojo
+    private volatile int size;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+
+    public OffHeapUserRepository() {
+        this(DEFAULT_RECORDS_PER_SLAB, DEFAULT_ARENA_SLAB_BYTES);
+    }
+
+    public OffHeapUserRepository(int recordsPerSlab, int arenaSlabBytes) {
+        if (recordsPerSlab < 1 || arenaSlabBytes < 1) {
+            throw new IllegalArgumentException("Los tamaños de bloque deben ser positivos");
+        }
+        this.recordsPerSlab = recordsPerSlab;
+        this.arenaSlabBytes = arenaSlabBytes;
+        this.arena = new StringArena(arenaSlabBytes);
+    }
+
+    @Override
+    public Optional<User> findById(long id) {
+        readLock.lock();
+        try {
+            int slot = index.get(id);
+            return slot == LongIntHashMap.MISSING ? Optional.empty() : Optional.of(read(slot));
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean existsById(long id) {
+        readLock.lock();
+        try {
+            return index.get(id) != LongIntHashMap.MISSING;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public void save(User user) {
+        byte[] name = encode(user.getName());
+        byte[] email = encode(user.getEmail());
+
+        writeLock.lock();
+        try {
+            write(user, name, email);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void saveAll(Collection<User> batch) {
+        byte[][] names = new byte[batch.size()][];
+        byte[][] emails = new byte[batch.size()][];
+        int i = 0;
+        for (User user : batch) {
+            names[i] = encode(user.getName());
+            emails[i++] = encode(user.getEmail());
+        }
+
+        writeLock.lock();
+        try {
+            i = 0;
+            for (User user : batch) {
+                write(user, names[i], emails[i++]);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public User deleteById(long id) {
+        writeLock.lock();
+        try {
+            int slot = index.remove(id);
+            if (slot == LongIntHashMap.MISSING) {
+                return null;
+            }
+            size = index.size();
+            if (orderedIds.size() > 2 * size + 1024) {
+                orderedIds.retainIf(live -> index.get(live) != LongIntHashMap.MISSING);
+            }
+            User removed = read(slot);
+            ByteBuffer slab = slab(slot);
+            int offset = offset(slot);
+            arena.release(slab.getInt(offset + NAME_LEN) + slab.getInt(offset + EMAIL_LEN));
+            slab.putLong(offset + ID, 0L);
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            }
+            freeSlots[freeCount++] = slot;
+            return removed;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public int count() {
+        return size;
+    }
+
+    @Override
+    public void forEach(Consumer<User> action) {
+        // Se decodifica por bloques para no retener el cerrojo de lectura mientras se escribe la respuesta
+        int batchSize = 256;
+        List<User> batch = new ArrayList<>(batchSize);
+        int slot = 0;
+        while (true) {
+            readLock.lock();
+            try {
+                while (slot < highWater && batch.size() < batchSize) {
+                    if (slab(slot).getLong(offset(slot) + ID) != 0L) {
+                        batch.add(read(slot));
+                    }
+                    slot++;
+                }
+            } finally {
+                readLock.unlock();
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            batch.forEach(action);
+            batch.clear();
+        }
+    }
+
+    @Override
+    public List<User> findPage(long after, int limit) {
+        List<User> page = new ArrayList<>(Math.min(limit, 64));
+        long[] ids = new long[Math.max(16, Math.min(limit, 1024))];
+        readLock.lock();
+        try {
+            long from = after;
+            while (page.size() < limit) {
+                int found = orderedIds.next(from, ids);
+                for (int i = 0; i < found && page.size() < limit; i++) {
+                    int slot = index.get(ids[i]);
+                    if (slot != LongIntHashMap.MISSING) {
+                        page.add(read(slot));
+                    }
+                }
+                if (found < ids.length) {
+                    break;
+                }
+                from = ids[found - 1];
+            }
+        } finally {
+            readLock.unlock();
+        }
+        return page;
+    }
+
+    /**
+     * Bytes reservados fuera del heap (registros y arena).
+     */
+    public long offHeapBytes() {
+        readLock.lock();
+        try {
+            return (long) recordSlabs.size() * recordsPerSlab * RECORD_SIZE + arena.reservedBytes();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private void write(User user, byte[] name, byte[] email) {
+        long id = user.getId();
+        if (arena.shouldCompact()) {
+            compact();
+        }
+
+        int slot = index.get(id);
+        if (slot == LongIntHashMap.MISSING) {
+            slot = allocateSlot();
+            index.put(id, slot);
+            orderedIds.add(id);
+            size = index.size();
+        }
+        ByteBuffer slab = slab(slot);
+        int offset = offset(slot);
+        if (slab.getLong(offset + ID) != 0L) {
+            arena.release(slab.getInt(offset + NAME_LEN) + slab.getInt(offset + EMAIL_LEN));
+        }
+        slab.putLong(offset + ID, id);
+        slab.putLong(offset + NAME_REF, arena.append(name));
+        slab.putLong(offset + EMAIL_REF, arena.append(email));
+        slab.putInt(offset + AGE, user.getAge());
+        slab.putInt(offset + NAME_LEN, name.length);
+        slab.putInt(offset + EMAIL_LEN, email.length);
+        slab.putLong(offset + VERSION, user.getVersion());
+    }
+
+    private User read(int slot) {
+        ByteBuffer slab = slab(slot);
+        int offset = offset(slot);
+        return new User(
+                slab.getLong(offset + ID),
+                arena.read(slab.getLong(offset + NAME_REF), slab.getInt(offset + NAME_LEN)),
+                arena.read(slab.getLong(offset + EMAIL_REF), slab.getInt(offset + EMAIL_LEN)),
+                slab.getInt(offset + AGE),
+                slab.getLong(offset + VERSION));
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (highWater == recordSlabs.size() * recordsPerSlab) {
+            recordSlabs.add(ByteBuffer.allocateDirect(recordsPerSlab * RECORD_SIZE));
+        }
+        return highWater++;
+    }
+
+    private void compact() {
+        StringArena compacted = new StringArena(arenaSlabBytes);
+        for (int slot = 0; slot < highWater; slot++) {
+            ByteBuffer slab = slab(slot);
+            int offset = offset(slot);
+            if (slab.getLong(offset + ID) == 0L) {
+                continue;
+            }
+            slab.putLong(offset + NAME_REF, arena.copyTo(compacted, slab.getLong(offset + NAME_REF), slab.getInt(offset + NAME_LEN)));
+            slab.putLong(offset + EMAIL_REF, arena.copyTo(compacted, slab.getLong(offset + EMAIL_REF), slab.getInt(offset + EMAIL_LEN)));
+        }
+        arena = compacted;
+    }
+
+    private ByteBuffer slab(int slot) {
+        return recordSlabs.get(slot / recordsPerSlab);
+    }
+
+    private int offset(int slot) {
+        return (slot % recordsPerSlab) * RECORD_SIZE;
+    }
+
+    private static byte[] encode(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Arena de solo escritura al final; una referencia empaqueta el bloque (32 bits altos) y la
+     * posición dentro del bloque (32 bits bajos).
+     */
+    private static final class StringArena {
+        private final int slabBytes;
+        private final List<ByteBuffer> slabs = new ArrayList<>();
+        private int position;
+        private long usedBytes;
+        private long liveBytes;
+
+        StringArena(int slabBytes) {
+            this.slabBytes = slabBytes;
+        }
+
+        long append(byte[] bytes) {
+            if (bytes.length > slabBytes) {
+                throw new IllegalArgumentException("Texto demasiado largo para el arena: " + bytes.length + " bytes");
+            }
+            if (slabs.isEmpty() || position + bytes.length > slabBytes) {
+                slabs.add(ByteBuffer.allocateDirect(slabBytes));
+                position = 0;
+            }
+            int slabIndex = slabs.size() - 1;
+            slabs.get(slabIndex).put(position, bytes);
+            long ref = ((long) slabIndex << 32) | position;
+            position += bytes.length;
+            usedBytes += bytes.length;
+            liveBytes += bytes.length;
+            return ref;
+        }
+
+        String read(long ref, int length) {
+            byte[] bytes = new byte[length];
+            slabs.get((int) (ref >>> 32)).get((int) ref, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        long copyTo(StringArena target, long ref, int length) {
+            byte[] bytes = new byte[length];
+            slabs.get((int) (ref >>> 32)).get((int) ref, bytes);
+            return target.append(bytes);
+        }
+
+        void release(int length) {
+            liveBytes -= length;
+        }
+
+        boolean shouldCompact() {
+            return usedBytes > slabBytes && usedBytes - liveBytes > liveBytes;
+        }
+
+        long reservedBytes() {
+            return (long) slabs.size() * slabBytes;
+        }
+    }
+}
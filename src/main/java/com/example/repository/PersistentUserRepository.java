@@ -0,0 +1,329 @@
+package com.example.repository;
+
+import com.example.model.User;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Almacén persistente (inmutable por versiones): un trie de 32 ramas con mapa de bits, al estilo
+ * HAMT, indexado por los bits del id de más a menos significativos, así que se recorre en orden
+ * de id. Cada escritura copia solo el camino modificado y publica una raíz nueva; los lectores
+ * toman la raíz vigente en O(1) y ven un estado consistente sin bloquear ni copiar.
+ *
+ * <p>Los escritores se serializan con un cerrojo (cada escritura es una copia de camino corta).
+ * Se guarda una copia del usuario para que cambios posteriores del objeto del llamante no
+ * alteren versiones ya publicadas.
+ */
+public class PersistentUserRepository implements UserRepository {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final Node EMPTY_NODE = new Node(0, new Object[0]);
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Snapshot current = new Snapshot(EMPTY_NODE, 1, 0);
+
+    @Override
+    public Optional<User> findById(long id) {
+        return current.findById(id);
+    }
+
+    @Override
+    public boolean existsById(long id) {
+        return current.existsById(id);
+    }
+
+    @Override
+    public void save(User user) {
+        writeLock.lock();
+        try {
+            current = current.with(copy(user));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * El lote se publica de una vez: ningún lector ve una parte sin el resto.
+     */
+    @Override
+    public void saveAll(Collection<User> batch) {
+        writeLock.lock();
+        try {
+            Snapshot next = current;
+            for (User user : batch) {
+                next = next.with(copy(user));
+            }
+            current = next;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public User deleteById(long id) {
+        writeLock.lock();
+        try {
+            Snapshot before = current;
+            User removed = before.findById(id).orElse(null);
+            if (removed != null) {
+                current = before.without(id);
+            }
+            return removed;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public int count() {
+        return current.count();
+    }
+
+    @Override
+    public void forEach(Consumer<User> action) {
+        current.forEach(action);
+    }
+
+    @Override
+    public List<User> findAll() {
+        return current.findAll();
+    }
+
+    @Override
+    public List<User> findPage(long after, int limit) {
+        return current.findPage(after, limit);
+    }
+
+    /**
+     * La versión vigente, inmutable.
+     */
+    @Override
+    public Snapshot readView() {
+        return current;
+    }
+
+    private static User copy(User user) {
+        if (user.getId() == null || user.getId() < 0) {
+            throw new IllegalArgumentException("Id de usuario no válido: " + user.getId());
+        }
+        return new User(user.getId(), user.getName(), user.getEmail(), user.getAge(), user.getVersion());
+    }
+
+    /**
+     * Versión inmutable del almacén. Se puede consultar indefinidamente; las escrituras fallan.
+     */
+    public static final class Snapshot implements UserRepository {
+        private final Node root;
+        // Niveles del trie: cubre ids de hasta BITS * levels bits
+        private final int levels;
+        private final int size;
+
+        private Snapshot(Node root, int levels, int size) {
+            this.root = root;
+            this.levels = levels;
+            this.size = size;
+        }
+
+        Snapshot with(User user) {
+            long id = user.getId();
+            Node base = root;
+            int depth = levels;
+            int needed = levelsFor(id);
+            while (depth < needed) {
+                // Crecer por arriba: la raíz actual pasa a ser la rama 0 del nuevo nivel
+                base = base.bitmap == 0 ? base : new Node(1, new Object[]{base});
+                depth++;
+            }
+            boolean[] added = {false};
+            Node updated = insert(base, depth - 1, id, user, added);
+            return new Snapshot(updated, depth, added[0] ? size + 1 : size);
+        }
+
+        Snapshot without(long id) {
+            if (levelsFor(id) > levels) {
+                return this;
+            }
+            Node updated = remove(root, levels - 1, id);
+            return new Snapshot(updated == null ? EMPTY_NODE : updated, levels, size - 1);
+        }
+
+        @Override
+        public Optional<User> findById(long id) {
+            if (id < 0 || levelsFor(id) > levels) {
+                return Optional.empty();
+            }
+            Node node = root;
+            for (int level = levels - 1; level > 0; level--) {
+                Object child = node.child(chunk(id, level));
+                if (child == null) {
+                    return Optional.empty();
+                }
+                node = (Node) child;
+            }
+            return Optional.ofNullable((User) node.child(chunk(id, 0)));
+        }
+
+        @Override
+        public boolean existsById(long id) {
+            return findById(id).isPresent();
+        }
+
+        @Override
+        public int count() {
+            return size;
+        }
+
+        @Override
+        public void forEach(Consumer<User> action) {
+            forEach(root, levels - 1, action);
+        }
+
+        @Override
+        public List<User> findAll() {
+            List<User> all = new ArrayList<>(size);
+            forEach(all::add);
+            return all;
+        }
+
+        @Override
+        public List<User> findPage(long after, int limit) {
+            List<User> page = new ArrayList<>(Math.min(limit, 64));
+            collect(root, levels - 1, 0L, after, limit, page);
+            return page;
+        }
+
+        @Override
+        public Snapshot readView() {
+            return this;
+        }
+
+        @Override
+        public void save(User user) {
+            throw new UnsupportedOperationException("Instantánea de solo lectura");
+        }
+
+        @Override
+        public User deleteById(long id) {
+            throw new UnsupportedOperationException("Instantánea de solo lectura");
+        }
+
+        private static void forEach(Node node, int level, Consumer<User> action) {
+            for (Object child : node.slots) {
+                if (level == 0) {
+                    action.accept((User) child);
+                } else {
+                    forEach((Node) child, level - 1, action);
+                }
+            }
+        }
+
+        // Recorre en orden saltando las ramas cuyos ids son todos <= after
+        private static boolean collect(Node node, int level, long prefix, long after, int limit, List<User> page) {
+            int bitmap = node.bitmap;
+            int index = 0;
+            while (bitmap != 0) {
+                int chunk = Integer.numberOfTrailingZeros(bitmap);
+                bitmap &= bitmap - 1;
+                Object child = node.slots[index++];
+                long childPrefix = prefix | ((long) chunk << (level * BITS));
+                if (level == 0) {
+                    if (childPrefix > after) {
+                        if (page.size() >= limit) {
+                            return false;
+                        }
+                        page.add((User) child);
+                    }
+                    continue;
+                }
+                long childMax = childPrefix | ((1L << (level * BITS)) - 1);
+                if (childMax > after && !collect((Node) child, level - 1, childPrefix, after, limit, page)) {
+                    return false;
+                }
+            }
+            return page.size() < limit;
+        }
+    }
+
+    private static Node insert(Node node, int level, long id, User user, boolean[] added) {
+        int chunk = chunk(id, level);
+        int bit = 1 << chunk;
+        int index = Integer.bitCount(node.bitmap & (bit - 1));
+        boolean present = (node.bitmap & bit) != 0;
+        Object value;
+        if (level == 0) {
+            value = user;
+            added[0] = !present;
+        } else {
+            Node child = present ? (Node) node.slots[index] : EMPTY_NODE;
+            value = insert(child, level - 1, id, user, added);
+        }
+        if (present) {
+            Object[] slots = node.slots.clone();
+            slots[index] = value;
+            return new Node(node.bitmap, slots);
+        }
+        Object[] slots = new Object[node.slots.length + 1];
+        System.arraycopy(node.slots, 0, slots, 0, index);
+        slots[index] = value;
+        System.arraycopy(node.slots, index, slots, index + 1, node.slots.length - index);
+        return new Node(node.bitmap | bit, slots);
+    }
+
+    // Devuelve null si el nodo queda vacío
+    private static Node remove(Node node, int level, long id) {
+        int chunk = chunk(id, level);
+        int bit = 1 << chunk;
+        if ((node.bitmap & bit) == 0) {
+            return node;
+        }
+        int index = Integer.bitCount(node.bitmap & (bit - 1));
+        if (level > 0) {
+            Node child = remove((Node) node.slots[index], level - 1, id);
+            if (child != null) {
+                Object[] slots = node.slots.clone();
+                slots[index] = child;
+                return new Node(node.bitmap, slots);
+            }
+        }
+        if (node.slots.length == 1) {
+            return null;
+        }
+        Object[] slots = new Object[node.slots.length - 1];
+        System.arraycopy(node.slots, 0, slots, 0, index);
+        System.arraycopy(node.slots, index + 1, slots, index, node.slots.length - index - 1);
+        return new Node(node.bitmap & ~bit, slots);
+    }
+
+    private static int chunk(long id, int level) {
+        return (int) ((id >>> (level * BITS)) & MASK);
+    }
+
+    private static int levelsFor(long id) {
+        int bits = 64 - Long.numberOfLeadingZeros(id);
+        return Math.max(1, (bits + BITS - 1) / BITS);
+    }
+
+    // Nodo inmutable: en el nivel 0 los hijos son usuarios, en el resto nodos
+    private static final class Node {
+        final int bitmap;
+        final Object[] slots;
+
+        Node(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        Object child(int chunk) {
+            int bit = 1 << chunk;
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            return slots[Integer.bitCount(bitmap & (bit - 1))];
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.repository;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Conjunto ordenado de longs sobre arrays primitivos, pensado para ids que llegan casi siempre
+ * en orden creciente: esos se añaden al final en O(1). Los que llegan fuera de orden esperan en
+ * un búfer ordenado pequeño que se fusiona con el array principal al llenarse. No admite
+ * borrados individuales: el llamante poda los que ya no existen con {@link #retainIf}.
+ * No es seguro ante concurrencia: el llamante debe sincronizar el acceso.
+ */
+final class SortedLongSet {
+    private static final int PENDING_CAPACITY = 4096;
+
+    private long[] sorted;
+    private int sortedSize;
+    private final long[] pending = new long[PENDING_CAPACITY];
+    private int pendingSize;
+
+    SortedLongSet(int expectedSize) {
+        this.sorted = new long[Math.max(16, expectedSize)];
+    }
+
+    int size() {
+        return sortedSize + pendingSize;
+    }
+
+    void add(long value) {
+        // Mayor que todo lo guardado: va al final del array principal
+        if ((sortedSize == 0 || value > sorted[sortedSize - 1])
+                && (pendingSize == 0 || value > pending[pendingSize - 1])) {
+            if (sortedSize == sorted.length) {
+                sorted = Arrays.copyOf(sorted, sortedSize + (sortedSize >> 1));
+            }
+            sorted[sortedSize++] = value;
+            return;
+        }
+        if (Arrays.binarySearch(sorted, 0, sortedSize, value) >= 0) {
+            return;
+        }
+        int position = Arrays.binarySearch(pending, 0, pendingSize, value);
+        if (position >= 0) {
+            return;
+        }
+        position = -position - 1;
+        System.arraycopy(pending, position, pending, position + 1, pendingSize - position);
+        pending[position] = value;
+        if (++pendingSize == PENDING_CAPACITY) {
+            merge();
+        }
+    }
+
+    /**
+     * Copia en {@code out}, en orden, los siguientes valores mayores que {@code after}.
+     * Devuelve cuántos ha copiado; menos que {@code out.length} indica que no hay más.
+     */
+    int next(long after, long[] out) {
+        int i = upperBound(sorted, sortedSize, after);
+        int j = upperBound(pending, pendingSize, after);
+        int count = 0;
+        while (count < out.length && (i < sortedSize || j < pendingSize)) {
+            if (j == pendingSize || (i < sortedSize && sorted[i] < pending[j])) {
+                out[count++] = sorted[i++];
+            } else {
+                out[count++] = pending[j++];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Conserva solo los valores que cumplen {@code keep}.
+     */
+    void retainIf(LongPredicate keep) {
+        merge();
+        int kept = 0;
+        for (int i = 0; i < sortedSize; i++) {
+            if (keep.test(sorted[i])) {
+                sorted[kept++] = sorted[i];
+            }
+        }
+        sortedSize = kept;
+        if (sorted.length > 16 && kept < sorted.length >> 2) {
+            sorted = Arrays.copyOf(sorted, Math.max(16, kept << 1));
+        }
+    }
+
+    private void merge() {
+        if (pendingSize == 0) {
+            return;
+        }
+        int total = sortedSize + pendingSize;
+        if (total > sorted.length) {
+            sorted = Arrays.copyOf(sorted, Math.max(total, sortedSize + (sortedSize >> 1)));
+        }
+        // Fusión desde el final, en el propio array
+        int i = sortedSize - 1;
+        int j = pendingSize - 1;
+        for (int k = total - 1; j >= 0; k--) {
+            sorted[k] = i >= 0 && sorted[i] > pending[j] ? sorted[i--] : pending[j--];
+        }
+        sortedSize = total;
+        pendingSize = 0;
+    }
+
+    private static int upperBound(long[] values, int size, long after) {
+        int position = Arrays.binarySearch(values, 0, size, after);
+        return position >= 0 ? position + 1 : -position - 1;
+    }
+}
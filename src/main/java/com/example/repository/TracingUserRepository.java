@@ -0,0 +1,131 @@
+package com.example.repository;
+
+import com.example.model.User;
+import com.example.tracing.Phase;
+import com.example.tracing.RequestTrace;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Suma a la fase {@code store} de la petición en curso el tiempo de cada llamada al almacén.
+ * {@link #forEach} no se mide: su tiempo incluiría la acción del llamante.
+ */
+public class TracingUserRepository implements UserRepository, AutoCloseable {
+    private final UserRepository delegate;
+
+    public TracingUserRepository(UserRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Optional<User> findById(long id) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findById(id);
+        } finally {
+            RequestTrace.record(Phase.STORE, start);
+        }
+    }
+
+    @Override
+    public boolean existsById(long id) {
+        long start = System.nanoTime();
+        try {
+            return delegate.existsById(id);
+        } finally {
+            RequestTrace.record(Phase.STORE, start);
+        }
+    }
+
+    @Override
+    public void save(User user) {
+        long start = System.nanoTime();
+        try {
+            delegate.save(user);
+        } finally {
+            RequestTrace.record(Phase.STORE, start);
+        }
+    }
+
+    @Override
+    public void saveAll(Collection<User> batch) {
+        long start = System.nanoTime();
+        try {
+            delegate.saveAll(batch);
+        } finally {
+            RequestTrace.record(Phase.STORE, start);
+        }
+    }
+
+    @Override
+    public User deleteById(long id) {
+        long start = System.nanoTime();
+        try {
+            return delegate.deleteById(id);
+        } finally {
+            RequestTrace.record(Phase.STORE, start);
+        }
+    }
+
+    @Override
+    public void deferDurability() {
+        delegate.deferDurability();
+    }
+
+    @Override
+    public void awaitDeferred() {
+        // La espera del disco forma parte del almacenamiento aunque ocurra fuera de save
+        long start = System.nanoTime();
+        try {
+            delegate.awaitDeferred();
+        } finally {
+            RequestTrace.record(Phase.STORE, start);
+        }
+    }
+
+    @Override
+    public int count() {
+        return delegate.count();
+    }
+
+    @Override
+    public void forEach(Consumer<User> action) {
+        delegate.forEach(action);
+    }
+
+    @Override
+    public List<User> findAll() {
+        long start = System.nanoTime();
+        try {
+            return delegate.findAll();
+        } finally {
+            RequestTrace.record(Phase.STORE, start);
+        }
+    }
+
+    @Override
+    public List<User> findPage(long after, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findPage(after, limit);
+        } finally {
+            RequestTrace.record(Phase.STORE, start);
+        }
+    }
+
+    @Override
+    public UserRepository readView() {
+        UserRepository view = delegate.readView();
+        return view == delegate ? this : new TracingUserRepository(view);
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (delegate instanceof AutoCloseable) {
+            ((AutoCloseable) delegate).close();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.repository;
+
+import com.example.model.User;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+/**
+ * Formato binario compartido por el log de escritura anticipada y las instantáneas:
+ * {@code [longitud:int][crc32c:int][tipo:byte][id:long][versión:long][edad:int][nombre:int+bytes][email:int+bytes]}.
+ * Una longitud 0 (zona del fichero aún sin escribir), un CRC incorrecto o un tipo desconocido
+ * marcan el final de los datos válidos.
+ */
+final class UserRecordCodec {
+    static final byte DELETE = 2;
+    static final byte UPSERT_VERSIONED = 3;
+
+    static final int HEADER_BYTES = 8;
+    private static final int MAX_PAYLOAD = 1 << 20;
+    private static final long MAX_MAPPING = 1L << 30;
+
+    private UserRecordCodec() {
+    }
+
+    interface Visitor {
+        void upsert(User user);
+
+        void delete(long id);
+    }
+
+    static byte[] encodeUpsert(User user) {
+        byte[] name = bytes(user.getName());
+        byte[] email = bytes(user.getEmail());
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 1 + 8 + 8 + 4 + 4 + name.length + 4 + email.length);
+        buffer.position(HEADER_BYTES);
+        buffer.put(UPSERT_VERSIONED)
+                .putLong(user.getId())
+                .putLong(user.getVersion())
+                .putInt(user.getAge())
+                .putInt(name.length).put(name)
+                .putInt(email.length).put(email);
+        return seal(buffer);
+    }
+
+    static byte[] encodeDelete(long id) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 1 + 8);
+        buffer.position(HEADER_BYTES);
+        buffer.put(DELETE).putLong(id);
+        return seal(buffer);
+    }
+
+    /**
+     * Recorre los registros válidos del fichero mapeándolo en memoria por regiones y devuelve
+     * el número de bytes válidos leídos.
+     */
+    static long scan(FileChannel channel, long start, Visitor visitor) throws IOException {
+        long size = channel.size();
+        long position = start;
+        while (position < size) {
+            long regionSize = Math.min(size - position, MAX_MAPPING);
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, regionSize);
+            int consumed = decodeRegion(region, visitor);
+            boolean lastRegion = position + regionSize == size;
+            position += consumed;
+            // Solo se vuelve a mapear si el último registro pudo quedar cortado por el borde de la región
+            if (consumed == 0 || lastRegion || regionSize - consumed >= MAX_PAYLOAD + HEADER_BYTES) {
+                break;
+            }
+        }
+        return position - start;
+    }
+
+    private static int decodeRegion(ByteBuffer region, Visitor visitor) {
+        CRC32C crc = new CRC32C();
+        while (region.remaining() >= HEADER_BYTES) {
+            int start = region.position();
+            int length = region.getInt(start);
+            if (length <= 0 || length > MAX_PAYLOAD || length > region.remaining() - HEADER_BYTES) {
+                break;
+            }
+            int checksum = region.getInt(start + 4);
+            ByteBuffer payload = region.slice(start + HEADER_BYTES, length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            if (!decodePayload(payload, visitor)) {
+                break;
+            }
+            region.position(start + HEADER_BYTES + length);
+        }
+        return region.position();
+    }
+
+    private static boolean decodePayload(ByteBuffer payload, Visitor visitor) {
+        byte type = payload.get();
+        if (type != DELETE && type != UPSERT_VERSIONED) {
+            return false;
+        }
+        long id = payload.getLong();
+        if (type == DELETE) {
+            visitor.delete(id);
+            return true;
+        }
+        long version = payload.getLong();
+        int age = payload.getInt();
+        String name = string(payload);
+        String email = string(payload);
+        visitor.upsert(new User(id, name, email, age, version));
+        return true;
+    }
+
+    private static String string(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.getInt()];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] seal(ByteBuffer buffer) {
+        int length = buffer.position() - HEADER_BYTES;
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), HEADER_BYTES, length);
+        buffer.putInt(0, length);
+        buffer.putInt(4, (int) crc.getValue());
+        return buffer.array();
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+}
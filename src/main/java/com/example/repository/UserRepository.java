@@ -0,0 +1,97 @@
+package com.example.repository;
+
+import com.example.model.User;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Almacén de usuarios por id. Las implementaciones deben admitir acceso concurrente.
+ */
+public interface UserRepository {
+
+    Optional<User> findById(long id);
+
+    boolean existsById(long id);
+
+    /**
+     * Inserta o reemplaza el usuario con el id indicado en {@code user}.
+     */
+    void save(User user);
+
+    /**
+     * Guarda varios usuarios en orden. Las implementaciones pueden agrupar el trabajo
+     * (un solo cerrojo, una sola espera de disco) frente a llamadas sucesivas a {@link #save}.
+     */
+    default void saveAll(Collection<User> batch) {
+        for (User user : batch) {
+            save(user);
+        }
+    }
+
+    /**
+     * Hasta el {@link #awaitDeferred()} correspondiente, las escrituras de este hilo no esperan
+     * a ser duraderas; quien escribe con cerrojos propios los suelta antes de esperar al disco.
+     * Las llamadas se pueden anidar. Por defecto no hace nada.
+     */
+    default void deferDurability() {
+    }
+
+    /**
+     * Cierra un {@link #deferDurability()} y, en el más externo, espera a que sean duraderas las
+     * escrituras aplazadas de este hilo.
+     */
+    default void awaitDeferred() {
+    }
+
+    /**
+     * Elimina el usuario y lo devuelve, o {@code null} si no existía.
+     */
+    User deleteById(long id);
+
+    int count();
+
+    /**
+     * Recorre todos los usuarios. El orden depende de la implementación.
+     */
+    void forEach(Consumer<User> action);
+
+    default List<User> findAll() {
+        List<User> all = new ArrayList<>(count());
+        forEach(all::add);
+        return all;
+    }
+
+    /**
+     * Como máximo {@code limit} usuarios con id mayor que {@code after}, en orden de id.
+     * La implementación por defecto recorre el almacén manteniendo solo {@code limit} candidatos.
+     */
+    default List<User> findPage(long after, int limit) {
+        PriorityQueue<User> lowest = new PriorityQueue<>(Comparator.comparing(User::getId).reversed());
+        forEach(user -> {
+            if (user.getId() > after) {
+                lowest.offer(user);
+                if (lowest.size() > limit) {
+                    lowest.poll();
+                }
+            }
+        });
+        List<User> page = new ArrayList<>(lowest);
+        page.sort(Comparator.comparing(User::getId));
+        return page;
+    }
+
+    /**
+     * Vista de solo lectura para consultas que recorren todo el almacén. Las implementaciones
+     * con versiones inmutables devuelven un estado consistente en O(1); por defecto es el propio
+     * almacén, con la consistencia débil de sus iteradores.
+     */
+    default UserRepository readView() {
+        return this;
+    }
+}
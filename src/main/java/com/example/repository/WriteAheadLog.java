@@ -0,0 +1,220 @@
+package com.example.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Log de escritura anticipada sobre segmentos mapeados en memoria ({@code wal-<n>.log}).
+ * Las escrituras solo copian bytes al segmento actual; {@link #flush()} fuerza el segmento a
+ * disco y libera de golpe a todos los escritores que esperaban (commit en grupo).
+ *
+ * <p>Si forzar a disco falla, el log queda marcado como fallido: no se sabe qué páginas llegaron
+ * al disco, así que los escritores que esperan (y los siguientes) reciben el error en lugar de
+ * reintentar para siempre.
+ */
+final class WriteAheadLog implements AutoCloseable {
+    private static final String PREFIX = "wal-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentBytes;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock durableLock = new ReentrantLock();
+    private final Condition durableAdvanced = durableLock.newCondition();
+
+    private long segmentNumber;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long appendedSequence;
+    private volatile long durableSequence;
+    private volatile IOException failure;
+
+    WriteAheadLog(Path directory, int segmentBytes, long firstSegment) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        open(firstSegment);
+    }
+
+    static Path segmentPath(Path directory, long number) {
+        return directory.resolve(String.format("%s%020d%s", PREFIX, number, SUFFIX));
+    }
+
+    /**
+     * Fuerza a disco las entradas del directorio (ficheros creados, renombrados o borrados).
+     */
+    static void syncDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (AccessDeniedException e) {
+            // Windows no permite abrir directorios; allí el sistema de ficheros ya lo garantiza
+        }
+    }
+
+    static List<Long> existingSegments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Añade un registro ya codificado y devuelve su número de secuencia.
+     */
+    long append(byte[] record) {
+        if (record.length > segmentBytes) {
+            throw new IllegalArgumentException("Registro mayor que el segmento del log: " + record.length);
+        }
+        appendLock.lock();
+        try {
+            if (segment.remaining() < record.length) {
+                roll();
+            }
+            segment.put(record);
+            return ++appendedSequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Cierra el segmento actual y abre uno nuevo; devuelve el número del nuevo segmento.
+     */
+    long roll() {
+        appendLock.lock();
+        try {
+            segment.force();
+            advanceDurable(appendedSequence);
+            channel.close();
+            open(segmentNumber + 1);
+            return segmentNumber;
+        } catch (IOException e) {
+            fail(e);
+            throw new UncheckedIOException(e);
+        } catch (UncheckedIOException e) {
+            fail(e.getCause());
+            throw e;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Fuerza a disco todo lo escrito hasta ahora y despierta a los escritores en espera.
+     */
+    void flush() {
+        if (failure != null) {
+            return;
+        }
+        long target;
+        MappedByteBuffer current;
+        appendLock.lock();
+        try {
+            target = appendedSequence;
+            current = segment;
+        } finally {
+            appendLock.unlock();
+        }
+        if (target > durableSequence) {
+            try {
+                current.force();
+            } catch (UncheckedIOException e) {
+                fail(e.getCause());
+                throw e;
+            }
+        }
+        advanceDurable(target);
+    }
+
+    /**
+     * Bloquea hasta que el registro con la secuencia indicada esté en disco. Lanza
+     * {@link UncheckedIOException} si el log no ha podido forzarse a disco.
+     */
+    void awaitDurable(long sequence) {
+        if (durableSequence >= sequence) {
+            return;
+        }
+        durableLock.lock();
+        try {
+            while (durableSequence < sequence) {
+                IOException error = failure;
+                if (error != null) {
+                    throw new UncheckedIOException("El log de escritura no se pudo forzar a disco", error);
+                }
+                durableAdvanced.await(100, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido esperando la escritura del log", e);
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            segment.force();
+            advanceDurable(appendedSequence);
+            channel.close();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Avanza la secuencia duradera bajo su cerrojo, sin retroceder nunca: flush, roll y close
+     * pueden terminar en cualquier orden.
+     */
+    private void advanceDurable(long target) {
+        durableLock.lock();
+        try {
+            if (target > durableSequence) {
+                durableSequence = target;
+            }
+            durableAdvanced.signalAll();
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    /**
+     * Marca el log como fallido y despierta a los escritores en espera para que reciban el error.
+     */
+    void fail(IOException error) {
+        durableLock.lock();
+        try {
+            if (failure == null) {
+                failure = error;
+            }
+            durableAdvanced.signalAll();
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    private void open(long number) throws IOException {
+        segmentNumber = number;
+        channel = FileChannel.open(segmentPath(directory, number),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        // Sin esto el segmento nuevo podría no existir tras una caída aunque sus datos estén forzados
+        syncDirectory(directory);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.service;
+
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongPredicate;
+
+/**
+ * Índice por edad: un contador y un conjunto ordenado de ids por cada edad válida. Recuentos e
+ * histogramas salen de los contadores sin tocar ningún usuario; los rangos se recorren en orden
+ * de id mezclando los conjuntos de cada edad. Los cambios de un mismo id deben llegar serializados.
+ */
+class AgeIndex {
+    static final int MAX_AGE = 150;
+
+    private final AtomicLongArray counts = new AtomicLongArray(MAX_AGE);
+    private final NavigableSet<Long>[] ids;
+
+    @SuppressWarnings("unchecked")
+    AgeIndex() {
+        ids = new NavigableSet[MAX_AGE];
+        for (int age = 0; age < MAX_AGE; age++) {
+            ids[age] = new ConcurrentSkipListSet<>();
+        }
+    }
+
+    static boolean indexable(int age) {
+        return age >= 0 && age < MAX_AGE;
+    }
+
+    void add(long id, int age) {
+        if (indexable(age) && ids[age].add(id)) {
+            counts.incrementAndGet(age);
+        }
+    }
+
+    void remove(long id, int age) {
+        if (indexable(age) && ids[age].remove(id)) {
+            counts.decrementAndGet(age);
+        }
+    }
+
+    void move(long id, int previousAge, int age) {
+        if (previousAge != age) {
+            add(id, age);
+            remove(id, previousAge);
+        }
+    }
+
+    /**
+     * Copia de los contadores por edad. Cada contador es exacto; el conjunto no es una
+     * instantánea atómica si hay escrituras concurrentes.
+     */
+    long[] counts() {
+        long[] snapshot = new long[MAX_AGE];
+        for (int age = 0; age < MAX_AGE; age++) {
+            snapshot[age] = counts.get(age);
+        }
+        return snapshot;
+    }
+
+    long count(int minAge, int maxAge) {
+        long total = 0;
+        for (int age = Math.max(0, minAge); age <= Math.min(MAX_AGE - 1, maxAge); age++) {
+            total += counts.get(age);
+        }
+        return total;
+    }
+
+    /**
+     * Ids con edad en el rango y mayores que {@code after}, en orden ascendente, hasta que el
+     * visitante devuelva false.
+     */
+    void forEachId(int minAge, int maxAge, long after, LongPredicate visitor) {
+        PriorityQueue<Cursor> heads = new PriorityQueue<>();
+        for (int age = Math.max(0, minAge); age <= Math.min(MAX_AGE - 1, maxAge); age++) {
+            Iterator<Long> iterator = ids[age].tailSet(after, false).iterator();
+            if (iterator.hasNext()) {
+                heads.add(new Cursor(iterator.next(), iterator));
+            }
+        }
+        while (!heads.isEmpty()) {
+            Cursor head = heads.poll();
+            if (!visitor.test(head.id)) {
+                return;
+            }
+            if (head.rest.hasNext()) {
+                heads.add(new Cursor(head.rest.next(), head.rest));
+            }
+        }
+    }
+
+    /**
+     * Ids en orden de edad (y de id dentro de cada edad) a partir de la posición {@code offset},
+     * hasta que el visitante devuelva false. Las edades completas anteriores a la posición se
+     * saltan con sus contadores, sin recorrer sus ids.
+     */
+    void forEachIdByAge(long offset, boolean descending, LongPredicate visitor) {
+        long skip = offset;
+        for (int i = 0; i < MAX_AGE; i++) {
+            int age = descending ? MAX_AGE - 1 - i : i;
+            long count = counts.get(age);
+            if (skip >= count) {
+                skip -= count;
+                continue;
+            }
+            Iterator<Long> iterator = descending ? ids[age].descendingIterator() : ids[age].iterator();
+            while (iterator.hasNext()) {
+                long id = iterator.next();
+                if (skip > 0) {
+                    skip--;
+                } else if (!visitor.test(id)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /** Ids de una sola edad en orden ascendente. */
+    Iterable<Long> idsOfAge(int age) {
+        return ids[age];
+    }
+
+    private static final class Cursor implements Comparable<Cursor> {
+        final long id;
+        final Iterator<Long> rest;
+
+        Cursor(long id, Iterator<Long> rest) {
+            this.id = id;
+            this.rest = rest;
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            return Long.compare(id, other.id);
+        }
+    }
+}
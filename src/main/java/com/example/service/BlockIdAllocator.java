@@ -0,0 +1,91 @@
+package com.example.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Asignador por bloques: cada franja (seleccionada por hilo) reserva un rango de ids del
+ * contador global y lo consume localmente, de modo que el contador compartido solo se toca
+ * una vez por bloque.
+ *
+ * <p>Cada bloque lleva la generación en la que se reservó y {@link #advancePast(long)} la
+ * incrementa: un bloque de una generación anterior no se usa aunque otro hilo lo instale después,
+ * así que ningún id entregado tras {@code advancePast} sale de un rango previo al nuevo límite.
+ */
+public class BlockIdAllocator implements IdAllocator {
+    public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+    private static final Block EXHAUSTED = new Block(0, 0, -1);
+
+    private final AtomicLong nextBlockStart;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicReferenceArray<Block> stripes;
+    private final int blockSize;
+    private final int mask;
+
+    public BlockIdAllocator() {
+        this(DEFAULT_BLOCK_SIZE, Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    public BlockIdAllocator(int blockSize, int stripeCount) {
+        if (blockSize < 1 || stripeCount < 1) {
+            throw new IllegalArgumentException("Tamaño de bloque y número de franjas deben ser positivos");
+        }
+        int size = Integer.highestOneBit(stripeCount - 1) << 1;
+        this.blockSize = blockSize;
+        this.mask = Math.max(size, 1) - 1;
+        this.stripes = new AtomicReferenceArray<>(mask + 1);
+        this.nextBlockStart = new AtomicLong(1L);
+        for (int i = 0; i < stripes.length(); i++) {
+            stripes.set(i, EXHAUSTED);
+        }
+    }
+
+    @Override
+    public long nextId() {
+        int index = stripeIndex();
+        while (true) {
+            Block block = stripes.get(index);
+            long id = block.next.getAndIncrement();
+            // La generación se lee después de tomar el id: si advancePast ya la cambió, el id se descarta
+            if (id < block.limit && block.generation == generation.get()) {
+                return id;
+            }
+            long current = generation.get();
+            long start = nextBlockStart.getAndAdd(blockSize);
+            if (current != generation.get()) {
+                // El rango pudo reservarse antes del nuevo límite
+                continue;
+            }
+            Block fresh = new Block(start + 1, start + blockSize, current);
+            if (stripes.compareAndSet(index, block, fresh)) {
+                return start;
+            }
+            // Otro hilo de la misma franja ya instaló un bloque; el nuestro se descarta
+        }
+    }
+
+    @Override
+    public void advancePast(long id) {
+        nextBlockStart.accumulateAndGet(id + 1, Math::max);
+        // Invalida los bloques ya repartidos, incluidos los que otro hilo esté a punto de instalar
+        generation.incrementAndGet();
+    }
+
+    private int stripeIndex() {
+        long threadId = Thread.currentThread().getId();
+        return (int) (threadId ^ (threadId >>> 16)) & mask;
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long limit;
+        private final long generation;
+
+        private Block(long first, long limit, long generation) {
+            this.next = new AtomicLong(first);
+            this.limit = limit;
+            this.generation = generation;
+        }
+    }
+}
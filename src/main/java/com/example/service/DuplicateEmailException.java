@@ -0,0 +1,12 @@
+package com.example.service;
+
+/**
+ * Email ya registrado por otro usuario con la restricción de unicidad activada. Como
+ * {@link UserNotFoundException}, es un resultado esperado y no captura la traza de pila.
+ */
+public class DuplicateEmailException extends RuntimeException {
+
+    public DuplicateEmailException(String email) {
+        super("Email ya registrado: " + email, null, false, false);
+    }
+}
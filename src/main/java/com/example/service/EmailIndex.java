@@ -0,0 +1,93 @@
+package com.example.service;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice secundario por email normalizado (sin espacios, en minúsculas). Con la restricción de
+ * unicidad activada la reserva del email es atómica: dos altas simultáneas con el mismo email no
+ * pueden obtenerlo las dos. Las llamadas para un mismo id deben llegar serializadas.
+ */
+class EmailIndex {
+    private static final long[] NONE = new long[0];
+
+    private final Map<String, long[]> postings = new ConcurrentHashMap<>();
+    private final Map<Long, String> emails = new ConcurrentHashMap<>();
+
+    static String normalize(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Asocia el email al id. Con {@code exclusive} no hace nada y devuelve false si otro id ya lo tiene.
+     */
+    boolean put(long id, String email, boolean exclusive) {
+        String normalized = normalize(email);
+        String previous = emails.get(id);
+        if (normalized.equals(previous)) {
+            return true;
+        }
+
+        boolean[] taken = {false};
+        postings.compute(normalized, (key, ids) -> {
+            if (ids == null) {
+                return new long[]{id};
+            }
+            if (exclusive) {
+                taken[0] = true;
+                return ids;
+            }
+            long[] extended = Arrays.copyOf(ids, ids.length + 1);
+            extended[ids.length] = id;
+            return extended;
+        });
+        if (taken[0]) {
+            return false;
+        }
+
+        emails.put(id, normalized);
+        if (previous != null) {
+            removePosting(previous, id);
+        }
+        return true;
+    }
+
+    void remove(long id) {
+        String previous = emails.remove(id);
+        if (previous != null) {
+            removePosting(previous, id);
+        }
+    }
+
+    /**
+     * Ids con el email ya normalizado; el array devuelto no debe modificarse.
+     */
+    long[] find(String normalizedEmail) {
+        long[] ids = postings.get(normalizedEmail);
+        return ids == null ? NONE : ids;
+    }
+
+    private void removePosting(String normalized, long id) {
+        postings.computeIfPresent(normalized, (key, ids) -> {
+            int index = -1;
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0) {
+                return ids;
+            }
+            if (ids.length == 1) {
+                return null;
+            }
+            long[] reduced = new long[ids.length - 1];
+            System.arraycopy(ids, 0, reduced, 0, index);
+            System.arraycopy(ids, index + 1, reduced, index, ids.length - index - 1);
+            return reduced;
+        });
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.service;
+
+/**
+ * Estrategia de asignación de identificadores de usuario. Las implementaciones deben ser
+ * seguras ante concurrencia y no devolver nunca el mismo id dos veces.
+ */
+public interface IdAllocator {
+
+    long nextId();
+
+    /**
+     * Garantiza que los ids asignados a partir de ahora sean mayores que {@code id}
+     * (por ejemplo, tras recuperar usuarios ya existentes).
+     */
+    void advancePast(long id);
+}
@@ -0,0 +1,95 @@
+package com.example.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma acumulado de latencias, independiente del registro de métricas: los contadores solo
+ * crecen, así que la diferencia entre dos copias es exactamente la actividad del intervalo con
+ * cualquier registro (Prometheus, simple o por pasos). Tramos exponenciales desde 1 µs con cuatro
+ * subtramos por potencia de dos (error relativo ≤ 25 %); el último recoge todo lo que pasa de ~67 s.
+ */
+final class LatencyHistogram {
+    private static final int SUB_BUCKETS = 4;
+    static final int BUCKETS = 26 * SUB_BUCKETS + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    void record(long nanos) {
+        counts.incrementAndGet(bucket(nanos));
+        count.increment();
+        totalNanos.add(nanos);
+    }
+
+    long count() {
+        return count.sum();
+    }
+
+    long totalNanos() {
+        return totalNanos.sum();
+    }
+
+    Snapshot snapshot() {
+        long[] buckets = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = counts.get(i);
+        }
+        return new Snapshot(count.sum(), totalNanos.sum(), buckets);
+    }
+
+    static int bucket(long nanos) {
+        long micros = nanos / 1_000;
+        if (micros <= 1) {
+            return 0;
+        }
+        int log = 63 - Long.numberOfLeadingZeros(micros);
+        // Los dos bits siguientes al más alto eligen el subtramo
+        int sub = (int) ((log >= 2 ? micros >>> (log - 2) : micros << (2 - log)) & (SUB_BUCKETS - 1));
+        return Math.min(log * SUB_BUCKETS + sub + 1, BUCKETS - 1);
+    }
+
+    /** Límite superior del tramo en milisegundos. */
+    static double upperBoundMs(int bucket) {
+        if (bucket == 0) {
+            return 0.001;
+        }
+        int log = (bucket - 1) / SUB_BUCKETS;
+        int sub = (bucket - 1) % SUB_BUCKETS;
+        return (1L << log) * (SUB_BUCKETS + sub + 1) / (double) SUB_BUCKETS / 1_000.0;
+    }
+
+    /** Valores acumulados en un instante. */
+    static final class Snapshot {
+        final long count;
+        final long totalNanos;
+        final long[] buckets;
+
+        Snapshot(long count, long totalNanos, long[] buckets) {
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.buckets = buckets;
+        }
+
+        /**
+         * Percentil de la actividad entre {@code before} y esta copia: límite superior del primer
+         * tramo que lo alcanza, o {@code null} si no hubo actividad.
+         */
+        Double percentileMs(Snapshot before, double quantile) {
+            long intervalCount = count - before.count;
+            if (intervalCount <= 0) {
+                return null;
+            }
+            double target = Math.ceil(quantile * intervalCount);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i] - before.buckets[i];
+                if (seen >= target) {
+                    return upperBoundMs(i);
+                }
+            }
+            return upperBoundMs(buckets.length - 1);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.service;
+
+import com.example.model.MonitoringUpdate;
+import com.example.model.MonitoringUpdate.OperationStats;
+import com.example.service.UserMetrics.Operation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Difunde las métricas del dashboard por Server-Sent Events. Un único temporizador calcula
+ * cada intervalo el resumen, lo serializa una vez y lo envía a todos los suscriptores, así que
+ * el coste en servidor no depende del número de pestañas abiertas. Los intervalos sin cambios
+ * no generan evento; solo un comentario periódico que mantiene viva la conexión.
+ *
+ * <p>El envío a cada suscriptor se hace en un hilo aparte para que un cliente lento no retrase
+ * al resto: mientras su envío anterior siga en curso se salta el evento (el siguiente resumen lo
+ * sustituye) y, si se atasca más de {@code app.monitoring.send-timeout}, se descarta.
+ */
+@Component
+@Slf4j
+public class MonitoringStream implements AutoCloseable {
+    static final String EVENT_NAME = "metrics";
+    // Intervalos sin cambios entre comentarios de mantenimiento
+    private static final int HEARTBEAT_TICKS = 10;
+
+    private final UserService userService;
+    private final UserMetrics metrics;
+    private final ObjectMapper objectMapper;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService ticker;
+    private final ExecutorService senders;
+    private final long sendTimeoutNanos;
+
+    // Solo los modifica el hilo del temporizador
+    private final Map<Operation, LatencyHistogram.Snapshot> previous = new EnumMap<>(Operation.class);
+    private long previousTickNanos;
+    private MonitoringUpdate lastUpdate;
+    private int idleTicks;
+
+    private volatile String lastPayload;
+
+    public MonitoringStream(UserService userService, UserMetrics metrics, ObjectMapper objectMapper,
+                            @Value("${app.monitoring.stream-interval:2s}") Duration interval,
+                            @Value("${app.monitoring.send-timeout:5s}") Duration sendTimeout) {
+        this.userService = userService;
+        this.metrics = metrics;
+        this.objectMapper = objectMapper;
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.previousTickNanos = System.nanoTime();
+        for (Operation operation : Operation.values()) {
+            previous.put(operation, metrics.latency(operation));
+        }
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("monitoring-stream-");
+        threadFactory.setDaemon(true);
+        this.ticker = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        long millis = interval.toMillis();
+        ticker.scheduleAtFixedRate(this::tick, millis, millis, TimeUnit.MILLISECONDS);
+
+        // Como mucho un hilo por suscriptor, y solo mientras tenga un envío en curso
+        CustomizableThreadFactory senderFactory = new CustomizableThreadFactory("monitoring-sender-");
+        senderFactory.setDaemon(true);
+        this.senders = Executors.newCachedThreadPool(senderFactory);
+        log.info("Stream de monitoreo cada {} ms", millis);
+    }
+
+    /**
+     * Registra un suscriptor y le envía el último resumen para que no espere al siguiente intervalo.
+     */
+    public SseEmitter subscribe() {
+        // Sin tiempo límite: la conexión dura lo que la pestaña
+        return subscribe(new SseEmitter(0L));
+    }
+
+    SseEmitter subscribe(SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        log.debug("Nuevo suscriptor del stream de monitoreo. Total: {}", subscribers.size());
+
+        String payload = lastPayload;
+        if (payload == null) {
+            payload = serialize(currentTotals());
+        }
+        if (payload != null) {
+            send(subscriber, SseEmitter.event().name(EVENT_NAME).data(payload));
+        }
+        return emitter;
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    void tick() {
+        try {
+            MonitoringUpdate update = sample();
+            if (update.equals(lastUpdate)) {
+                if (++idleTicks % HEARTBEAT_TICKS == 0) {
+                    broadcast(SseEmitter.event().comment("keep-alive"));
+                }
+                return;
+            }
+            lastUpdate = update;
+            idleTicks = 0;
+            String payload = serialize(update);
+            if (payload != null) {
+                lastPayload = payload;
+                broadcast(SseEmitter.event().name(EVENT_NAME).data(payload));
+            }
+        } catch (RuntimeException e) {
+            // Una excepción cancelaría la tarea periódica
+            log.error("Error al calcular las métricas del stream de monitoreo", e);
+        }
+    }
+
+    /**
+     * Resumen del intervalo transcurrido desde la muestra anterior.
+     */
+    MonitoringUpdate sample() {
+        long now = System.nanoTime();
+        double seconds = Math.max(1e-9, (now - previousTickNanos) / 1e9);
+        previousTickNanos = now;
+
+        MonitoringUpdate update = currentTotals();
+        Map<String, OperationStats> operations = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram.Snapshot current = metrics.latency(operation);
+            LatencyHistogram.Snapshot before = previous.put(operation, current);
+            long count = current.count - before.count;
+            if (count <= 0) {
+                continue;
+            }
+            double meanMs = (current.totalNanos - before.totalNanos) / 1e6 / count;
+            operations.put(operation.tag(), new OperationStats(
+                    round(count / seconds),
+                    round(meanMs),
+                    round(current.percentileMs(before, 0.50)),
+                    round(current.percentileMs(before, 0.99))));
+        }
+        update.setOperations(operations.isEmpty() ? null : operations);
+        return update;
+    }
+
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            senders.execute(subscriber.emitter::complete);
+        }
+        subscribers.clear();
+        senders.shutdown();
+    }
+
+    private MonitoringUpdate currentTotals() {
+        MonitoringUpdate update = new MonitoringUpdate();
+        update.setTimestamp(System.currentTimeMillis());
+        update.setUsers(userService.countUsers());
+        update.setCreated(metrics.createdTotal());
+        update.setRetrieved(metrics.retrievedTotal());
+        update.setUpdated(metrics.updatedTotal());
+        update.setDeleted(metrics.deletedTotal());
+        update.setNotFound(metrics.notFoundTotal());
+        return update;
+    }
+
+    private void broadcast(SseEmitter.SseEventBuilder event) {
+        for (Subscriber subscriber : subscribers) {
+            send(subscriber, event);
+        }
+    }
+
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        long now = System.nanoTime();
+        if (!subscriber.sendingSince.compareAndSet(0L, now)) {
+            // Sigue con el envío anterior: se salta este evento salvo que lleve demasiado atascado
+            long since = subscriber.sendingSince.get();
+            if (since != 0L && now - since > sendTimeoutNanos
+                    && subscribers.remove(subscriber)) {
+                log.debug("Suscriptor del stream de monitoreo descartado por lento");
+                // Los métodos del emisor están sincronizados con el envío atascado: no se cierra
+                // desde el temporizador
+                complete(subscriber, new IOException("Envío atascado más de " + sendTimeoutNanos / 1_000_000 + " ms"));
+            }
+            return;
+        }
+        try {
+            senders.execute(() -> {
+                try {
+                    subscriber.emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    // Cliente desconectado: se descarta sin esperar al timeout del contenedor
+                    log.debug("Suscriptor del stream de monitoreo desconectado: {}", e.getMessage());
+                    subscribers.remove(subscriber);
+                    subscriber.emitter.completeWithError(e);
+                } finally {
+                    subscriber.sendingSince.set(0L);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Stream cerrado
+            subscriber.sendingSince.set(0L);
+        }
+    }
+
+    private void complete(Subscriber subscriber, Exception cause) {
+        try {
+            senders.execute(() -> subscriber.emitter.completeWithError(cause));
+        } catch (RejectedExecutionException e) {
+            // Stream cerrado: el hilo del envío atascado termina por su cuenta
+        }
+    }
+
+    private String serialize(MonitoringUpdate update) {
+        try {
+            return objectMapper.writeValueAsString(update);
+        } catch (JsonProcessingException e) {
+            log.error("No se pudo serializar el resumen de monitoreo", e);
+            return null;
+        }
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    private static Double round(Double value) {
+        return value != null ? round(value.doubleValue()) : null;
+    }
+
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        // Inicio del envío en curso en nanoTime, 0 si no hay ninguno
+        final AtomicLong sendingSince = new AtomicLong();
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice invertido de trigramas sobre el nombre normalizado (minúsculas) de cada usuario.
+ * Se mantiene de forma incremental en cada alta, modificación y baja.
+ */
+class NameIndex {
+    static final int GRAM = 3;
+
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+    private final Map<Long, String> names = new ConcurrentHashMap<>();
+
+    static String normalize(String name) {
+        return name == null ? "" : name.toLowerCase();
+    }
+
+    void add(Long id, String name) {
+        String normalized = normalize(name);
+        String previous = names.put(id, normalized);
+        if (previous != null && !previous.equals(normalized)) {
+            // Primero se indexan los trigramas nuevos para no perder resultados durante la sustitución
+            addGrams(id, normalized);
+            removeGrams(id, previous, grams(normalized));
+        } else if (previous == null) {
+            addGrams(id, normalized);
+        }
+    }
+
+    void remove(Long id) {
+        String previous = names.remove(id);
+        if (previous != null) {
+            removeGrams(id, previous, Collections.emptySet());
+        }
+    }
+
+    /**
+     * Ids que pueden contener la consulta: la lista de trigramas más corta, o todos los ids si la
+     * consulta es más corta que un trigrama. Es una vista viva que se puede dividir en trozos;
+     * cada candidato se debe comprobar con {@link #nameOf}.
+     */
+    Collection<Long> candidates(String normalizedQuery) {
+        if (normalizedQuery.length() < GRAM) {
+            return names.keySet();
+        }
+        Set<Long> smallest = null;
+        for (String gram : grams(normalizedQuery)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids == null) {
+                return Collections.emptySet();
+            }
+            if (smallest == null || ids.size() < smallest.size()) {
+                smallest = ids;
+            }
+        }
+        return smallest;
+    }
+
+    /**
+     * Nombre normalizado ya calculado para el id, o {@code null} si no está indexado.
+     */
+    String nameOf(Long id) {
+        return names.get(id);
+    }
+
+    private void addGrams(Long id, String normalized) {
+        for (String gram : grams(normalized)) {
+            // Se añade dentro de compute para no competir con la eliminación de listas vacías
+            postings.compute(gram, (g, ids) -> {
+                Set<Long> target = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                target.add(id);
+                return target;
+            });
+        }
+    }
+
+    private void removeGrams(Long id, String normalized, Set<String> keep) {
+        for (String gram : grams(normalized)) {
+            if (keep.contains(gram)) {
+                continue;
+            }
+            postings.computeIfPresent(gram, (g, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    private static Set<String> grams(String normalized) {
+        if (normalized.length() < GRAM) {
+            return Collections.emptySet();
+        }
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.service;
+
+import com.example.model.SearchResult;
+import com.example.model.User;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Recorre un conjunto de candidatos en trozos sobre un ForkJoinPool propio y acotado. Con límite
+ * se devuelven las coincidencias de menor id, igual que sin él pero truncadas: los trozos
+ * comparten un montículo acotado (el mayor id arriba) y, una vez lleno, los candidatos con id
+ * mayor que su cima se saltan sin comprobar el nombre. Todos los trozos paran si vence el plazo
+ * y el resultado se marca como parcial. Los conjuntos pequeños se recorren en el hilo llamante.
+ */
+class ParallelNameSearch implements AutoCloseable {
+    static final int CHUNK_SIZE = 4096;
+    // Elementos entre comprobaciones del plazo, para no leer el reloj en cada candidato
+    private static final int DEADLINE_CHECK_INTERVAL = 256;
+
+    private final ForkJoinPool pool;
+
+    ParallelNameSearch(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    int parallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * @param matcher devuelve el usuario si el candidato coincide, o {@code null}
+     * @param deadlineNanos instante de {@link System#nanoTime()} límite, o {@code 0} sin plazo
+     */
+    SearchResult search(Collection<Long> candidates, Function<Long, User> matcher, int limit, long deadlineNanos) {
+        Scan scan = new Scan(matcher, limit, deadlineNanos);
+        Chunk root = new Chunk(scan, candidates.spliterator());
+        if (candidates.size() <= CHUNK_SIZE) {
+            root.compute();
+        } else {
+            pool.invoke(root);
+        }
+        List<User> users = new ArrayList<>(scan.results);
+        users.sort(Comparator.comparing(User::getId));
+        return new SearchResult(users, scan.timedOut.get());
+    }
+
+    /**
+     * Deja de aceptar búsquedas; las que están en curso terminan.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    // Estado compartido por todos los trozos de una búsqueda
+    private static final class Scan {
+        final Function<Long, User> matcher;
+        final int limit;
+        final long deadlineNanos;
+        // Las coincidencias de menor id encontradas hasta ahora, con la mayor en la cima
+        final PriorityQueue<User> results = new PriorityQueue<>((a, b) -> Long.compare(b.getId(), a.getId()));
+        final AtomicBoolean timedOut = new AtomicBoolean();
+        final Consumer<Long> visit = this::visit;
+        volatile boolean stopped;
+        // Con el montículo lleno, el mayor id que contiene; ningún id igual o mayor puede entrar
+        volatile long ceiling = Long.MAX_VALUE;
+
+        Scan(Function<Long, User> matcher, int limit, long deadlineNanos) {
+            this.matcher = matcher;
+            this.limit = limit;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        boolean expired() {
+            if (deadlineNanos != 0 && System.nanoTime() - deadlineNanos >= 0) {
+                timedOut.set(true);
+                stopped = true;
+            }
+            return stopped;
+        }
+
+        void visit(Long id) {
+            if (id >= ceiling) {
+                return;
+            }
+            User user = matcher.apply(id);
+            if (user != null) {
+                offer(user);
+            }
+        }
+
+        synchronized void offer(User user) {
+            if (results.size() == limit) {
+                if (user.getId() >= results.peek().getId()) {
+                    return;
+                }
+                results.poll();
+            }
+            results.add(user);
+            if (results.size() == limit) {
+                ceiling = results.peek().getId();
+            }
+        }
+    }
+
+    private static final class Chunk extends RecursiveAction {
+        private final Scan scan;
+        private final Spliterator<Long> ids;
+
+        Chunk(Scan scan, Spliterator<Long> ids) {
+            this.scan = scan;
+            this.ids = ids;
+        }
+
+        @Override
+        protected void compute() {
+            List<Chunk> forked = new ArrayList<>();
+            Spliterator<Long> split;
+            while (!scan.stopped && ids.estimateSize() > CHUNK_SIZE && (split = ids.trySplit()) != null) {
+                Chunk chunk = new Chunk(scan, split);
+                chunk.fork();
+                forked.add(chunk);
+            }
+            scanLocal();
+            for (Chunk chunk : forked) {
+                chunk.join();
+            }
+        }
+
+        private void scanLocal() {
+            int sinceCheck = 0;
+            while (!scan.stopped) {
+                if (++sinceCheck == DEADLINE_CHECK_INTERVAL) {
+                    sinceCheck = 0;
+                    if (scan.expired()) {
+                        return;
+                    }
+                }
+                if (!ids.tryAdvance(scan.visit)) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Asignador estilo Snowflake para despliegues con varias instancias: 41 bits de milisegundos
+ * desde {@link #EPOCH}, 10 bits de nodo y 12 bits de secuencia. Si la secuencia se agota
+ * dentro del mismo milisegundo se toma prestado el siguiente en lugar de esperar.
+ */
+public class SnowflakeIdAllocator implements IdAllocator {
+    public static final long EPOCH = 1704067200000L; // 2024-01-01T00:00:00Z
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long node;
+    private final LongSupplier clock;
+    private final AtomicLong last = new AtomicLong();
+
+    public SnowflakeIdAllocator(long node) {
+        this(node, System::currentTimeMillis);
+    }
+
+    SnowflakeIdAllocator(long node, LongSupplier clock) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("Nodo fuera de rango: " + node);
+        }
+        this.node = node;
+        this.clock = clock;
+    }
+
+    @Override
+    public long nextId() {
+        while (true) {
+            long previous = last.get();
+            long previousTime = previous >>> (NODE_BITS + SEQUENCE_BITS);
+            long now = Math.max(clock.getAsLong() - EPOCH, 0L);
+
+            long time;
+            long sequence;
+            if (now > previousTime) {
+                time = now;
+                sequence = 0;
+            } else {
+                // Reloj igual o retrasado: se continúa la secuencia del último instante usado
+                sequence = (previous + 1) & SEQUENCE_MASK;
+                time = sequence == 0 ? previousTime + 1 : previousTime;
+            }
+
+            long id = (time << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | sequence;
+            if (last.compareAndSet(previous, id)) {
+                return id;
+            }
+        }
+    }
+
+    @Override
+    public void advancePast(long id) {
+        last.accumulateAndGet(id, Math::max);
+    }
+}
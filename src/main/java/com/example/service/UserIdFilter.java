@@ -0,0 +1,115 @@
+package com.example.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom con contadores de 4 bits sobre los ids existentes. Si dice que un id no está,
+ * no está; si dice que puede estar, hay que consultar el almacén. Admite bajas porque cada
+ * posición es un contador; un contador que llega a 15 queda fijo (solo añade falsos positivos).
+ *
+ * <p>Cada {@link #add} debe corresponder a un alta real y cada {@link #remove} a una baja real de
+ * un id añadido antes: quitar un id que no estaba podría producir falsos negativos.
+ */
+public class UserIdFilter {
+    public static final int DEFAULT_EXPECTED_USERS = 1 << 20;
+    public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+
+    private static final int COUNTERS_PER_WORD = 16;
+    private static final long COUNTER_MAX = 0xFL;
+
+    private final AtomicLongArray counters;
+    private final long size;
+    private final int hashes;
+
+    public UserIdFilter() {
+        this(DEFAULT_EXPECTED_USERS, DEFAULT_FALSE_POSITIVE_RATE);
+    }
+
+    public UserIdFilter(long expectedUsers, double falsePositiveRate) {
+        if (expectedUsers < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Tamaño esperado o tasa de falsos positivos fuera de rango");
+        }
+        double ln2 = Math.log(2);
+        long optimal = (long) Math.ceil(-expectedUsers * Math.log(falsePositiveRate) / (ln2 * ln2));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (optimal + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD);
+        this.counters = new AtomicLongArray(words);
+        this.size = (long) words * COUNTERS_PER_WORD;
+        this.hashes = Math.max(1, (int) Math.round((double) size / expectedUsers * ln2));
+    }
+
+    public void add(long id) {
+        long h1 = mix(id);
+        long h2 = mix(h1) | 1L;
+        for (int i = 0; i < hashes; i++) {
+            increment(Math.floorMod(h1 + i * h2, size));
+        }
+    }
+
+    public void remove(long id) {
+        long h1 = mix(id);
+        long h2 = mix(h1) | 1L;
+        for (int i = 0; i < hashes; i++) {
+            decrement(Math.floorMod(h1 + i * h2, size));
+        }
+    }
+
+    public boolean mightContain(long id) {
+        long h1 = mix(id);
+        long h2 = mix(h1) | 1L;
+        for (int i = 0; i < hashes; i++) {
+            long index = Math.floorMod(h1 + i * h2, size);
+            if (counter(counters.get((int) (index / COUNTERS_PER_WORD)), index) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Memoria ocupada por los contadores, en bytes. */
+    public long sizeInBytes() {
+        return (long) counters.length() * Long.BYTES;
+    }
+
+    private void increment(long index) {
+        int word = (int) (index / COUNTERS_PER_WORD);
+        long shift = shift(index);
+        long current;
+        do {
+            current = counters.get(word);
+            if (counter(current, index) == COUNTER_MAX) {
+                return;
+            }
+        } while (!counters.compareAndSet(word, current, current + (1L << shift)));
+    }
+
+    private void decrement(long index) {
+        int word = (int) (index / COUNTERS_PER_WORD);
+        long shift = shift(index);
+        long current;
+        do {
+            current = counters.get(word);
+            long value = counter(current, index);
+            if (value == 0 || value == COUNTER_MAX) {
+                return;
+            }
+        } while (!counters.compareAndSet(word, current, current - (1L << shift)));
+    }
+
+    private static long counter(long word, long index) {
+        return (word >>> shift(index)) & COUNTER_MAX;
+    }
+
+    private static long shift(long index) {
+        return (index % COUNTERS_PER_WORD) * 4;
+    }
+
+    // Finalizador de 64 bits de MurmurHash3
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.service;
+
+import com.example.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Instrumentación de {@link UserService}. Todos los medidores se registran una sola vez al
+ * construir el componente, de modo que el camino caliente solo incrementa referencias ya
+ * resueltas en lugar de buscar en el registro en cada llamada.
+ *
+ * <p>La latencia de cada operación se registra una sola vez, en un {@link LatencyHistogram}. El
+ * registro la lee de ahí: {@code users.operation} (recuento y tiempo total) y
+ * {@code users.operation.percentile} (p50, p95 y p99 de los últimos uno a dos minutos). El
+ * stream de monitoreo usa el mismo histograma para los percentiles de cada intervalo.
+ */
+@Component
+public class UserMetrics {
+
+    public enum Operation {
+        CREATE("create"),
+        GET("get"),
+        LIST("list"),
+        UPDATE("update"),
+        DELETE("delete"),
+        SEARCH("search"),
+        GET_BY_EMAIL("get_by_email"),
+        AGE_RANGE("age_range"),
+        AGE_STATS("age_stats"),
+        BULK("bulk");
+
+        private final String tag;
+
+        Operation(String tag) {
+            this.tag = tag;
+        }
+
+        public String tag() {
+            return tag;
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final Counter created;
+    private final Counter retrieved;
+    private final Counter updated;
+    private final Counter deleted;
+    private final Counter notFound;
+    private final Counter versionConflicts;
+    private final Counter bulkOperations;
+    private final Counter bulkFailed;
+    private static final double[] PUBLISHED_PERCENTILES = {0.5, 0.95, 0.99};
+    // Antigüedad de la copia de referencia de los percentiles publicados
+    private static final long PERCENTILE_WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    // Latencias acumuladas con cualquier registro (Prometheus, simple o por pasos)
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+
+    public UserMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.created = registry.counter("users.created");
+        this.retrieved = registry.counter("users.retrieved");
+        this.updated = registry.counter("users.updated");
+        this.deleted = registry.counter("users.deleted");
+        this.notFound = registry.counter("users.not_found");
+        this.versionConflicts = registry.counter("users.version.conflicts");
+        this.bulkOperations = registry.counter("users.bulk.operations");
+        this.bulkFailed = registry.counter("users.bulk.failed");
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            latencies.put(operation, histogram);
+            FunctionTimer.builder("users.operation", histogram,
+                            LatencyHistogram::count, LatencyHistogram::totalNanos, TimeUnit.NANOSECONDS)
+                    .description("Latencia de las operaciones de UserService")
+                    .tag("operation", operation.tag())
+                    .register(registry);
+            RecentPercentiles recent = new RecentPercentiles(histogram);
+            for (double percentile : PUBLISHED_PERCENTILES) {
+                Gauge.builder("users.operation.percentile", recent, r -> r.seconds(percentile))
+                        .description("Percentil de latencia de los últimos uno a dos minutos")
+                        .tag("operation", operation.tag())
+                        .tag("phi", String.valueOf(percentile))
+                        .baseUnit("seconds")
+                        // Nadie más guarda la referencia: un gauge débil acabaría en NaN tras un GC
+                        .strongReference(true)
+                        .register(registry);
+            }
+        }
+    }
+
+    public void bindUserCount(UserRepository users) {
+        Gauge.builder("users.count", users, UserRepository::count)
+                .description("Número de usuarios almacenados")
+                .register(registry);
+    }
+
+    public void record(Operation operation, long startNanos) {
+        recordNanos(operation, System.nanoTime() - startNanos);
+    }
+
+    void recordNanos(Operation operation, long nanos) {
+        latencies.get(operation).record(nanos);
+    }
+
+    LatencyHistogram.Snapshot latency(Operation operation) {
+        return latencies.get(operation).snapshot();
+    }
+
+    public void created(int count) {
+        created.increment(count);
+    }
+
+    public void retrieved() {
+        retrieved.increment();
+    }
+
+    public void updated(int count) {
+        updated.increment(count);
+    }
+
+    public void deleted(int count) {
+        deleted.increment(count);
+    }
+
+    public void notFound() {
+        notFound.increment();
+    }
+
+    public void versionConflict() {
+        versionConflicts.increment();
+    }
+
+    public void bulk(int operations, int failed) {
+        bulkOperations.increment(operations);
+        bulkFailed.increment(failed);
+    }
+
+    public long createdTotal() {
+        return (long) created.count();
+    }
+
+    public long retrievedTotal() {
+        return (long) retrieved.count();
+    }
+
+    public long updatedTotal() {
+        return (long) updated.count();
+    }
+
+    public long deletedTotal() {
+        return (long) deleted.count();
+    }
+
+    public long notFoundTotal() {
+        return (long) notFound.count();
+    }
+
+    /**
+     * Percentiles de la actividad desde una copia de referencia que avanza cada minuto, así que
+     * el valor no depende de cuántos lectores consulten el registro ni de cada cuánto.
+     */
+    private static final class RecentPercentiles {
+        private final LatencyHistogram histogram;
+        private LatencyHistogram.Snapshot baseline;
+        private LatencyHistogram.Snapshot next;
+        private long rotatedAt = System.nanoTime();
+
+        RecentPercentiles(LatencyHistogram histogram) {
+            this.histogram = histogram;
+            this.baseline = histogram.snapshot();
+            this.next = baseline;
+        }
+
+        synchronized double seconds(double percentile) {
+            LatencyHistogram.Snapshot current = histogram.snapshot();
+            long now = System.nanoTime();
+            if (now - rotatedAt >= PERCENTILE_WINDOW_NANOS) {
+                baseline = next;
+                next = current;
+                rotatedAt = now;
+            }
+            Double millis = current.percentileMs(baseline, percentile);
+            return millis == null ? Double.NaN : millis / 1_000.0;
+        }
+    }
+}
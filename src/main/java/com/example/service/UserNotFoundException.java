@@ -0,0 +1,12 @@
+package com.example.service;
+
+/**
+ * Usuario inexistente. Es un resultado esperado (ids inventados, clientes que sondean), así que
+ * no captura la traza de pila: crearla costaría más que la propia búsqueda.
+ */
+public class UserNotFoundException extends RuntimeException {
+
+    public UserNotFoundException(long id) {
+        super("Usuario no encontrado: ID=" + id, null, false, false);
+    }
+}
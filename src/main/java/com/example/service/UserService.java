@@ -1,101 +1,1000 @@
 package com.example.service;
 
+import com.example.model.AgeStats;
+import com.example.model.BulkItemResult;
+import com.example.model.BulkOperation;
+import com.example.model.SearchResult;
 import com.example.model.User;
+import com.example.model.UserChange;
+import com.example.repository.InMemoryUserRepository;
+import com.example.repository.UserRepository;
+import com.example.replication.ChangeLog;
+import com.example.service.UserMetrics.Operation;
+import com.example.tracing.Phase;
+import com.example.tracing.RequestTrace;
 import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 @Slf4j
 public class UserService {
-    private final Map<Long, User> users = new ConcurrentHashMap<>();
-    private final MeterRegistry meterRegistry;
-    private Long idCounter = 1L;
+    private final UserRepository users;
+    private static final int LOCK_STRIPES = 64;
+
+    private final NameIndex nameIndex = new NameIndex();
+    private final EmailIndex emailIndex = new EmailIndex();
+    private final AgeIndex ageIndex = new AgeIndex();
+    // Serializan los cambios y bajas de un mismo id para que almacén e índices no diverjan. Con
+    // persistencia síncrona, la espera del disco se aplaza hasta soltarlos (deferDurability)
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final UserIdFilter idFilter;
+    private final UserMetrics metrics;
+    private final IdAllocator idAllocator;
+    private boolean uniqueEmail;
+    private volatile LongPredicate localKeys = id -> true;
+    // Solo en el líder de replicación: cada cambio se publica con el cerrojo de su id tomado
+    private volatile ChangeLog changeLog;
+    // Crece tras cada alta, cambio o baja, ya con los índices al día; clave de cachés de vistas
+    private final AtomicLong storeVersion = new AtomicLong();
+    // Suma de un hash por par id/versión: no depende del orden y se actualiza en O(1) por escritura
+    private final AtomicLong contentHash = new AtomicLong();
+    private volatile ParallelNameSearch nameSearch = new ParallelNameSearch(Runtime.getRuntime().availableProcessors());
 
     public UserService(MeterRegistry meterRegistry) {
-        this.meterRegistry = meterRegistry;
+        this(new UserMetrics(meterRegistry), new BlockIdAllocator(), new InMemoryUserRepository(), new UserIdFilter());
+    }
+
+    @Autowired
+    public UserService(UserMetrics metrics, IdAllocator idAllocator, UserRepository users, UserIdFilter idFilter) {
+        this.metrics = metrics;
+        this.idAllocator = idAllocator;
+        this.users = users;
+        this.idFilter = idFilter;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        rebuildIndexes();
         initializeMetrics();
     }
 
+    private void rebuildIndexes() {
+        // El almacén puede llegar ya poblado (por ejemplo, recuperado desde disco)
+        long[] maxId = {0L};
+        users.forEach(user -> {
+            nameIndex.add(user.getId(), user.getName());
+            emailIndex.put(user.getId(), user.getEmail(), false);
+            ageIndex.add(user.getId(), user.getAge());
+            idFilter.add(user.getId());
+            contentHash.addAndGet(recordHash(user));
+            maxId[0] = Math.max(maxId[0], user.getId());
+        });
+        if (maxId[0] > 0) {
+            idAllocator.advancePast(maxId[0]);
+            log.info("Índices reconstruidos para {} usuarios existentes", users.count());
+        }
+    }
+
     private void initializeMetrics() {
         // Métrica personalizada para contar usuarios
-        meterRegistry.gauge("users.count", users, Map::size);
+        metrics.bindUserCount(users);
+    }
+
+    /**
+     * Con la restricción activada, las altas y cambios con un email ya registrado por otro usuario
+     * fallan con {@link DuplicateEmailException}. Lo fija {@code UserStoreConfig} desde
+     * {@code app.users.unique-email}.
+     */
+    public void setUniqueEmail(boolean uniqueEmail) {
+        this.uniqueEmail = uniqueEmail;
+    }
+
+    /**
+     * Hilos del pool de búsqueda por nombre; 0 usa el número de procesadores disponibles.
+     */
+    @Value("${app.users.search.parallelism:0}")
+    public synchronized void setSearchParallelism(int parallelism) {
+        if (parallelism > 0 && parallelism != nameSearch.parallelism()) {
+            ParallelNameSearch previous = nameSearch;
+            nameSearch = new ParallelNameSearch(parallelism);
+            previous.close();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        nameSearch.close();
+    }
+
+    /**
+     * Ids que corresponden a esta instancia cuando el almacén está repartido entre varias; las
+     * altas solo se quedan con ids locales.
+     */
+    public void setLocalKeys(LongPredicate localKeys) {
+        this.localKeys = localKeys;
+    }
+
+    public void setChangeLog(ChangeLog changeLog) {
+        this.changeLog = changeLog;
+    }
+
+    private long nextLocalId() {
+        long id = idAllocator.nextId();
+        while (!localKeys.test(id)) {
+            id = idAllocator.nextId();
+        }
+        return id;
     }
 
     public User createUser(User user) {
-        if (!user.isValid()) {
-            log.warn("Intento de crear usuario inválido: {}", user.getEmail());
-            throw new IllegalArgumentException("Usuario inválido");
+        long start = System.nanoTime();
+        users.deferDurability();
+        try {
+            if (!isValid(user)) {
+                log.warn("Intento de crear usuario inválido: {}", user.getEmail());
+                throw new IllegalArgumentException("Usuario inválido");
+            }
+
+            user.setId(nextLocalId());
+            user.setVersion(1L);
+            reserveEmail(user);
+            // El filtro se actualiza antes de guardar para que ninguna baja lo encuentre sin añadir
+            idFilter.add(user.getId());
+            ReentrantLock lock = lockFor(user.getId());
+            lock.lock();
+            try {
+                users.save(user);
+                published(user);
+                // Con el cerrojo tomado, como en updateLocked y remove: una baja del id recién
+                // creado no puede adelantarse y dejar entradas huérfanas en los índices ni en el
+                // resumen del contenido
+                nameIndex.add(user.getId(), user.getName());
+                ageIndex.add(user.getId(), user.getAge());
+                changed(null, user);
+            } catch (RuntimeException e) {
+                emailIndex.remove(user.getId());
+                throw e;
+            } finally {
+                lock.unlock();
+            }
+
+            log.info("Usuario creado exitosamente: ID={}, Email={}", user.getId(), user.getEmail());
+            metrics.created(1);
+
+            return user;
+        } finally {
+            users.awaitDeferred();
+            metrics.record(Operation.CREATE, start);
         }
-        
-        user.setId(idCounter++);
-        users.put(user.getId(), user);
-        
-        log.info("Usuario creado exitosamente: ID={}, Email={}", user.getId(), user.getEmail());
-        meterRegistry.counter("users.created").increment();
-        
-        return user;
     }
 
     public User getUserById(Long id) {
-        log.debug("Buscando usuario con ID: {}", id);
-        User user = users.get(id);
-        
-        if (user == null) {
-            log.warn("Usuario no encontrado: ID={}", id);
-            meterRegistry.counter("users.not_found").increment();
-            throw new RuntimeException("Usuario no encontrado");
+        return findUserById(id).orElseThrow(() -> new UserNotFoundException(id));
+    }
+
+    /**
+     * Búsqueda por id sin excepciones. Los ids que el filtro descarta no llegan al almacén.
+     */
+    public Optional<User> findUserById(long id) {
+        long start = System.nanoTime();
+        try {
+            log.debug("Buscando usuario con ID: {}", id);
+            Optional<User> user = idFilter.mightContain(id) ? users.findById(id) : Optional.empty();
+
+            if (user.isPresent()) {
+                metrics.retrieved();
+            } else {
+                log.debug("Usuario no encontrado: ID={}", id);
+                metrics.notFound();
+            }
+            return user;
+        } finally {
+            metrics.record(Operation.GET, start);
         }
-        
-        meterRegistry.counter("users.retrieved").increment();
-        return user;
     }
 
     public List<User> getAllUsers() {
-        log.info("Obteniendo todos los usuarios. Total: {}", users.size());
-        return new ArrayList<>(users.values());
+        long start = System.nanoTime();
+        try {
+            UserRepository view = users.readView();
+            log.info("Obteniendo todos los usuarios. Total: {}", view.count());
+            return view.findAll();
+        } finally {
+            metrics.record(Operation.LIST, start);
+        }
     }
 
-    public User updateUser(Long id, User updatedUser) {
-        if (!updatedUser.isValid()) {
-            log.warn("Intento de actualizar usuario con datos inválidos: ID={}", id);
-            throw new IllegalArgumentException("Usuario inválido");
+    public int countUsers() {
+        return users.count();
+    }
+
+    /**
+     * Página de usuarios ordenada por id con paginación por clave: devuelve como máximo
+     * {@code limit} usuarios con id estrictamente mayor que {@code after}.
+     */
+    public List<User> getUsersPage(long after, int limit) {
+        long start = System.nanoTime();
+        try {
+            log.debug("Obteniendo página de usuarios: after={}, limit={}", after, limit);
+            return users.readView().findPage(after, limit);
+        } finally {
+            metrics.record(Operation.LIST, start);
+        }
+    }
+
+    /**
+     * Página de usuarios ordenada por {@code sort} ({@code id}, {@code name}, {@code email} o
+     * {@code age}, con el id como desempate) que empieza en la posición {@code offset}. Por id
+     * ascendente se sigue el orden del almacén y por edad se salta hasta la posición con los
+     * contadores del índice, así que el coste depende de la página y no del total; por nombre,
+     * email o id descendente se recorre el almacén una vez con solo {@code offset + limit}
+     * candidatos en memoria.
+     */
+    public List<User> getUsersSorted(String sort, boolean descending, int offset, int limit) {
+        long start = System.nanoTime();
+        try {
+            log.debug("Obteniendo página ordenada: sort={}, desc={}, offset={}, limit={}", sort, descending, offset, limit);
+            if ("age".equals(sort)) {
+                List<User> page = new ArrayList<>(Math.min(limit, 1024));
+                ageIndex.forEachIdByAge(offset, descending, id -> {
+                    users.findById(id).ifPresent(page::add);
+                    return page.size() < limit;
+                });
+                return page;
+            }
+            UserRepository view = users.readView();
+            int wanted = (int) Math.min(Integer.MAX_VALUE, (long) offset + limit);
+            if (!descending && !"name".equals(sort) && !"email".equals(sort)) {
+                List<User> first = view.findPage(0L, wanted);
+                return offset >= first.size() ? new ArrayList<>() : new ArrayList<>(first.subList(offset, first.size()));
+            }
+            Comparator<User> order = sortOrder(sort);
+            if (descending) {
+                order = order.reversed();
+            }
+            // Montículo con los "wanted" primeros: la cabeza es el peor y sale al llegar uno mejor
+            PriorityQueue<User> best = new PriorityQueue<>(order.reversed());
+            Comparator<User> ascending = order;
+            view.forEach(user -> {
+                if (best.size() < wanted) {
+                    best.offer(user);
+                } else if (ascending.compare(user, best.peek()) < 0) {
+                    best.poll();
+                    best.offer(user);
+                }
+            });
+            List<User> sorted = new ArrayList<>(best);
+            sorted.sort(order);
+            return offset >= sorted.size() ? new ArrayList<>() : new ArrayList<>(sorted.subList(offset, sorted.size()));
+        } finally {
+            metrics.record(Operation.LIST, start);
+        }
+    }
+
+    private static Comparator<User> sortOrder(String sort) {
+        Comparator<User> byId = Comparator.comparing(User::getId);
+        if ("name".equals(sort)) {
+            return Comparator.comparing(User::getName, String.CASE_INSENSITIVE_ORDER).thenComparing(byId);
+        } else if ("email".equals(sort)) {
+            return Comparator.comparing(User::getEmail, String.CASE_INSENSITIVE_ORDER).thenComparing(byId);
         }
+        return byId;
+    }
 
-        User existingUser = users.get(id);
-        if (existingUser == null) {
-            log.warn("No se puede actualizar usuario no existente: ID={}", id);
-            throw new RuntimeException("Usuario no encontrado");
+    /**
+     * Número de altas, cambios y bajas aplicados desde el arranque. Si no ha cambiado, cualquier
+     * vista calculada a partir del almacén sigue siendo válida.
+     */
+    public long storeVersion() {
+        return storeVersion.get();
+    }
+
+    /**
+     * Resumen del contenido: igual para dos almacenes con los mismos usuarios en las mismas
+     * versiones, aunque se hayan llenado en otro orden o tras un reinicio.
+     */
+    public long contentHash() {
+        return contentHash.get();
+    }
+
+    /**
+     * Anota una escritura ya aplicada, con los índices al día: cambia el resumen del contenido
+     * (resta el par id/versión anterior y suma el nuevo) y avanza la versión del almacén.
+     */
+    private void changed(User previous, User current) {
+        long delta = 0;
+        if (previous != null) {
+            delta -= recordHash(previous);
+        }
+        if (current != null) {
+            delta += recordHash(current);
         }
+        contentHash.addAndGet(delta);
+        storeVersion.incrementAndGet();
+    }
+
+    /** Finalizador de MurmurHash3 sobre id y versión; cada cambio de un usuario cambia su versión. */
+    private static long recordHash(User user) {
+        long value = user.getId() * 0x9e3779b97f4a7c15L + user.getVersion();
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    /**
+     * Recorre todos los usuarios sin construir una copia intermedia. Con un almacén persistente
+     * el recorrido ve un único estado aunque haya escrituras concurrentes.
+     */
+    public void forEachUser(Consumer<User> action) {
+        UserRepository view = users.readView();
+        log.info("Recorriendo todos los usuarios. Total: {}", view.count());
+        view.forEach(action);
+    }
+
+    public User updateUser(Long id, User updatedUser) {
+        return updateUser(id, updatedUser, null);
+    }
+
+    /**
+     * Reemplaza el usuario si sigue en {@code expectedVersion} ({@code null} acepta cualquier
+     * versión) y le asigna la siguiente. Si otro escritor se adelantó falla con
+     * {@link VersionConflictException} en lugar de pisar su cambio.
+     */
+    public User updateUser(Long id, User updatedUser, Long expectedVersion) {
+        long start = System.nanoTime();
+        users.deferDurability();
+        try {
+            if (!isValid(updatedUser)) {
+                log.warn("Intento de actualizar usuario con datos inválidos: ID={}", id);
+                throw new IllegalArgumentException("Usuario inválido");
+            }
+
+            updatedUser.setId(id);
+            int status = updateLocked(updatedUser, expectedVersion);
+            if (status == 404) {
+                log.debug("No se puede actualizar usuario no existente: ID={}", id);
+                throw new UserNotFoundException(id);
+            } else if (status == 409) {
+                log.debug("Email ya registrado: {}", updatedUser.getEmail());
+                throw new DuplicateEmailException(updatedUser.getEmail());
+            } else if (status == 412) {
+                log.debug("Cambio rechazado por versión obsoleta: ID={}, esperada={}", id, expectedVersion);
+                throw new VersionConflictException(id, expectedVersion);
+            }
+
+            log.info("Usuario actualizado exitosamente: ID={}, versión={}", id, updatedUser.getVersion());
+            metrics.updated(1);
 
-        updatedUser.setId(id);
-        users.put(id, updatedUser);
-        
-        log.info("Usuario actualizado exitosamente: ID={}", id);
-        meterRegistry.counter("users.updated").increment();
-        
-        return updatedUser;
+            return updatedUser;
+        } finally {
+            users.awaitDeferred();
+            metrics.record(Operation.UPDATE, start);
+        }
     }
 
     public void deleteUser(Long id) {
-        if (!users.containsKey(id)) {
-            log.warn("Intento de eliminar usuario no existente: ID={}", id);
-            throw new RuntimeException("Usuario no encontrado");
+        deleteUser(id, null);
+    }
+
+    /**
+     * Elimina el usuario si sigue en {@code expectedVersion} ({@code null} acepta cualquier versión).
+     */
+    public void deleteUser(Long id, Long expectedVersion) {
+        long start = System.nanoTime();
+        users.deferDurability();
+        try {
+            int status = remove(id, expectedVersion);
+            if (status == 404) {
+                log.debug("Intento de eliminar usuario no existente: ID={}", id);
+                throw new UserNotFoundException(id);
+            } else if (status == 412) {
+                log.debug("Baja rechazada por versión obsoleta: ID={}, esperada={}", id, expectedVersion);
+                throw new VersionConflictException(id, expectedVersion);
+            }
+
+            log.info("Usuario eliminado exitosamente: ID={}", id);
+            metrics.deleted(1);
+        } finally {
+            users.awaitDeferred();
+            metrics.record(Operation.DELETE, start);
+        }
+    }
+
+    /**
+     * Aplica en orden una lista de operaciones masivas. Las altas consecutivas se guardan en un
+     * único lote; los errores se informan por elemento sin interrumpir el resto. Las métricas y
+     * el log se emiten una sola vez por lote.
+     */
+    public List<BulkItemResult> applyBulk(List<BulkOperation> operations) {
+        long start = System.nanoTime();
+        List<BulkItemResult> results = new ArrayList<>(operations.size());
+        List<User> pendingCreates = new ArrayList<>();
+        int created = 0;
+        int updated = 0;
+        int deleted = 0;
+
+        // Una sola espera del disco para todo el lote, después de soltar las franjas
+        users.deferDurability();
+        try {
+            for (int i = 0; i < operations.size(); i++) {
+                BulkOperation operation = operations.get(i);
+                String op = operation.getOp();
+                User user = operation.getUser();
+                Long id = operation.getId();
+                BulkItemResult result = new BulkItemResult(i, op, id, 200, null);
+                results.add(result);
+
+                if ("create".equals(op)) {
+                    if (user == null || !isValid(user)) {
+                        reject(result, 400, "Usuario inválido");
+                        continue;
+                    }
+                    user.setId(nextLocalId());
+                    user.setVersion(1L);
+                    if (!emailIndex.put(user.getId(), user.getEmail(), uniqueEmail)) {
+                        reject(result, 409, "Email ya registrado");
+                        continue;
+                    }
+                    result.setId(user.getId());
+                    result.setStatus(201);
+                    pendingCreates.add(user);
+                    continue;
+                }
+
+                // Las altas pendientes se aplican antes para respetar el orden del lote
+                created += flushCreates(pendingCreates);
+                if ("update".equals(op)) {
+                    if (id == null || user == null || !isValid(user)) {
+                        reject(result, 400, "Usuario inválido");
+                    } else {
+                        user.setId(id);
+                        int status = updateLocked(user, operation.getVersion());
+                        if (status == 200) {
+                            updated++;
+                        } else {
+                            reject(result, status, error(status));
+                        }
+                    }
+                } else if ("delete".equals(op)) {
+                    if (id == null) {
+                        reject(result, 400, "Falta el id");
+                    } else {
+                        int status = remove(id, operation.getVersion());
+                        if (status == 200) {
+                            deleted++;
+                        } else {
+                            reject(result, status, error(status));
+                        }
+                    }
+                } else {
+                    reject(result, 400, "Operación desconocida: " + op);
+                }
+            }
+            created += flushCreates(pendingCreates);
+
+            int failed = operations.size() - created - updated - deleted;
+            log.info("Operación masiva aplicada: {} altas, {} cambios, {} bajas, {} errores", created, updated, deleted, failed);
+            metrics.created(created);
+            metrics.updated(updated);
+            metrics.deleted(deleted);
+            metrics.bulk(operations.size(), failed);
+            return results;
+        } catch (RuntimeException e) {
+            // Altas con el email reservado que no llegaron a guardarse, como en createUser
+            for (User user : pendingCreates) {
+                emailIndex.remove(user.getId());
+            }
+            throw e;
+        } finally {
+            users.awaitDeferred();
+            metrics.record(Operation.BULK, start);
         }
+    }
 
-        users.remove(id);
-        log.info("Usuario eliminado exitosamente: ID={}", id);
-        meterRegistry.counter("users.deleted").increment();
+    private int flushCreates(List<User> pendingCreates) {
+        if (pendingCreates.isEmpty()) {
+            return 0;
+        }
+        for (User user : pendingCreates) {
+            idFilter.add(user.getId());
+        }
+        List<ReentrantLock> held = lockAll(pendingCreates);
+        try {
+            // Si falla, applyBulk libera los emails de las altas que siguen pendientes
+            users.saveAll(pendingCreates);
+            for (User user : pendingCreates) {
+                published(user);
+                nameIndex.add(user.getId(), user.getName());
+                ageIndex.add(user.getId(), user.getAge());
+                changed(null, user);
+            }
+        } finally {
+            held.forEach(ReentrantLock::unlock);
+        }
+        int flushed = pendingCreates.size();
+        pendingCreates.clear();
+        return flushed;
+    }
+
+    private static boolean isValid(User user) {
+        long start = System.nanoTime();
+        try {
+            return user.isValid();
+        } finally {
+            RequestTrace.record(Phase.VALIDATE, start);
+        }
+    }
+
+    private ReentrantLock lockFor(long id) {
+        return locks[stripe(id)];
+    }
+
+    private static int stripe(long id) {
+        return (int) (id ^ (id >>> 32)) & (LOCK_STRIPES - 1);
+    }
+
+    /**
+     * Toma las franjas de todos los ids del lote en orden ascendente. Ningún otro camino retiene
+     * más de una franja a la vez, así que no puede haber interbloqueo.
+     */
+    private List<ReentrantLock> lockAll(List<User> batch) {
+        boolean[] needed = new boolean[LOCK_STRIPES];
+        for (User user : batch) {
+            needed[stripe(user.getId())] = true;
+        }
+        List<ReentrantLock> held = new ArrayList<>();
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            if (needed[i]) {
+                locks[i].lock();
+                held.add(locks[i]);
+            }
+        }
+        return held;
+    }
+
+    private void published(User user) {
+        ChangeLog changes = changeLog;
+        if (changes != null) {
+            changes.upserted(user);
+        }
+    }
+
+    private void publishedDelete(long id) {
+        ChangeLog changes = changeLog;
+        if (changes != null) {
+            changes.deleted(id);
+        }
+    }
+
+    private void restoreEmail(User previous) {
+        emailIndex.put(previous.getId(), previous.getEmail(), false);
+    }
+
+    private void reserveEmail(User user) {
+        if (!emailIndex.put(user.getId(), user.getEmail(), uniqueEmail)) {
+            log.debug("Email ya registrado: {}", user.getEmail());
+            throw new DuplicateEmailException(user.getEmail());
+        }
+    }
+
+    /**
+     * Lectura, comprobación de versión y escritura de un id como una sola operación atómica (al
+     * estilo de {@code compute}): el cerrojo de la franja cubre el almacén y los índices, así que
+     * dos escritores del mismo id no pueden leer ambos la misma versión. Devuelve 200, 404, 409 o
+     * 412; la versión esperada se comprueba antes de tocar el índice de emails.
+     */
+    private int updateLocked(User user, Long expectedVersion) {
+        ReentrantLock lock = lockFor(user.getId());
+        lock.lock();
+        try {
+            User previous = idFilter.mightContain(user.getId()) ? users.findById(user.getId()).orElse(null) : null;
+            if (previous == null) {
+                return 404;
+            }
+            if (expectedVersion != null && previous.getVersion() != expectedVersion) {
+                metrics.versionConflict();
+                return 412;
+            }
+            if (!emailIndex.put(user.getId(), user.getEmail(), uniqueEmail)) {
+                return 409;
+            }
+            user.setVersion(previous.getVersion() + 1);
+            try {
+                users.save(user);
+            } catch (RuntimeException e) {
+                // El almacén no cambió: el email vuelve a ser del usuario anterior
+                restoreEmail(previous);
+                throw e;
+            }
+            published(user);
+            nameIndex.add(user.getId(), user.getName());
+            ageIndex.move(user.getId(), previous.getAge(), user.getAge());
+            changed(previous, user);
+            return 200;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Elimina el usuario del almacén y de los índices: 200, 404 si no existía o 412. */
+    private int remove(long id, Long expectedVersion) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            if (!idFilter.mightContain(id)) {
+                return 404;
+            }
+            if (expectedVersion != null) {
+                User current = users.findById(id).orElse(null);
+                if (current == null) {
+                    return 404;
+                }
+                if (current.getVersion() != expectedVersion) {
+                    metrics.versionConflict();
+                    return 412;
+                }
+            }
+            User removed = users.deleteById(id);
+            if (removed == null) {
+                return 404;
+            }
+            publishedDelete(id);
+            idFilter.remove(id);
+            nameIndex.remove(id);
+            emailIndex.remove(id);
+            ageIndex.remove(id, removed.getAge());
+            changed(removed, null);
+            return 200;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Guarda usuarios recibidos de otra instancia conservando id y versión. Si el id ya existe
+     * con una versión igual o mayor se mantiene el local. Devuelve cuántos se aplicaron.
+     */
+    public int importUsers(Collection<User> imported) {
+        return importAll(imported, false, null);
+    }
+
+    /**
+     * Como {@link #importUsers}, para usuarios traspasados por otro nodo del clúster: cada uno se
+     * valida y respeta {@code unique-email} igual que en {@link #createUser}. Devuelve los ids
+     * rechazados, que el nodo de origen conserva.
+     */
+    public List<Long> importTransferred(Collection<User> transferred) {
+        List<Long> rejected = new ArrayList<>();
+        importAll(transferred, true, rejected);
+        if (!rejected.isEmpty()) {
+            log.warn("Rechazados {} de {} usuarios traspasados", rejected.size(), transferred.size());
+        }
+        return rejected;
+    }
+
+    private int importAll(Collection<User> imported, boolean checked, List<Long> rejected) {
+        int applied = 0;
+        long maxId = 0L;
+        users.deferDurability();
+        try {
+            for (User user : imported) {
+                int status = importUser(user, checked);
+                if (status == 200) {
+                    applied++;
+                    maxId = Math.max(maxId, user.getId());
+                } else if (status != 304) {
+                    rejected.add(user.getId());
+                }
+            }
+        } finally {
+            users.awaitDeferred();
+        }
+        if (maxId > 0) {
+            idAllocator.advancePast(maxId);
+        }
+        log.info("Importados {} de {} usuarios recibidos", applied, imported.size());
+        return applied;
+    }
+
+    /**
+     * Aplica un usuario con su id y versión: 200, 304 si la versión local es igual o mayor y, si
+     * {@code checked}, 400 para un usuario inválido o 409 si su email ya es de otro usuario.
+     */
+    private int importUser(User user, boolean checked) {
+        if (checked && (user.getId() == null || user.getId() < 1 || user.getVersion() < 1 || !isValid(user))) {
+            return 400;
+        }
+        ReentrantLock lock = lockFor(user.getId());
+        lock.lock();
+        try {
+            User previous = idFilter.mightContain(user.getId()) ? users.findById(user.getId()).orElse(null) : null;
+            if (previous != null && previous.getVersion() >= user.getVersion()) {
+                return 304;
+            }
+            if (!emailIndex.put(user.getId(), user.getEmail(), checked && uniqueEmail)) {
+                return 409;
+            }
+            if (previous == null) {
+                // Un add por alta real: si se repitiera, la baja no devolvería los contadores a cero
+                idFilter.add(user.getId());
+            }
+            try {
+                users.save(user);
+            } catch (RuntimeException e) {
+                if (previous == null) {
+                    emailIndex.remove(user.getId());
+                    idFilter.remove(user.getId());
+                } else {
+                    restoreEmail(previous);
+                }
+                throw e;
+            }
+            published(user);
+            nameIndex.add(user.getId(), user.getName());
+            if (previous == null) {
+                ageIndex.add(user.getId(), user.getAge());
+            } else {
+                ageIndex.move(user.getId(), previous.getAge(), user.getAge());
+            }
+            changed(previous, user);
+            return 200;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Aplica en orden eventos del registro de cambios de otra instancia. Las altas y cambios solo
+     * se aplican si traen una versión mayor que la local, así que reaplicar un evento (por
+     * ejemplo, tras cargar una instantánea más reciente) no retrocede ningún usuario.
+     */
+    public void applyChanges(List<UserChange> changes) {
+        users.deferDurability();
+        try {
+            for (UserChange change : changes) {
+                if (UserChange.DELETE.equals(change.getType())) {
+                    remove(change.getId(), null);
+                } else {
+                    importUser(change.getUser(), false);
+                }
+            }
+        } finally {
+            users.awaitDeferred();
+        }
+        log.debug("Aplicados {} cambios replicados", changes.size());
+    }
+
+    /**
+     * Elimina los usuarios cuyo id no cumple {@code keep} (por ejemplo, los que no venían en una
+     * instantánea) y devuelve cuántos se eliminaron.
+     */
+    public int retainUsers(LongPredicate keep) {
+        List<Long> stale = new ArrayList<>();
+        users.readView().forEach(user -> {
+            if (!keep.test(user.getId())) {
+                stale.add(user.getId());
+            }
+        });
+        users.deferDurability();
+        try {
+            for (long id : stale) {
+                remove(id, null);
+            }
+        } finally {
+            users.awaitDeferred();
+        }
+        return stale.size();
+    }
+
+    /**
+     * Elimina los usuarios traspasados a otra instancia si siguen en la versión copiada. Devuelve
+     * el estado actual de los que cambiaron mientras tanto, para volver a enviarlos.
+     */
+    public List<User> releaseUsers(Collection<User> transferred) {
+        List<User> changed = new ArrayList<>();
+        users.deferDurability();
+        try {
+            for (User user : transferred) {
+                if (remove(user.getId(), user.getVersion()) == 412) {
+                    users.findById(user.getId()).ifPresent(changed::add);
+                }
+            }
+        } finally {
+            users.awaitDeferred();
+        }
+        log.info("Liberados {} usuarios traspasados; {} cambiaron durante la copia",
+                transferred.size() - changed.size(), changed.size());
+        return changed;
+    }
+
+    private static String error(int status) {
+        switch (status) {
+            case 404:
+                return "Usuario no encontrado";
+            case 409:
+                return "Email ya registrado";
+            default:
+                return "Versión obsoleta";
+        }
+    }
+
+    private static void reject(BulkItemResult result, int status, String error) {
+        result.setStatus(status);
+        result.setError(error);
+    }
+
+    /**
+     * Página de usuarios con edad entre {@code minAge} y {@code maxAge} (ambas incluidas), en orden
+     * de id y con id mayor que {@code after}. Solo se leen del almacén los usuarios devueltos.
+     */
+    public List<User> getUsersByAge(int minAge, int maxAge, long after, int limit) {
+        long start = System.nanoTime();
+        try {
+            log.debug("Obteniendo usuarios por edad: {}-{}, after={}, limit={}", minAge, maxAge, after, limit);
+            List<User> page = new ArrayList<>(Math.min(limit, 1024));
+            ageIndex.forEachId(minAge, maxAge, after, id -> {
+                users.findById(id).filter(user -> user.getAge() >= minAge && user.getAge() <= maxAge).ifPresent(page::add);
+                return page.size() < limit;
+            });
+            return page;
+        } finally {
+            metrics.record(Operation.AGE_RANGE, start);
+        }
+    }
+
+    /**
+     * Todos los usuarios con edad en el rango, en orden de id. Cada edad se carga en paralelo.
+     */
+    public List<User> getUsersByAge(int minAge, int maxAge) {
+        long start = System.nanoTime();
+        try {
+            log.info("Obteniendo usuarios por edad: {}-{}", minAge, maxAge);
+            int from = Math.max(0, minAge);
+            int to = Math.min(AgeIndex.MAX_AGE - 1, maxAge);
+            if (from > to) {
+                return new ArrayList<>();
+            }
+            return IntStream.rangeClosed(from, to).parallel()
+                    .mapToObj(age -> {
+                        List<User> ofAge = new ArrayList<>();
+                        for (Long id : ageIndex.idsOfAge(age)) {
+                            users.findById(id).filter(user -> user.getAge() == age).ifPresent(ofAge::add);
+                        }
+                        return ofAge;
+                    })
+                    .flatMap(List::stream)
+                    .sorted(Comparator.comparing(User::getId))
+                    .collect(Collectors.toCollection(ArrayList::new));
+        } finally {
+            metrics.record(Operation.AGE_RANGE, start);
+        }
+    }
+
+    /**
+     * Agregados de edad calculados solo con los contadores del índice, sin leer usuarios.
+     */
+    public AgeStats getAgeStats(int minAge, int maxAge, int bucketWidth) {
+        long start = System.nanoTime();
+        try {
+            int from = Math.max(0, minAge);
+            int to = Math.min(AgeIndex.MAX_AGE - 1, maxAge);
+            int width = Math.max(1, bucketWidth);
+            long[] counts = ageIndex.counts();
+
+            AgeStats stats = new AgeStats();
+            List<AgeStats.Bucket> histogram = new ArrayList<>();
+            long total = 0;
+            long sum = 0;
+            for (int age = from; age <= to; age++) {
+                total += counts[age];
+                sum += counts[age] * age;
+                if (counts[age] > 0) {
+                    stats.setMin(stats.getMin() == null ? age : stats.getMin());
+                    stats.setMax(age);
+                }
+            }
+            for (int bucketStart = from; bucketStart <= to; bucketStart += width) {
+                int bucketEnd = Math.min(to, bucketStart + width - 1);
+                long bucketCount = 0;
+                for (int age = bucketStart; age <= bucketEnd; age++) {
+                    bucketCount += counts[age];
+                }
+                histogram.add(new AgeStats.Bucket(bucketStart, bucketEnd, bucketCount));
+            }
+            stats.setCount(total);
+            stats.setHistogram(histogram);
+            if (total > 0) {
+                stats.setMean((double) sum / total);
+                stats.setP50(percentile(counts, from, to, total, 0.50));
+                stats.setP90(percentile(counts, from, to, total, 0.90));
+                stats.setP99(percentile(counts, from, to, total, 0.99));
+            }
+            return stats;
+        } finally {
+            metrics.record(Operation.AGE_STATS, start);
+        }
+    }
+
+    private static int percentile(long[] counts, int from, int to, long total, double quantile) {
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int age = from; age <= to; age++) {
+            seen += counts[age];
+            if (seen >= rank) {
+                return age;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * Usuarios con el email indicado, sin distinguir mayúsculas ni espacios alrededor. Con la
+     * restricción de unicidad activada devuelve como mucho uno.
+     */
+    public List<User> findUsersByEmail(String email) {
+        long start = System.nanoTime();
+        try {
+            log.debug("Buscando usuarios por email: {}", email);
+            String normalized = EmailIndex.normalize(email);
+            List<User> results = new ArrayList<>(1);
+            for (long id : emailIndex.find(normalized)) {
+                users.findById(id)
+                        .filter(user -> EmailIndex.normalize(user.getEmail()).equals(normalized))
+                        .ifPresent(results::add);
+            }
+            return results;
+        } finally {
+            metrics.record(Operation.GET_BY_EMAIL, start);
+        }
     }
 
     public List<User> searchByName(String name) {
-        log.info("Buscando usuarios por nombre: {}", name);
-        return users.values().stream()
-                .filter(u -> u.getName().toLowerCase().contains(name.toLowerCase()))
-                .collect(Collectors.toList());
+        return searchByName(name, Integer.MAX_VALUE, null).getUsers();
+    }
+
+    /**
+     * Búsqueda por fragmento del nombre que devuelve los {@code limit} usuarios de menor id que
+     * coinciden, o lo encontrado hasta vencer {@code timeout} (sin plazo si es {@code null}). Los
+     * candidatos del índice se recorren en trozos en paralelo contra los nombres ya normalizados;
+     * el resultado va ordenado por id.
+     */
+    public SearchResult searchByName(String name, int limit, Duration timeout) {
+        long start = System.nanoTime();
+        try {
+            log.info("Buscando usuarios por nombre: {}", name);
+            String query = NameIndex.normalize(name);
+            UserRepository view = users.readView();
+            long deadline = timeout == null ? 0L : start + Math.max(1L, timeout.toNanos());
+            SearchResult result = nameSearch.search(nameIndex.candidates(query), id -> {
+                String indexed = nameIndex.nameOf(id);
+                if (indexed == null || !indexed.contains(query)) {
+                    return null;
+                }
+                // Se verifica contra el usuario almacenado para mantener la semántica de contains
+                User user = view.findById(id).orElse(null);
+                return user != null && NameIndex.normalize(user.getName()).contains(query) ? user : null;
+            }, limit, deadline);
+            if (result.isPartial()) {
+                log.warn("Búsqueda por nombre '{}' interrumpida por plazo con {} resultados", name, result.getUsers().size());
+            }
+            return result;
+        } finally {
+            metrics.record(Operation.SEARCH, start);
+        }
     }
 }
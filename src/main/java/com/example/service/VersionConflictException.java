@@ -0,0 +1,12 @@
+package com.example.service;
+
+/**
+ * El registro ya no está en la versión que esperaba el cliente: otro escritor lo cambió antes.
+ * Es un resultado esperado con claves muy disputadas, así que no captura la traza de pila.
+ */
+public class VersionConflictException extends RuntimeException {
+
+    public VersionConflictException(long id, long expectedVersion) {
+        super("Versión obsoleta: ID=" + id + ", esperada=" + expectedVersion, null, false, false);
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.tracing;
+
+/**
+ * Fases en las que se desglosa el tiempo de una petición. Lo que no cae en ninguna (lógica del
+ * controlador y del servicio, índices, framework) se informa como {@code other}.
+ */
+public enum Phase {
+    DESERIALIZE("deserialize"),
+    VALIDATE("validate"),
+    STORE("store"),
+    SERIALIZE("serialize"),
+    LOG("log");
+
+    private final String tag;
+
+    Phase(String tag) {
+        this.tag = tag;
+    }
+
+    public String tag() {
+        return tag;
+    }
+}
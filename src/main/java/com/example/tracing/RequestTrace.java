@@ -0,0 +1,78 @@
+package com.example.tracing;
+
+/**
+ * Tiempos por fase de la petición en curso, ligados al hilo que la atiende. Fuera de una petición
+ * (tareas en segundo plano, tests de servicio) no hay traza y {@link #record} no hace nada, así
+ * que se puede llamar desde cualquier capa sin comprobarlo antes.
+ */
+public final class RequestTrace {
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+    private static final Phase[] PHASES = Phase.values();
+
+    private final long startNanos;
+    private final long[] phaseNanos = new long[PHASES.length];
+    private long serializeStartNanos;
+    private long deserializeStartNanos;
+
+    private RequestTrace(long startNanos) {
+        this.startNanos = startNanos;
+    }
+
+    static RequestTrace begin() {
+        RequestTrace trace = new RequestTrace(System.nanoTime());
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    static RequestTrace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Suma a la fase el tiempo transcurrido desde {@code startNanos} ({@link System#nanoTime()}).
+     */
+    public static void record(Phase phase, long startNanos) {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.phaseNanos[phase.ordinal()] += System.nanoTime() - startNanos;
+        }
+    }
+
+    long startNanos() {
+        return startNanos;
+    }
+
+    long phaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    void deserializeStarted() {
+        deserializeStartNanos = System.nanoTime();
+    }
+
+    void deserializeFinished() {
+        if (deserializeStartNanos != 0) {
+            phaseNanos[Phase.DESERIALIZE.ordinal()] += System.nanoTime() - deserializeStartNanos;
+            deserializeStartNanos = 0;
+        }
+    }
+
+    void serializeStarted() {
+        serializeStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Cierra la fase de serialización: desde que el controlador devolvió el cuerpo hasta que la
+     * respuesta está escrita en el buffer.
+     */
+    void serializeFinished(long nowNanos) {
+        if (serializeStartNanos != 0) {
+            phaseNanos[Phase.SERIALIZE.ordinal()] += nowNanos - serializeStartNanos;
+            serializeStartNanos = 0;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.tracing;
+
+import com.example.model.SlowRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Abre la traza de cada petición, cierra la fase de serialización al volver la cadena y publica
+ * el tiempo de cada fase en {@code http.server.requests.phase} (etiquetas {@code uri} y
+ * {@code phase}). Las peticiones que superan el umbral se guardan en {@link SlowRequestLog}.
+ * Las latencias por endpoint con histograma son las de {@code http.server.requests} de Spring Boot.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.tracing", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RequestTracingFilter extends OncePerRequestFilter {
+    private static final String PHASE_TIMER = "http.server.requests.phase";
+    private static final Phase[] PHASES = Phase.values();
+
+    private final MeterRegistry registry;
+    private final SlowRequestLog slowRequestLog;
+    // Temporizadores ya registrados por endpoint, uno por fase (índice = ordinal), creados al primer uso
+    private final Map<String, Timer[]> phaseTimers = new ConcurrentHashMap<>();
+
+    public RequestTracingFilter(MeterRegistry registry, SlowRequestLog slowRequestLog) {
+        this.registry = registry;
+        this.slowRequestLog = slowRequestLog;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestTrace trace = RequestTrace.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long end = System.nanoTime();
+            trace.serializeFinished(end);
+            RequestTrace.end();
+            finish(trace, end, request, response);
+        }
+    }
+
+    private void finish(RequestTrace trace, long endNanos, HttpServletRequest request, HttpServletResponse response) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        // Sin patrón (404 de rutas desconocidas, recursos estáticos) se agrupa para no disparar etiquetas
+        String endpoint = pattern != null ? pattern.toString() : "UNKNOWN";
+        Timer[] timers = phaseTimers.computeIfAbsent(endpoint, e -> new Timer[PHASES.length]);
+        for (Phase phase : PHASES) {
+            long nanos = trace.phaseNanos(phase);
+            if (nanos > 0) {
+                Timer timer = timers[phase.ordinal()];
+                if (timer == null) {
+                    // Carrera benigna: register devuelve el mismo temporizador a todos los hilos
+                    timer = phaseTimer(endpoint, phase);
+                    timers[phase.ordinal()] = timer;
+                }
+                timer.record(nanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        long total = endNanos - trace.startNanos();
+        if (slowRequestLog.isSlow(total)) {
+            slowRequestLog.add(new SlowRequest(Instant.now(), request.getMethod(), request.getRequestURI(), endpoint,
+                    response.getStatus(), millis(total), phases(trace, total)));
+        }
+    }
+
+    private Timer phaseTimer(String endpoint, Phase phase) {
+        return Timer.builder(PHASE_TIMER)
+                .description("Tiempo de cada fase de las peticiones HTTP")
+                .tags("uri", endpoint, "phase", phase.tag())
+                .register(registry);
+    }
+
+    private static Map<String, Double> phases(RequestTrace trace, long totalNanos) {
+        Map<String, Double> phases = new LinkedHashMap<>();
+        long accounted = 0;
+        for (Phase phase : PHASES) {
+            long nanos = trace.phaseNanos(phase);
+            accounted += nanos;
+            phases.put(phase.tag(), millis(nanos));
+        }
+        phases.put("other", millis(Math.max(0, totalNanos - accounted)));
+        return phases;
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.tracing;
+
+import com.example.model.SlowRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Búfer circular acotado con las últimas peticiones que superaron el umbral de lentitud. Registrar
+ * es una escritura en el array sin cerrojos; las más antiguas se sobrescriben.
+ */
+@Component
+public class SlowRequestLog {
+    private final long thresholdNanos;
+    private final AtomicReferenceArray<SlowRequest> ring;
+    private final AtomicLong next = new AtomicLong();
+
+    public SlowRequestLog(@Value("${app.tracing.slow-threshold:100ms}") Duration threshold,
+                          @Value("${app.tracing.slow-capacity:128}") int capacity) {
+        this.thresholdNanos = threshold.toNanos();
+        this.ring = new AtomicReferenceArray<>(capacity);
+    }
+
+    boolean isSlow(long totalNanos) {
+        return totalNanos >= thresholdNanos;
+    }
+
+    void add(SlowRequest request) {
+        ring.set((int) (next.getAndIncrement() % ring.length()), request);
+    }
+
+    /**
+     * Peticiones retenidas, de la más lenta a la más rápida.
+     */
+    public List<SlowRequest> slowest() {
+        List<SlowRequest> requests = new ArrayList<>(ring.length());
+        for (int i = 0; i < ring.length(); i++) {
+            SlowRequest request = ring.get(i);
+            if (request != null) {
+                requests.add(request);
+            }
+        }
+        requests.sort(Comparator.comparingDouble(SlowRequest::getTotalMs).reversed());
+        return requests;
+    }
+
+    public void clear() {
+        for (int i = 0; i < ring.length(); i++) {
+            ring.set(i, null);
+        }
+    }
+}
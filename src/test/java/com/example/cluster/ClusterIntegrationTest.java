@@ -0,0 +1,154 @@
+package com.example.cluster;
+
+import com.example.MonitoringApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Dos instancias reales en puertos locales: alta de un nodo con traspaso de claves, reenvío al
+ * propietario y consultas de dispersión y reunión.
+ */
+@DisplayName("Tests de Integración del Clúster")
+class ClusterIntegrationTest {
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+    private static final String SECRET = "secreto-de-prueba";
+    // Puertos elegidos antes de arrancar: todos los nodos del test pueden darse de alta
+    private final List<String> members = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    @DisplayName("Un nodo nuevo recibe su parte y las peticiones llegan al propietario")
+    void testJoinForwardAndGather() throws Exception {
+        String a = reserve();
+        String b = reserve();
+        start(a, 0, "");
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            HttpResponse<String> created = send(a, "POST", "/api/users",
+                    "{\"name\":\"Nodo " + i + "\",\"email\":\"nodo" + i + "@example.com\",\"age\":30}", null);
+            assertEquals(201, created.statusCode());
+            ids.add(objectMapper.readTree(created.body()).get("id").asLong());
+        }
+
+        // Al arrancar, b se anuncia a a, que le traspasa las claves que ahora le tocan
+        start(b, 1, a);
+        int localA = json(a, "/api/cluster/nodes").get("localUsers").asInt();
+        int localB = json(b, "/api/cluster/nodes").get("localUsers").asInt();
+        assertEquals(2, json(a, "/api/cluster/nodes").get("nodes").size());
+        assertEquals(60, localA + localB);
+        assertTrue(localA > 0 && localB > 0, localA + "/" + localB);
+
+        for (long id : ids) {
+            for (String node : List.of(a, b)) {
+                HttpResponse<String> user = send(node, "GET", "/api/users/" + id, null, null);
+                assertEquals(200, user.statusCode());
+                assertEquals("\"1\"", user.headers().firstValue("ETag").orElse(null));
+            }
+        }
+
+        JsonNode all = json(b, "/api/users");
+        assertEquals(60, all.size());
+        assertTrue(all.get(0).get("id").asLong() < all.get(59).get("id").asLong());
+        HttpResponse<String> page = send(a, "GET", "/api/users?limit=10", null, null);
+        assertEquals(10, objectMapper.readTree(page.body()).size());
+        assertTrue(page.headers().firstValue("X-Next-Cursor").isPresent());
+        assertEquals(60, json(a, "/api/users/search?name=nodo").size());
+        assertEquals(1, json(b, "/api/users/by-email?email=nodo7@example.com").size());
+
+        // Un cambio condicionado hecho a través de cualquier nodo llega al propietario
+        for (long id : ids.subList(0, 4)) {
+            String body = "{\"name\":\"Cambiado\",\"email\":\"c" + id + "@example.com\",\"age\":40}";
+            assertEquals(200, send(a, "PUT", "/api/users/" + id, body, "\"1\"").statusCode());
+            assertEquals(412, send(b, "PUT", "/api/users/" + id, body, "\"1\"").statusCode());
+            assertEquals(200, send(b, "DELETE", "/api/users/" + id, null, "\"2\"").statusCode());
+        }
+        assertEquals(56, json(a, "/api/users").size());
+    }
+
+    @Test
+    @DisplayName("Las altas y traspasos que no vienen de un nodo del clúster se rechazan")
+    void testRejectsRequestsFromOutsideTheCluster() throws Exception {
+        String a = reserve();
+        String b = reserve();
+        start(a, 0, "");
+        String users = "[{\"id\":5,\"name\":\"Intruso\",\"email\":\"intruso@example.com\",\"age\":30,\"version\":99}]";
+
+        assertEquals(403, send(a, "POST", "/api/cluster/nodes", "{\"url\":\"" + b + "\"}", null).statusCode());
+        assertEquals(403, send(a, "POST", "/api/cluster/_import", users, null).statusCode());
+        HttpResponse<String> forged = client.send(HttpRequest.newBuilder(URI.create(a + "/api/cluster/nodes"))
+                .header("Content-Type", "application/json")
+                .header(ClusterRouter.FORWARDED_HEADER, "true")
+                .header(ClusterRouter.SECRET_HEADER, "otro")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"url\":\"" + b + "\"}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(403, forged.statusCode());
+        HttpResponse<String> unknown = client.send(HttpRequest.newBuilder(URI.create(a + "/api/cluster/nodes"))
+                .header("Content-Type", "application/json")
+                .header(ClusterRouter.FORWARDED_HEADER, "true")
+                .header(ClusterRouter.SECRET_HEADER, SECRET)
+                .POST(HttpRequest.BodyPublishers.ofString("{\"url\":\"http://localhost:1\"}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(403, unknown.statusCode());
+
+        assertEquals(1, json(a, "/api/cluster/nodes").get("nodes").size());
+        assertEquals(404, send(a, "GET", "/api/users/5", null, null).statusCode());
+    }
+
+    private String reserve() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            String node = "http://localhost:" + socket.getLocalPort();
+            members.add(node);
+            return node;
+        }
+    }
+
+    private void start(String self, int nodeId, String knownNodes) {
+        nodes.add(new SpringApplicationBuilder(MonitoringApplication.class).run(
+                "--server.port=" + URI.create(self).getPort(),
+                "--app.cluster.enabled=true",
+                "--app.cluster.self=" + self,
+                "--app.cluster.nodes=" + knownNodes,
+                "--app.cluster.members=" + String.join(",", members),
+                "--app.cluster.secret=" + SECRET,
+                "--app.users.id-allocation.strategy=snowflake",
+                "--app.users.id-allocation.node-id=" + nodeId));
+    }
+
+    private JsonNode json(String node, String path) throws Exception {
+        HttpResponse<String> response = send(node, "GET", path, null, null);
+        assertEquals(200, response.statusCode(), path);
+        return objectMapper.readTree(response.body());
+    }
+
+    private HttpResponse<String> send(String node, String method, String path, String body, String ifMatch) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(node + path))
+                .header("Content-Type", "application/json")
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+        if (ifMatch != null) {
+            request.header("If-Match", ifMatch);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
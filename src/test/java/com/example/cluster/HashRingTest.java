@@ -0,0 +1,60 @@
+package com.example.cluster;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests del Anillo de Hash Consistente")
+class HashRingTest {
+    private static final List<String> NODES = List.of("http://a:8080", "http://b:8080", "http://c:8080");
+    private static final int KEYS = 100_000;
+
+    @Test
+    @DisplayName("El reparto no depende del orden en que se declaran los nodos")
+    void testDeterministic() {
+        HashRing ring = HashRing.of(NODES, 128);
+        HashRing reversed = HashRing.of(List.of(NODES.get(2), NODES.get(1), NODES.get(0)), 128);
+        for (long id = 1; id <= 10_000; id++) {
+            assertEquals(ring.ownerOf(id), reversed.ownerOf(id));
+        }
+    }
+
+    @Test
+    @DisplayName("Con nodos virtuales cada nodo recibe una parte parecida de las claves")
+    void testBalanced() {
+        HashRing ring = HashRing.of(NODES, 128);
+        Map<String, Integer> counts = new HashMap<>();
+        for (long id = 1; id <= KEYS; id++) {
+            counts.merge(ring.ownerOf(id), 1, Integer::sum);
+        }
+        for (String node : NODES) {
+            double share = counts.get(node) / (double) KEYS;
+            assertTrue(share > 0.25 && share < 0.42, node + ": " + share);
+        }
+    }
+
+    @Test
+    @DisplayName("Al añadir un nodo solo se mueven claves hacia él")
+    void testJoinMovesOnlyToNewNode() {
+        HashRing ring = HashRing.of(NODES, 128);
+        HashRing grown = ring.withNode("http://d:8080");
+        int moved = 0;
+        for (long id = 1; id <= KEYS; id++) {
+            String before = ring.ownerOf(id);
+            String after = grown.ownerOf(id);
+            if (!before.equals(after)) {
+                assertEquals("http://d:8080", after);
+                moved++;
+            }
+        }
+        double share = moved / (double) KEYS;
+        assertTrue(share > 0.18 && share < 0.32, "movidas: " + share);
+        assertSame(grown, grown.withNode("http://d:8080"));
+        assertEquals(ring.nodes(), grown.withoutNode("http://d:8080").nodes());
+    }
+}
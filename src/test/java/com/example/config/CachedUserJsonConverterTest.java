@@ -0,0 +1,67 @@
+package com.example.config;
+
+import com.example.model.User;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests del Conversor de JSON Cacheado")
+class CachedUserJsonConverterTest {
+    private static final Type USER_LIST = new TypeReference<List<User>>() { }.getType();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CachedUserJsonConverter converter = new CachedUserJsonConverter(objectMapper, 100);
+
+    @Test
+    @DisplayName("Escribe lo mismo que Jackson para un usuario y para listas")
+    void testMatchesJackson() throws Exception {
+        User juan = new User(1L, "Juan \"Pérez\"", "juan@example.com", 30);
+        User ana = new User(2L, "Ana", "ana@example.com", 25);
+        List<User> users = new ArrayList<>(List.of(juan, ana));
+
+        assertEquals(objectMapper.writeValueAsString(juan), write(juan, User.class));
+        assertEquals(objectMapper.writeValueAsString(users), write(users, USER_LIST));
+        assertEquals("[]", write(new ArrayList<User>(), USER_LIST));
+    }
+
+    @Test
+    @DisplayName("Reutiliza los bytes y los descarta cuando el usuario cambia")
+    void testCachedBytesFollowChanges() throws Exception {
+        User user = new User(1L, "Juan", "juan@example.com", 30);
+        byte[] first = converter.bytes(user);
+        assertSame(first, converter.bytes(new User(1L, "Juan", "juan@example.com", 30)));
+
+        // El almacén en memoria puede devolver la misma instancia modificada
+        user.setName("Juan Actualizado");
+        byte[] updated = converter.bytes(user);
+        assertNotSame(first, updated);
+        assertEquals("Juan Actualizado", objectMapper.readTree(updated).get("name").asText());
+    }
+
+    @Test
+    @DisplayName("Solo escribe User y colecciones de User")
+    void testCanWrite() {
+        assertTrue(converter.canWrite(User.class, User.class, MediaType.APPLICATION_JSON));
+        assertTrue(converter.canWrite(USER_LIST, ArrayList.class, null));
+        assertFalse(converter.canWrite(new TypeReference<List<String>>() { }.getType(), ArrayList.class, null));
+        assertFalse(converter.canWrite(Map.class, Map.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canWrite(User.class, User.class, MediaType.TEXT_PLAIN));
+        assertFalse(converter.canRead(User.class, User.class, MediaType.APPLICATION_JSON));
+    }
+
+    private String write(Object body, Type type) throws Exception {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(body, type, MediaType.APPLICATION_JSON, message);
+        return message.getBodyAsString();
+    }
+}
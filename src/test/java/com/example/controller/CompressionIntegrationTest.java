@@ -0,0 +1,72 @@
+package com.example.controller;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compresión del contenedor real con la configuración por defecto (sin la caché gzip): las listas
+ * llevan una etiqueta débil y Tomcat las comprime al vuelo.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DisplayName("Tests de Integración de la Compresión")
+class CompressionIntegrationTest {
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    @DisplayName("GET /api/users sale comprimida con gzip y responde 304 con su etiqueta")
+    void testListIsCompressed() throws Exception {
+        StringBuilder bulk = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            bulk.append("{\"op\":\"create\",\"user\":{\"name\":\"Comprimido ").append(i)
+                    .append("\",\"email\":\"comprimido").append(i).append("@example.com\",\"age\":30}}\n");
+        }
+        HttpResponse<String> created = client.send(HttpRequest.newBuilder(uri("/api/users/_bulk"))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(bulk.toString()))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, created.statusCode());
+
+        HttpResponse<String> plain = client.send(HttpRequest.newBuilder(uri("/api/users")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        HttpResponse<byte[]> gzip = client.send(HttpRequest.newBuilder(uri("/api/users"))
+                .header("Accept-Encoding", "gzip")
+                .GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(200, gzip.statusCode());
+        assertEquals("gzip", gzip.headers().firstValue("Content-Encoding").orElse(null));
+        String etag = gzip.headers().firstValue("ETag").orElseThrow();
+        assertTrue(etag.startsWith("W/\""), etag);
+        assertEquals(plain.body(), gunzip(gzip.body()));
+
+        HttpResponse<byte[]> notModified = client.send(HttpRequest.newBuilder(uri("/api/users"))
+                .header("Accept-Encoding", "gzip")
+                .header("If-None-Match", etag)
+                .GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(304, notModified.statusCode());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static String gunzip(byte[] body) throws Exception {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -8,13 +8,18 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.example.model.User;
 
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@SpringBootTest
+// Umbral 0: todas las peticiones quedan en /actuator/slowrequests
+@SpringBootTest(properties = "app.tracing.slow-threshold=0ms")
 @AutoConfigureMockMvc
 @DisplayName("Tests de Integración del Controlador")
 class ControllerIntegrationTest {
@@ -53,6 +58,19 @@ class ControllerIntegrationTest {
                 .andExpect(view().name("monitoring"));
     }
 
+    @Test
+    @DisplayName("GET /monitoring/stream abre un stream SSE con el último resumen")
+    void testMonitoringStream() throws Exception {
+        MvcResult result = mockMvc.perform(get("/monitoring/stream").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+                .andReturn();
+
+        String body = result.getResponse().getContentAsString();
+        assertTrue(body.startsWith("event:metrics\ndata:{"), body);
+        assertTrue(body.contains("\"users\":"), body);
+    }
+
     @Test
     @DisplayName("POST /api/users crea nuevo usuario")
     void testCreateUser() throws Exception {
@@ -127,10 +145,314 @@ class ControllerIntegrationTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    @DisplayName("PUT y DELETE con If-Match: 412 si la versión quedó obsoleta")
+    void testIfMatch() throws Exception {
+        String etag = mockMvc.perform(post("/api/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new User(null, "Versionado", "version@example.com", 30))))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("$.version").value(1))
+                .andReturn().getResponse().getHeader("ETag");
+        long id = objectMapper.readTree(mockMvc.perform(get("/api/users/by-email").param("email", "version@example.com"))
+                .andReturn().getResponse().getContentAsString()).get(0).get("id").asLong();
+
+        // La versión del cuerpo se ignora: la decide el servidor
+        mockMvc.perform(put("/api/users/" + id)
+                .header("If-Match", etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Primero\",\"email\":\"version@example.com\",\"age\":31,\"version\":99}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"2\""))
+                .andExpect(jsonPath("$.version").value(2));
+        mockMvc.perform(put("/api/users/" + id)
+                .header("If-Match", etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new User(null, "Segundo", "version@example.com", 32))))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(get("/api/users/" + id))
+                .andExpect(header().string("ETag", "\"2\""))
+                .andExpect(jsonPath("$.name").value("Primero"));
+
+        mockMvc.perform(delete("/api/users/" + id).header("If-Match", "W/\"2\""))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete("/api/users/" + id).header("If-Match", etag))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete("/api/users/" + id).header("If-Match", "\"2\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("GET /api/users filtra por edad y /stats/age agrega")
+    void testAgeQueries() throws Exception {
+        mockMvc.perform(post("/api/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new User(null, "Centenario", "cien@example.com", 120))))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/users").param("minAge", "110").param("maxAge", "130"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.name == 'Centenario')]").exists())
+                .andExpect(jsonPath("$[?(@.age < 110)]").isEmpty());
+        mockMvc.perform(get("/api/users").param("minAge", "110").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+        mockMvc.perform(get("/api/users/stats/age").param("minAge", "110").param("bucket", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").isNumber())
+                .andExpect(jsonPath("$.max").value(120))
+                .andExpect(jsonPath("$.histogram[0].from").value(110));
+    }
+
+    @Test
+    @DisplayName("GET /api/users/by-email busca por email normalizado")
+    void testGetUsersByEmail() throws Exception {
+        User user = new User(null, "Por Email", "Por.Email@Example.com", 25);
+        mockMvc.perform(post("/api/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/users/by-email").param("email", "por.email@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Por Email"));
+        mockMvc.perform(get("/api/users/by-email").param("email", "nadie@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    @DisplayName("GET /api/users/search con límite y plazo")
+    void testSearchWithLimit() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(post("/api/users")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(new User(null, "Limitado " + i, "lim" + i + "@example.com", 40))))
+                    .andExpect(status().isCreated());
+        }
+
+        mockMvc.perform(get("/api/users/search").param("name", "limitado").param("limit", "2").param("timeoutMs", "5000"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Partial-Result"))
+                .andExpect(jsonPath("$.length()").value(2));
+        mockMvc.perform(get("/api/users/search").param("name", "limitado").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("/actuator/slowrequests muestra el desglose por fase")
+    void testSlowRequestsEndpoint() throws Exception {
+        mockMvc.perform(delete("/actuator/slowrequests"))
+                .andExpect(status().is2xxSuccessful());
+        mockMvc.perform(post("/api/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new User(null, "Trazado", "traza@example.com", 33))))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/actuator/slowrequests"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.endpoint == '/api/users' && @.method == 'POST')].status").value(201))
+                .andExpect(jsonPath("$[?(@.method == 'POST')].phasesMs.deserialize").isNotEmpty())
+                .andExpect(jsonPath("$[?(@.method == 'POST')].phasesMs.store").isNotEmpty())
+                .andExpect(jsonPath("$[?(@.method == 'POST')].phasesMs.other").isNotEmpty());
+    }
+
+    @Test
+    @DisplayName("GET, PUT y DELETE de un id inexistente devuelven 404")
+    void testNotFound() throws Exception {
+        long missing = Long.MAX_VALUE - 1;
+        mockMvc.perform(get("/api/users/" + missing))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(put("/api/users/" + missing)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new User(null, "Nadie", "nadie@example.com", 30))))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(delete("/api/users/" + missing))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @DisplayName("Prometheus endpoint accesible")
     void testPrometheusEndpoint() throws Exception {
         mockMvc.perform(get("/actuator/health"))
                 .andExpect(status().isOk());
     }
+
+    @Test
+    @DisplayName("GET /api/users pagina por cursor")
+    void testGetUsersPage() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(post("/api/users")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(new User(null, "Page User", "page@example.com", 25))))
+                    .andExpect(status().isCreated());
+        }
+
+        String cursor = mockMvc.perform(get("/api/users").param("limit", "2").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn()
+                .getResponse()
+                .getHeader("X-Next-Cursor");
+
+        // El contexto se comparte entre tests: se recorre hasta agotar el cursor
+        int pages = 0;
+        while (cursor != null) {
+            assertTrue(++pages < 100);
+            cursor = mockMvc.perform(get("/api/users").param("after", cursor).param("limit", "1000"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$").isArray())
+                    .andReturn()
+                    .getResponse()
+                    .getHeader("X-Next-Cursor");
+        }
+    }
+
+    @Test
+    @DisplayName("GET /api/users transmite NDJSON")
+    void testStreamUsersNdjson() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/users")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(new User(null, "Stream User", "stream" + i + "@example.com", 25))))
+                    .andExpect(status().isCreated());
+        }
+
+        MvcResult result = mockMvc.perform(get("/api/users").accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertTrue(lines.length >= 2);
+        for (String line : lines) {
+            // Sin el separador de valores raíz de Jackson al principio de la línea
+            assertTrue(line.startsWith("{"), line);
+            assertNotNull(objectMapper.readValue(line, User.class).getId());
+        }
+    }
+
+    @Test
+    @DisplayName("POST /api/users/_bulk aplica operaciones mixtas")
+    void testBulkJsonArray() throws Exception {
+        String body = "["
+                + "{\"op\":\"create\",\"user\":{\"name\":\"Bulk Uno\",\"email\":\"uno@example.com\",\"age\":20}},"
+                + "{\"op\":\"create\",\"user\":{\"name\":\"\",\"email\":\"mal@example.com\",\"age\":20}},"
+                + "{\"op\":\"delete\",\"id\":987654321}"
+                + "]";
+
+        mockMvc.perform(post("/api/users/_bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(3))
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.items[0].status").value(201))
+                .andExpect(jsonPath("$.items[0].id").exists())
+                .andExpect(jsonPath("$.items[1].status").value(400))
+                .andExpect(jsonPath("$.items[2].status").value(404));
+    }
+
+    @Test
+    @DisplayName("POST /api/users/_bulk acepta NDJSON")
+    void testBulkNdjson() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 2500; i++) {
+            body.append("{\"op\":\"create\",\"user\":{\"name\":\"Bulk ").append(i)
+                    .append("\",\"email\":\"bulk").append(i).append("@example.com\",\"age\":30}}\n");
+        }
+
+        mockMvc.perform(post("/api/users/_bulk")
+                .contentType("application/x-ndjson")
+                .content(body.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2500))
+                .andExpect(jsonPath("$.failed").value(0))
+                .andExpect(jsonPath("$.items[2499].index").value(2499));
+    }
+
+    @Test
+    @DisplayName("POST /api/users/_bulk con una línea NDJSON inválida responde 400 con lo ya aplicado")
+    void testBulkNdjsonMalformedLine() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 1500; i++) {
+            body.append("{\"op\":\"create\",\"user\":{\"name\":\"Parcial ").append(i)
+                    .append("\",\"email\":\"parcial").append(i).append("@example.com\",\"age\":30}}\n");
+        }
+        body.append("{\"op\":\"create\",\"user\":\n");
+
+        mockMvc.perform(post("/api/users/_bulk")
+                .contentType("application/x-ndjson")
+                .content(body.toString()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.total").value(1500))
+                .andExpect(jsonPath("$.succeeded").value(1500))
+                .andExpect(jsonPath("$.error").exists());
+
+        mockMvc.perform(get("/api/users/search").param("name", "Parcial 1499"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].email").value("parcial1499@example.com"));
+    }
+
+    @Test
+    @DisplayName("GET /users pagina y ordena en el servidor")
+    void testUsersPagePagination() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(post("/api/users")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(new User(null, "Pagina " + i, "pagina" + i + "@example.com", 140 + i))))
+                    .andExpect(status().isCreated());
+        }
+
+        String body = mockMvc.perform(get("/users").param("sort", "age").param("dir", "desc").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("size", 2))
+                .andExpect(model().attribute("page", 0))
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(body.indexOf("pagina2@example.com") < body.indexOf("pagina1@example.com"), body);
+        assertFalse(body.contains("pagina0@example.com"), body);
+        assertTrue(body.contains("id=\"nextPage\""), body);
+
+        // Orden desconocido: por id; página fuera de rango: la última
+        Map<String, Object> last = mockMvc.perform(get("/users").param("sort", "password").param("page", "1000000"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("sort", "id"))
+                .andReturn().getModelAndView().getModel();
+        assertEquals((int) last.get("pages") - 1, last.get("page"));
+    }
+
+    @Test
+    @DisplayName("GET /api/users con If-None-Match responde 304 hasta la siguiente escritura")
+    void testConditionalList() throws Exception {
+        String etag = mockMvc.perform(get("/api/users").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotNull(etag);
+
+        mockMvc.perform(get("/api/users").param("limit", "5").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/users/stats/age").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(post("/api/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new User(null, "Condicional", "condicional@example.com", 33))))
+                .andExpect(status().isCreated());
+        String next = mockMvc.perform(get("/api/users").param("limit", "5").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(etag, next);
+    }
 }
@@ -0,0 +1,99 @@
+package com.example.controller;
+
+import com.example.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {"app.users.gzip-cache.enabled=true", "app.users.gzip-cache.min-response-bytes=1"})
+@AutoConfigureMockMvc
+@DisplayName("Tests de las listas precomprimidas")
+class PrecompressedListFilterTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    @DisplayName("Las listas se comprimen una vez y se sirven desde caché hasta la siguiente escritura")
+    void testGzipList() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            create("Gzip " + i, "gzip" + i + "@example.com");
+        }
+        String plain = mockMvc.perform(get("/api/users").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andReturn().getResponse().getContentAsString();
+
+        MockHttpServletResponse first = gzipGet();
+        assertEquals("gzip", first.getHeader("Content-Encoding"));
+        assertEquals("Accept-Encoding", first.getHeader("Vary"));
+        assertNotNull(first.getHeader("X-Next-Cursor"));
+        assertTrue(first.getHeader("ETag").endsWith("-gzip\""), first.getHeader("ETag"));
+        assertEquals(plain, gunzip(first.getContentAsByteArray()));
+
+        MockHttpServletResponse second = gzipGet();
+        assertArrayEquals(first.getContentAsByteArray(), second.getContentAsByteArray());
+        assertEquals(first.getHeader("X-Next-Cursor"), second.getHeader("X-Next-Cursor"));
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "users-gzip").tag("result", "hit")
+                .functionCounter().count());
+
+        mockMvc.perform(get("/api/users").param("limit", "2")
+                        .header("Accept-Encoding", "gzip")
+                        .header("If-None-Match", first.getHeader("ETag")))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        create("Gzip nuevo", "gzip-nuevo@example.com");
+        assertNotEquals(first.getHeader("ETag"), gzipGet().getHeader("ETag"));
+    }
+
+    @Test
+    @DisplayName("Accept-Encoding con gzip;q=0 o sin gzip no se comprime")
+    void testAcceptsGzip() {
+        assertTrue(PrecompressedListFilter.acceptsGzip("gzip, deflate, br"));
+        assertTrue(PrecompressedListFilter.acceptsGzip("br;q=1.0, gzip;q=0.8"));
+        assertFalse(PrecompressedListFilter.acceptsGzip("gzip;q=0"));
+        assertFalse(PrecompressedListFilter.acceptsGzip("br, identity"));
+        assertFalse(PrecompressedListFilter.acceptsGzip(null));
+    }
+
+    private MockHttpServletResponse gzipGet() throws Exception {
+        return mockMvc.perform(get("/api/users").param("limit", "2").header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+    }
+
+    private void create(String name, String email) throws Exception {
+        mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new User(null, name, email, 30))))
+                .andExpect(status().isCreated());
+    }
+
+    private static String gunzip(byte[] body) throws Exception {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
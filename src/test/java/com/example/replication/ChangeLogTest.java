@@ -0,0 +1,108 @@
+package com.example.replication;
+
+import com.example.model.User;
+import com.example.model.UserChange;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests del Registro de Cambios")
+class ChangeLogTest {
+
+    @Test
+    @DisplayName("Eventos en orden de secuencia a partir de un punto")
+    void testSince() throws InterruptedException {
+        ChangeLog log = new ChangeLog(8);
+        log.upserted(new User(1L, "Juan", "juan@example.com", 30, 1L));
+        log.upserted(new User(2L, "María", "maria@example.com", 25, 1L));
+        log.deleted(1L);
+
+        List<UserChange> changes = log.since(1, 10, 0);
+        assertEquals(List.of(2L, 3L), changes.stream().map(UserChange::getSeq).toList());
+        assertEquals(UserChange.DELETE, changes.get(1).getType());
+        assertEquals(1L, changes.get(1).getId());
+        assertEquals(1, log.since(0, 1, 0).size());
+        assertTrue(log.since(3, 10, 0).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Un punto sobrescrito o posterior al último pide instantánea")
+    void testOverwritten() throws InterruptedException {
+        ChangeLog log = new ChangeLog(4);
+        for (long id = 1; id <= 10; id++) {
+            log.upserted(new User(id, "Usuario", "u@example.com", 30, 1L));
+        }
+
+        assertNull(log.since(5, 10, 0));
+        assertEquals(4, log.since(6, 10, 0).size());
+        assertNull(log.since(11, 10, 0));
+    }
+
+    @Test
+    @DisplayName("La consulta larga despierta con el siguiente cambio")
+    void testLongPoll() throws Exception {
+        ChangeLog log = new ChangeLog(4);
+        CompletableFuture<List<UserChange>> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return log.since(0, 10, 10_000);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(100);
+        log.upserted(new User(7L, "Tarde", "t@example.com", 30, 1L));
+
+        assertEquals(7L, waiting.get(5, TimeUnit.SECONDS).get(0).getId());
+    }
+
+    @Test
+    @DisplayName("Escritores concurrentes publican secuencias contiguas mientras una réplica espera")
+    void testConcurrentAppendsWithWaitingReader() throws Exception {
+        ChangeLog log = new ChangeLog(4096);
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            Future<List<Long>> reader = executor.submit(() -> {
+                List<Long> seen = new ArrayList<>();
+                long after = 0;
+                while (after < 4000) {
+                    List<UserChange> changes = log.since(after, 100, 5_000);
+                    for (UserChange change : changes) {
+                        seen.add(change.getSeq());
+                    }
+                    after += changes.size();
+                }
+                return seen;
+            });
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < 4; w++) {
+                long base = w * 1000L;
+                writers.add(executor.submit(() -> {
+                    for (long id = 1; id <= 1000; id++) {
+                        log.upserted(new User(base + id, "Usuario", "u@example.com", 30, 1L));
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get(10, TimeUnit.SECONDS);
+            }
+
+            List<Long> seen = reader.get(10, TimeUnit.SECONDS);
+            assertEquals(4000, seen.size());
+            for (int i = 0; i < seen.size(); i++) {
+                assertEquals(i + 1, seen.get(i));
+            }
+            assertEquals(4000, log.lastSeq());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.replication;
+
+import com.example.MonitoringApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Líder y réplica reales en puertos locales: arranque desde instantánea, cambios por el registro
+ * con consultas largas y redirección de escrituras al líder.
+ */
+@DisplayName("Tests de Integración de la Replicación")
+class ReplicationIntegrationTest {
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<ConfigurableApplicationContext> instances = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        instances.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    @DisplayName("La réplica arranca de una instantánea y sigue los cambios del líder")
+    void testFollowLeader() throws Exception {
+        String leader = start("--app.replication.role=leader", "--app.replication.log-capacity=16");
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            ids.add(create(leader, "Antes " + i, "antes" + i + "@example.com"));
+        }
+
+        String follower = start("--app.replication.role=follower", "--app.replication.leader-url=" + leader,
+                "--app.replication.poll-wait=200ms");
+        waitUntil(() -> count(follower) == 40);
+
+        long created = create(leader, "Después", "despues@example.com");
+        HttpResponse<String> update = send(leader, "PUT", "/api/users/" + ids.get(0),
+                "{\"name\":\"Cambiado\",\"email\":\"antes0@example.com\",\"age\":41}");
+        assertEquals(200, update.statusCode());
+        assertEquals(200, send(leader, "DELETE", "/api/users/" + ids.get(1), null).statusCode());
+
+        waitUntil(() -> count(follower) == 40 && status(follower, "/api/users/" + ids.get(1)) == 404);
+        HttpResponse<String> replicated = send(follower, "GET", "/api/users/" + ids.get(0), null);
+        assertEquals("Cambiado", objectMapper.readTree(replicated.body()).get("name").asText());
+        assertEquals("\"2\"", replicated.headers().firstValue("ETag").orElse(null));
+        assertTrue(replicated.headers().firstValue(ReplicaRoutingFilter.STALENESS_HEADER).isPresent());
+        assertEquals(200, status(follower, "/api/users/" + created));
+        assertEquals(1, json(follower, "/api/users/search?name=despu").size());
+
+        // Las escrituras en la réplica se redirigen al líder
+        HttpResponse<String> write = send(follower, "DELETE", "/api/users/" + created, null);
+        assertEquals(307, write.statusCode());
+        assertEquals(leader + "/api/users/" + created, write.headers().firstValue("Location").orElse(null));
+
+        MeterRegistry registry = instances.get(1).getBean(MeterRegistry.class);
+        assertEquals(0.0, registry.get("replication.lag.events").gauge().value());
+        assertEquals(1.0, registry.get("replication.snapshots").counter().count());
+    }
+
+    private String start(String... args) throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> all = new ArrayList<>(List.of(args));
+        all.add("--server.port=" + port);
+        instances.add(new SpringApplicationBuilder(MonitoringApplication.class).run(all.toArray(new String[0])));
+        return "http://localhost:" + port;
+    }
+
+    private long create(String node, String name, String email) throws Exception {
+        HttpResponse<String> created = send(node, "POST", "/api/users",
+                "{\"name\":\"" + name + "\",\"email\":\"" + email + "\",\"age\":30}");
+        assertEquals(201, created.statusCode());
+        return objectMapper.readTree(created.body()).get("id").asLong();
+    }
+
+    private int count(String node) {
+        try {
+            // Mientras la réplica no alcanza al líder redirige las lecturas (307)
+            HttpResponse<String> response = send(node, "GET", "/api/users", null);
+            return response.statusCode() == 200 ? objectMapper.readTree(response.body()).size() : -1;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private int status(String node, String path) {
+        try {
+            return send(node, "GET", path, null).statusCode();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private JsonNode json(String node, String path) throws Exception {
+        HttpResponse<String> response = send(node, "GET", path, null);
+        assertEquals(200, response.statusCode(), path);
+        return objectMapper.readTree(response.body());
+    }
+
+    private HttpResponse<String> send(String node, String method, String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(node + path))
+                .header("Content-Type", "application/json")
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 15_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "La réplica no alcanzó al líder a tiempo");
+            Thread.sleep(50);
+        }
+    }
+}
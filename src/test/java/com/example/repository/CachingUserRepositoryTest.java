@@ -0,0 +1,114 @@
+package com.example.repository;
+
+import com.example.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests de la Caché de Usuarios")
+class CachingUserRepositoryTest {
+
+    /** Almacén que cuenta las lecturas y puede retenerlas hasta abrir el cerrojo. */
+    static class CountingRepository extends InMemoryUserRepository {
+        final AtomicInteger reads = new AtomicInteger();
+        volatile CountDownLatch gate = new CountDownLatch(0);
+
+        @Override
+        public Optional<User> findById(long id) {
+            reads.incrementAndGet();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.findById(id);
+        }
+    }
+
+    @Test
+    @DisplayName("Las lecturas repetidas no llegan al almacén")
+    void testReadThrough() {
+        CountingRepository store = new CountingRepository();
+        CachingUserRepository cache = new CachingUserRepository(store, 100, 0, Duration.ofMinutes(1));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindMetrics(registry);
+        cache.save(new User(1L, "Juan", "juan@example.com", 30));
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("Juan", cache.findById(1L).orElseThrow().getName());
+        }
+
+        assertEquals(1, store.reads.get());
+        assertEquals(9, registry.get("cache.gets").tag("cache", "users").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("Modificar y eliminar invalidan la entrada")
+    void testInvalidateOnWrite() {
+        CachingUserRepository cache = new CachingUserRepository(new CountingRepository(), 100, 0, Duration.ofMinutes(1));
+        cache.save(new User(1L, "Juan", "juan@example.com", 30));
+        cache.findById(1L);
+
+        cache.save(new User(1L, "Juan Actualizado", "juan@example.com", 31));
+        assertEquals("Juan Actualizado", cache.findById(1L).orElseThrow().getName());
+
+        cache.deleteById(1L);
+        assertFalse(cache.findById(1L).isPresent());
+        assertFalse(cache.existsById(1L));
+    }
+
+    @Test
+    @DisplayName("Un fallo con muchas lecturas simultáneas carga una sola vez")
+    void testSingleLoadOnConcurrentMiss() throws Exception {
+        CountingRepository store = new CountingRepository();
+        CachingUserRepository cache = new CachingUserRepository(store, 100, 0, Duration.ofMinutes(1));
+        store.save(new User(1L, "Juan", "juan@example.com", 30));
+        store.gate = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<?>[] readers = new Future<?>[8];
+            for (int i = 0; i < readers.length; i++) {
+                readers[i] = executor.submit(() -> assertEquals("Juan", cache.findById(1L).orElseThrow().getName()));
+            }
+            Thread.sleep(100);
+            store.gate.countDown();
+            for (Future<?> reader : readers) {
+                reader.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, store.reads.get());
+    }
+
+    @Test
+    @DisplayName("El límite por peso expulsa entradas")
+    void testWeightBound() {
+        CachingUserRepository cache = new CachingUserRepository(new InMemoryUserRepository(), 0, 2_000, Duration.ZERO);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindMetrics(registry);
+        for (long id = 1; id <= 200; id++) {
+            cache.save(new User(id, "Usuario " + id, "u" + id + "@example.com", 20));
+            cache.findById(id);
+        }
+
+        assertEquals(200, cache.count());
+        for (long id = 1; id <= 200; id++) {
+            assertTrue(cache.findById(id).isPresent());
+        }
+        assertTrue(registry.get("cache.evictions").tag("cache", "users").functionCounter().count() > 0);
+    }
+}
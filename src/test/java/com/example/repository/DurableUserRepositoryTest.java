@@ -0,0 +1,148 @@
+package com.example.repository;
+
+import com.example.model.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests de Persistencia de Usuarios")
+class DurableUserRepositoryTest {
+    @TempDir
+    Path directory;
+
+    private DurableUserRepository open() throws IOException {
+        return new DurableUserRepository(new InMemoryUserRepository(), directory, 4096, true,
+                Duration.ofMillis(1), Duration.ofHours(1), Long.MAX_VALUE, Executors.defaultThreadFactory());
+    }
+
+    @Test
+    @DisplayName("Recupera altas, cambios y bajas tras reiniciar")
+    void testRecoverFromLog() throws IOException {
+        try (DurableUserRepository repository = open()) {
+            // Segmentos de 4 KB para forzar varias rotaciones del log
+            for (long id = 1; id <= 200; id++) {
+                repository.save(new User(id, "Usuario " + id, "u" + id + "@example.com", 20));
+            }
+            repository.save(new User(5L, "Cambiado", "cambiado@example.com", 40, 2L));
+            repository.deleteById(6L);
+        }
+
+        try (DurableUserRepository repository = open()) {
+            assertEquals(199, repository.count());
+            assertEquals("Cambiado", repository.findById(5L).orElseThrow().getName());
+            assertEquals(2L, repository.findById(5L).orElseThrow().getVersion());
+            assertFalse(repository.existsById(6L));
+        }
+    }
+
+    @Test
+    @DisplayName("Con la durabilidad aplazada, save no espera al disco y awaitDeferred sí")
+    void testDeferredDurability() throws Exception {
+        // Sin volcado periódico: solo close fuerza el log a disco
+        DurableUserRepository repository = new DurableUserRepository(new InMemoryUserRepository(), directory, 4096,
+                true, Duration.ofHours(1), Duration.ofHours(1), Long.MAX_VALUE, Executors.defaultThreadFactory());
+        CountDownLatch saved = new CountDownLatch(1);
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            repository.deferDurability();
+            repository.deferDurability();
+            repository.save(new User(1L, "Aplazado", "aplazado@example.com", 30));
+            saved.countDown();
+            // El cierre interno no espera; el externo sí
+            repository.awaitDeferred();
+            assertEquals(1, repository.count());
+            repository.awaitDeferred();
+        });
+
+        assertTrue(saved.await(5, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        assertFalse(writer.isDone());
+
+        repository.close();
+        writer.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Recupera desde instantánea más la cola del log")
+    void testRecoverFromSnapshotAndTail() throws IOException {
+        try (DurableUserRepository repository = open()) {
+            for (long id = 1; id <= 100; id++) {
+                repository.save(new User(id, "Usuario " + id, "u" + id + "@example.com", 20));
+            }
+            repository.snapshot();
+            repository.save(new User(101L, "Tras instantánea", "t@example.com", 30, 3L));
+            repository.deleteById(1L);
+        }
+
+        assertEquals(1, WriteAheadLog.existingSegments(directory).size());
+
+        try (DurableUserRepository repository = open()) {
+            assertEquals(100, repository.count());
+            assertEquals(3L, repository.findById(101L).orElseThrow().getVersion());
+            assertFalse(repository.existsById(1L));
+        }
+    }
+
+    @Test
+    @DisplayName("Una cola corrupta no impide recuperar los registros válidos")
+    void testRecoverWithTornTail() throws IOException {
+        try (DurableUserRepository repository = open()) {
+            repository.save(new User(1L, "Juan", "juan@example.com", 30));
+            repository.save(new User(2L, "María", "maria@example.com", 25));
+        }
+
+        List<Long> segments = WriteAheadLog.existingSegments(directory);
+        Path segment = WriteAheadLog.segmentPath(directory, segments.get(segments.size() - 1));
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Se corrompe el último byte del segundo registro para simular una escritura a medias
+            int first = UserRecordCodec.encodeUpsert(new User(1L, "Juan", "juan@example.com", 30)).length;
+            int second = UserRecordCodec.encodeUpsert(new User(2L, "María", "maria@example.com", 25)).length;
+            channel.write(ByteBuffer.wrap(new byte[]{42}), first + second - 1);
+        }
+
+        try (DurableUserRepository repository = open()) {
+            assertEquals(1, repository.count());
+            assertTrue(repository.existsById(1L));
+            repository.save(new User(3L, "Pedro", "pedro@example.com", 35));
+        }
+
+        try (DurableUserRepository repository = open()) {
+            assertEquals(2, repository.count());
+            assertTrue(repository.existsById(3L));
+        }
+    }
+
+    @Test
+    @DisplayName("Un fallo al forzar el log llega a los escritores que esperan")
+    void testFlushFailureReachesWaiters() throws Exception {
+        try (WriteAheadLog wal = new WriteAheadLog(directory, 4096, 0)) {
+            long sequence = wal.append(UserRecordCodec.encodeDelete(1L));
+            CompletableFuture<Void> waiter = CompletableFuture.runAsync(() -> wal.awaitDurable(sequence));
+            Thread.sleep(100);
+            assertFalse(waiter.isDone());
+
+            wal.fail(new IOException("Disco lleno"));
+
+            ExecutionException error = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(UncheckedIOException.class, error.getCause());
+            long next = wal.append(UserRecordCodec.encodeDelete(2L));
+            wal.flush();
+            assertThrows(UncheckedIOException.class, () -> wal.awaitDurable(next));
+        }
+    }
+}
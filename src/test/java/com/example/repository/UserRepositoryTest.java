@@ -0,0 +1,179 @@
+package com.example.repository;
+
+import com.example.model.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests de los Almacenes de Usuarios")
+class UserRepositoryTest {
+
+    static Stream<UserRepository> repositories() {
+        return Stream.of(
+                new InMemoryUserRepository(),
+                // Bloques pequeños para forzar varios bloques y la compactación del arena
+                new OffHeapUserRepository(8, 256),
+                new CachingUserRepository(new InMemoryUserRepository(), 4, 0, Duration.ofMinutes(1)),
+                new PersistentUserRepository());
+    }
+
+    @ParameterizedTest
+    @MethodSource("repositories")
+    @DisplayName("Guardar, leer, reemplazar y eliminar")
+    void testCrud(UserRepository repository) {
+        repository.save(new User(1L, "Juan Pérez", "juan@example.com", 30));
+        repository.save(new User(2L, "María", "maria@example.com", 25));
+
+        assertEquals(2, repository.count());
+        assertEquals("Juan Pérez", repository.findById(1L).orElseThrow().getName());
+        assertTrue(repository.existsById(2L));
+
+        repository.save(new User(1L, "Juan Actualizado", "juan2@example.com", 31, 2L));
+        User updated = repository.findById(1L).orElseThrow();
+        assertEquals("Juan Actualizado", updated.getName());
+        assertEquals("juan2@example.com", updated.getEmail());
+        assertEquals(31, updated.getAge());
+        assertEquals(2L, updated.getVersion());
+        assertEquals(2, repository.count());
+
+        assertEquals("María", repository.deleteById(2L).getName());
+        assertNull(repository.deleteById(2L));
+        assertFalse(repository.findById(2L).isPresent());
+        assertEquals(1, repository.count());
+    }
+
+    @ParameterizedTest
+    @MethodSource("repositories")
+    @DisplayName("Paginación por clave en orden de id")
+    void testFindPage(UserRepository repository) {
+        for (long id = 20; id >= 1; id--) {
+            repository.save(new User(id, "User " + id, "user" + id + "@example.com", 20));
+        }
+
+        List<User> page = repository.findPage(5L, 3);
+
+        assertEquals(List.of(6L, 7L, 8L), page.stream().map(User::getId).toList());
+        assertEquals(20, repository.findAll().size());
+    }
+
+    @ParameterizedTest
+    @MethodSource("repositories")
+    @DisplayName("Operaciones aleatorias coinciden con un mapa de referencia")
+    void testRandomOperationsMatchModel(UserRepository repository) {
+        Map<Long, User> model = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            long id = 1 + random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                User removed = repository.deleteById(id);
+                assertEquals(model.remove(id), removed);
+            } else {
+                User user = new User(id, "Nombre " + random.nextInt(), "u" + i + "@example.com", 1 + random.nextInt(100));
+                repository.save(user);
+                model.put(id, user);
+            }
+        }
+
+        assertEquals(model.size(), repository.count());
+        for (Map.Entry<Long, User> entry : model.entrySet()) {
+            assertEquals(entry.getValue(), repository.findById(entry.getKey()).orElseThrow());
+        }
+        Map<Long, User> iterated = new HashMap<>();
+        repository.forEach(user -> iterated.put(user.getId(), user));
+        assertEquals(model, iterated);
+    }
+
+    @ParameterizedTest
+    @MethodSource("repositories")
+    @DisplayName("Las páginas siguen el orden de id con altas desordenadas y bajas")
+    void testFindPageMatchesModel(UserRepository repository) {
+        TreeMap<Long, User> model = new TreeMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 12_000; i++) {
+            // Ids crecientes con altas atrasadas y bajas intercaladas
+            long id = random.nextInt(4) == 0 ? 1 + random.nextInt(i + 1) : i + 1;
+            if (random.nextInt(4) == 0) {
+                assertEquals(model.remove(id), repository.deleteById(id));
+            } else {
+                User user = new User(id, "Usuario " + id, "u" + id + "@example.com", 30);
+                repository.save(user);
+                model.put(id, user);
+            }
+        }
+
+        // Baja masiva (poda los ids borrados) y realtas desordenadas (llenan el búfer de pendientes)
+        for (long id = 1; id <= 12_000; id++) {
+            if (id % 5 != 0) {
+                assertEquals(model.remove(id), repository.deleteById(id));
+            }
+        }
+        for (int i = 0; i < 8_000; i++) {
+            long id = 1 + random.nextInt(12_000);
+            User user = new User(id, "Realta " + id, "r" + id + "@example.com", 30);
+            repository.save(user);
+            model.put(id, user);
+        }
+
+        List<User> pages = new ArrayList<>();
+        long after = 0;
+        for (List<User> page; !(page = repository.findPage(after, 700)).isEmpty(); ) {
+            pages.addAll(page);
+            after = page.get(page.size() - 1).getId();
+        }
+        assertEquals(new ArrayList<>(model.values()), pages);
+        assertEquals(List.copyOf(model.tailMap(5_000L, false).values()).subList(0, 3),
+                repository.findPage(5_000L, 3));
+    }
+
+    @Test
+    @DisplayName("El almacén fuera del heap reserva memoria directa")
+    void testOffHeapReservesDirectMemory() {
+        OffHeapUserRepository repository = new OffHeapUserRepository(4, 64);
+        for (long id = 1; id <= 10; id++) {
+            repository.save(new User(id, "Juan", "juan@example.com", 30));
+        }
+
+        assertTrue(repository.offHeapBytes() >= 3L * 4 * OffHeapUserRepository.RECORD_SIZE);
+    }
+
+    @Test
+    @DisplayName("La instantánea del almacén persistente no ve escrituras posteriores")
+    void testPersistentSnapshotIsolation() {
+        PersistentUserRepository repository = new PersistentUserRepository();
+        // Ids dispersos para forzar el crecimiento del trie por arriba
+        long[] ids = {3L, 40L, 1L << 20, 1L << 40, Long.MAX_VALUE};
+        for (long id : ids) {
+            repository.save(new User(id, "User " + id, "user" + id + "@example.com", 20));
+        }
+
+        UserRepository snapshot = repository.readView();
+        repository.deleteById(40L);
+        repository.save(new User(3L, "Cambiado", "c@example.com", 21));
+        repository.save(new User(7L, "Nuevo", "n@example.com", 22));
+
+        assertEquals(5, snapshot.count());
+        assertEquals("User 3", snapshot.findById(3L).orElseThrow().getName());
+        assertTrue(snapshot.existsById(40L));
+        assertFalse(snapshot.existsById(7L));
+        assertEquals(List.of(3L, 40L, 1L << 20, 1L << 40, Long.MAX_VALUE),
+                snapshot.findAll().stream().map(User::getId).toList());
+        assertEquals(List.of(1L << 40, Long.MAX_VALUE),
+                snapshot.findPage(1L << 20, 10).stream().map(User::getId).toList());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.deleteById(3L));
+
+        assertEquals(List.of(3L, 7L, 1L << 20), repository.findPage(0L, 3).stream().map(User::getId).toList());
+        assertEquals("Cambiado", repository.findById(3L).orElseThrow().getName());
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests de Asignación de IDs")
+class IdAllocatorTest {
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 500_000;
+
+    @Test
+    @DisplayName("Asignador por bloques sin duplicados y creciente por hilo bajo concurrencia")
+    void testBlockAllocatorConcurrentUniqueness() throws Exception {
+        assertUniqueAndMonotonic(new BlockIdAllocator());
+        // Bloques pequeños y pocas franjas: muchos cambios de bloque compartidos entre hilos
+        assertUniqueAndMonotonic(new BlockIdAllocator(8, 2));
+    }
+
+    @Test
+    @DisplayName("Asignador Snowflake sin duplicados y creciente por hilo bajo concurrencia")
+    void testSnowflakeAllocatorConcurrentUniqueness() throws Exception {
+        assertUniqueAndMonotonic(new SnowflakeIdAllocator(7));
+    }
+
+    @Test
+    @DisplayName("Asignador por bloques empieza en 1 con un solo hilo")
+    void testBlockAllocatorSequentialStart() {
+        BlockIdAllocator allocator = new BlockIdAllocator(4, 1);
+
+        assertEquals(1L, allocator.nextId());
+        assertEquals(2L, allocator.nextId());
+        assertEquals(3L, allocator.nextId());
+        assertEquals(4L, allocator.nextId());
+        assertEquals(5L, allocator.nextId());
+    }
+
+    @Test
+    @DisplayName("advancePast evita reutilizar ids existentes")
+    void testAdvancePast() {
+        BlockIdAllocator block = new BlockIdAllocator(16, 2);
+        block.nextId();
+        block.advancePast(1000L);
+        assertTrue(block.nextId() > 1000L);
+
+        SnowflakeIdAllocator snowflake = new SnowflakeIdAllocator(1, () -> SnowflakeIdAllocator.EPOCH);
+        long future = snowflake.nextId() + (1L << 30);
+        snowflake.advancePast(future);
+        assertTrue(snowflake.nextId() > future);
+    }
+
+    @Test
+    @DisplayName("advancePast con otros hilos asignando: nada posterior queda por debajo del límite")
+    void testBlockAdvancePastConcurrent() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            BlockIdAllocator allocator = new BlockIdAllocator(4, 2);
+            long watermark = 1_000_000L * (round + 1);
+            AtomicBoolean advanced = new AtomicBoolean();
+            AtomicLong belowWatermark = new AtomicLong();
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            try {
+                Future<?>[] futures = new Future<?>[THREADS];
+                for (int t = 0; t < THREADS; t++) {
+                    futures[t] = executor.submit(() -> {
+                        start.await();
+                        for (int i = 0; i < 20_000; i++) {
+                            boolean after = advanced.get();
+                            long id = allocator.nextId();
+                            if (after && id <= watermark) {
+                                belowWatermark.incrementAndGet();
+                            }
+                        }
+                        return null;
+                    });
+                }
+                start.countDown();
+                allocator.advancePast(watermark);
+                advanced.set(true);
+                for (Future<?> future : futures) {
+                    future.get(60, TimeUnit.SECONDS);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            assertEquals(0, belowWatermark.get(), "ids por debajo de " + watermark);
+            assertTrue(allocator.nextId() > watermark);
+        }
+    }
+
+    @Test
+    @DisplayName("Snowflake toma prestado el siguiente milisegundo al agotar la secuencia")
+    void testSnowflakeSequenceOverflow() {
+        SnowflakeIdAllocator allocator = new SnowflakeIdAllocator(3, () -> SnowflakeIdAllocator.EPOCH + 10);
+        long previous = -1;
+        for (int i = 0; i < 3 * (SnowflakeIdAllocator.SEQUENCE_MASK + 1); i++) {
+            long id = allocator.nextId();
+            assertTrue(id > previous);
+            assertEquals(3L, (id >>> SnowflakeIdAllocator.SEQUENCE_BITS) & SnowflakeIdAllocator.MAX_NODE);
+            previous = id;
+        }
+    }
+
+    private void assertUniqueAndMonotonic(IdAllocator allocator) throws Exception {
+        long[][] perThread = new long[THREADS][IDS_PER_THREAD];
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            Future<?>[] futures = new Future<?>[THREADS];
+            for (int t = 0; t < THREADS; t++) {
+                long[] ids = perThread[t];
+                futures[t] = executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = allocator.nextId();
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long[] all = new long[THREADS * IDS_PER_THREAD];
+        for (int t = 0; t < THREADS; t++) {
+            long[] ids = perThread[t];
+            for (int i = 1; i < ids.length; i++) {
+                assertTrue(ids[i] > ids[i - 1], "ID no creciente en el hilo " + t + ": " + ids[i - 1] + " -> " + ids[i]);
+            }
+            System.arraycopy(ids, 0, all, t * IDS_PER_THREAD, IDS_PER_THREAD);
+        }
+        Arrays.sort(all);
+        for (int i = 1; i < all.length; i++) {
+            assertNotEquals(all[i - 1], all[i], "ID duplicado: " + all[i]);
+        }
+        assertTrue(all[0] > 0);
+    }
+}
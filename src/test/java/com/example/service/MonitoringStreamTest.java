@@ -0,0 +1,120 @@
+package com.example.service;
+
+import com.example.model.MonitoringUpdate;
+import com.example.model.User;
+import com.example.service.UserMetrics.Operation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests del Stream de Monitoreo")
+class MonitoringStreamTest {
+    private UserMetrics metrics;
+    private UserService userService;
+    private MonitoringStream stream;
+
+    @BeforeEach
+    void setUp() {
+        // Los percentiles no dependen del registro: el simple no publica histogramas
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        metrics = new UserMetrics(registry);
+        userService = new UserService(registry);
+        // Intervalo largo: el test llama a sample() y tick() directamente
+        stream = new MonitoringStream(userService, metrics, new ObjectMapper(), Duration.ofHours(1),
+                Duration.ofMillis(100));
+    }
+
+    @AfterEach
+    void tearDown() {
+        stream.close();
+    }
+
+    @Test
+    @DisplayName("Solo incluye las operaciones con actividad en el intervalo")
+    void testSampleReportsIntervalActivity() {
+        stream.sample();
+        for (int i = 0; i < 99; i++) {
+            metrics.recordNanos(Operation.GET, TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        metrics.recordNanos(Operation.GET, TimeUnit.MILLISECONDS.toNanos(500));
+        metrics.created(3);
+
+        MonitoringUpdate update = stream.sample();
+
+        assertEquals(3, update.getCreated());
+        assertEquals(1, update.getOperations().size());
+        MonitoringUpdate.OperationStats get = update.getOperations().get("get");
+        assertTrue(get.getRate() > 0);
+        assertEquals(5.99, get.getMeanMs(), 0.01);
+        assertTrue(get.getP50Ms() >= 1 && get.getP50Ms() < 2, "p50=" + get.getP50Ms());
+        assertTrue(get.getP99Ms() < 500, "p99=" + get.getP99Ms());
+
+        MonitoringUpdate idle = stream.sample();
+        assertNull(idle.getOperations());
+        assertEquals(update.getCreated(), idle.getCreated());
+    }
+
+    @Test
+    @DisplayName("Los intervalos sin cambios son iguales y no generan evento")
+    void testUnchangedIntervalsAreEqual() {
+        userService.createUser(new User(null, "Juan", "juan@example.com", 30));
+        stream.sample();
+
+        MonitoringUpdate first = stream.sample();
+        MonitoringUpdate second = stream.sample();
+
+        assertEquals(1, first.getUsers());
+        assertEquals(first, second);
+    }
+
+    @Test
+    @DisplayName("Un suscriptor atascado no retrasa a los demás y se descarta pasado el límite")
+    void testSlowSubscriberIsDropped() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingQueue<Object> delivered = new LinkedBlockingQueue<>();
+        stream.subscribe(new SseEmitter(0L) {
+            @Override
+            public void send(SseEventBuilder builder) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        stream.subscribe(new SseEmitter(0L) {
+            @Override
+            public void send(SseEventBuilder builder) {
+                delivered.add(builder);
+            }
+        });
+        try {
+            assertNotNull(delivered.poll(5, TimeUnit.SECONDS));
+
+            userService.createUser(new User(null, "Juan", "juan@example.com", 30));
+            stream.tick();
+            assertNotNull(delivered.poll(5, TimeUnit.SECONDS));
+            assertEquals(2, stream.subscriberCount());
+
+            Thread.sleep(200);
+            userService.createUser(new User(null, "Ana", "ana@example.com", 25));
+            stream.tick();
+            assertEquals(1, stream.subscriberCount());
+            assertNotNull(delivered.poll(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests del Filtro de Ids")
+class UserIdFilterTest {
+
+    @Test
+    @DisplayName("Sin falsos negativos y con falsos positivos acotados")
+    void testFalsePositiveRate() {
+        UserIdFilter filter = new UserIdFilter(10_000, 0.01);
+        for (long id = 1; id <= 10_000; id++) {
+            filter.add(id);
+        }
+        for (long id = 1; id <= 10_000; id++) {
+            assertTrue(filter.mightContain(id));
+        }
+
+        int falsePositives = 0;
+        for (long id = 1_000_001; id <= 1_100_000; id++) {
+            if (filter.mightContain(id)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "Falsos positivos: " + falsePositives);
+    }
+
+    @Test
+    @DisplayName("Las bajas liberan el id sin afectar al resto")
+    void testRemove() {
+        UserIdFilter filter = new UserIdFilter(1_000, 0.01);
+        for (long id = 1; id <= 1_000; id++) {
+            filter.add(id);
+        }
+        for (long id = 1; id <= 1_000; id += 2) {
+            filter.remove(id);
+        }
+
+        int stillPresent = 0;
+        for (long id = 1; id <= 1_000; id++) {
+            if (id % 2 == 0) {
+                assertTrue(filter.mightContain(id));
+            } else if (filter.mightContain(id)) {
+                stillPresent++;
+            }
+        }
+        assertTrue(stillPresent < 50, "Bajas aún visibles: " + stillPresent);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.service;
+
+import com.example.service.UserMetrics.Operation;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests de las Métricas de Usuarios")
+class UserMetricsTest {
+
+    @Test
+    @DisplayName("Cada latencia se registra una vez y el registro la lee del histograma")
+    void testRegistryReadsLatencyHistogram() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UserMetrics metrics = new UserMetrics(registry);
+        assertTrue(Double.isNaN(registry.get("users.operation.percentile")
+                .tags("operation", "get", "phi", "0.99").gauge().value()));
+
+        for (int i = 0; i < 99; i++) {
+            metrics.recordNanos(Operation.GET, TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        metrics.recordNanos(Operation.GET, TimeUnit.MILLISECONDS.toNanos(500));
+
+        FunctionTimer timer = registry.get("users.operation").tag("operation", "get").functionTimer();
+        assertEquals(100, timer.count());
+        assertEquals(599, timer.totalTime(TimeUnit.MILLISECONDS), 0.001);
+        assertEquals(100, metrics.latency(Operation.GET).count);
+        double p50 = registry.get("users.operation.percentile").tags("operation", "get", "phi", "0.5").gauge().value();
+        double p99 = registry.get("users.operation.percentile").tags("operation", "get", "phi", "0.99").gauge().value();
+        assertTrue(p50 >= 0.001 && p50 < 0.002, "p50=" + p50);
+        assertTrue(p99 < 0.5, "p99=" + p99);
+        assertEquals(0, registry.get("users.operation").tag("operation", "create").functionTimer().count());
+    }
+}
@@ -1,13 +1,31 @@
 package com.example.service;
 
+import com.example.model.AgeStats;
+import com.example.model.BulkItemResult;
+import com.example.model.BulkOperation;
+import com.example.model.SearchResult;
 import com.example.model.User;
+import com.example.repository.InMemoryUserRepository;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -60,6 +78,21 @@ class UserServiceTest {
         assertThrows(RuntimeException.class, () -> userService.getUserById(999L));
     }
 
+    @Test
+    @DisplayName("Búsqueda sin excepciones y contador de no encontrados")
+    void testFindUserByIdOptional() {
+        User created = userService.createUser(new User(null, "Juan", "juan@example.com", 30));
+
+        assertTrue(userService.findUserById(created.getId()).isPresent());
+        assertFalse(userService.findUserById(999L).isPresent());
+        UserNotFoundException e = assertThrows(UserNotFoundException.class, () -> userService.getUserById(999L));
+        assertEquals(0, e.getStackTrace().length);
+
+        userService.deleteUser(created.getId());
+        assertFalse(userService.findUserById(created.getId()).isPresent());
+        assertEquals(3, meterRegistry.counter("users.not_found").count());
+    }
+
     @Test
     @DisplayName("Obtener todos los usuarios")
     void testGetAllUsers() {
@@ -144,4 +177,468 @@ class UserServiceTest {
         assertEquals(1, results.size());
         assertEquals("Juan García", results.get(0).getName());
     }
+
+    @Test
+    @DisplayName("Búsqueda por subcadena intermedia y consultas cortas")
+    void testSearchByNameSubstring() {
+        userService.createUser(new User(null, "Juan García", "juan@example.com", 30));
+        userService.createUser(new User(null, "María López", "maria@example.com", 25));
+
+        assertEquals(1, userService.searchByName("ARCÍ").size());
+        assertEquals(2, userService.searchByName("a").size());
+        assertEquals(2, userService.searchByName("").size());
+        assertEquals(0, userService.searchByName("garcíax").size());
+    }
+
+    @Test
+    @DisplayName("La búsqueda refleja actualizaciones y eliminaciones")
+    void testSearchByNameAfterUpdateAndDelete() {
+        User created = userService.createUser(new User(null, "Juan García", "juan@example.com", 30));
+
+        userService.updateUser(created.getId(), new User(null, "Pedro Sánchez", "juan@example.com", 30));
+        assertEquals(0, userService.searchByName("juan").size());
+        assertEquals(1, userService.searchByName("sánchez").size());
+
+        userService.deleteUser(created.getId());
+        assertEquals(0, userService.searchByName("sánchez").size());
+    }
+
+    @Test
+    @DisplayName("Búsqueda en trozos con límite y plazo")
+    void testSearchByNameChunkedWithLimitAndDeadline() {
+        int total = 3 * ParallelNameSearch.CHUNK_SIZE;
+        for (int i = 0; i < total; i++) {
+            userService.createUser(new User(null, (i % 3 == 0 ? "Ana " : "Luis ") + i, "u" + i + "@example.com", 30));
+        }
+
+        SearchResult all = userService.searchByName("ana", Integer.MAX_VALUE, null);
+        assertEquals(total / 3, all.getUsers().size());
+        assertFalse(all.isPartial());
+        assertEquals(total, userService.searchByName(" ", Integer.MAX_VALUE, null).getUsers().size());
+
+        SearchResult limited = userService.searchByName("ana", 10, Duration.ofMinutes(1));
+        assertEquals(10, limited.getUsers().size());
+        assertFalse(limited.isPartial());
+        // El límite devuelve los de menor id, no un subconjunto cualquiera
+        assertEquals(all.getUsers().subList(0, 10), limited.getUsers());
+
+        SearchResult expired = userService.searchByName(" ", Integer.MAX_VALUE, Duration.ofNanos(1));
+        assertTrue(expired.isPartial());
+        assertTrue(expired.getUsers().size() < total);
+    }
+
+    @Test
+    @DisplayName("Cambiar el paralelismo de la búsqueda sustituye el pool y close lo cierra")
+    void testSearchPoolReplacedAndClosed() {
+        int total = 2 * ParallelNameSearch.CHUNK_SIZE;
+        for (int i = 0; i < total; i++) {
+            userService.createUser(new User(null, "Ana " + i, "u" + i + "@example.com", 30));
+        }
+
+        userService.setSearchParallelism(2);
+        assertEquals(total, userService.searchByName("ana", Integer.MAX_VALUE, null).getUsers().size());
+
+        userService.close();
+        assertThrows(RejectedExecutionException.class, () -> userService.searchByName("ana", Integer.MAX_VALUE, null));
+    }
+
+    @Test
+    @DisplayName("Creación concurrente sin IDs duplicados")
+    void testConcurrentCreateUniqueIds() throws Exception {
+        int threads = 8;
+        int perThread = 1000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    ids.add(userService.createUser(new User(null, "Juan", "juan@example.com", 30)).getId());
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+        assertEquals(threads * perThread, ids.size());
+        assertEquals(threads * perThread, userService.getAllUsers().size());
+    }
+
+    @Test
+    @DisplayName("Operación masiva respeta el orden y agrega métricas")
+    void testApplyBulk() {
+        User existing = userService.createUser(new User(null, "Juan", "juan@example.com", 30));
+
+        List<BulkItemResult> results = userService.applyBulk(List.of(
+                new BulkOperation("create", null, new User(null, "Ana", "ana@example.com", 22)),
+                new BulkOperation("update", existing.getId(), new User(null, "Juan Bulk", "juan@example.com", 31)),
+                new BulkOperation("create", null, new User(null, "Luis", "luis@example.com", 40)),
+                new BulkOperation("delete", existing.getId(), null),
+                new BulkOperation("update", existing.getId(), new User(null, "Tarde", "t@example.com", 31)),
+                new BulkOperation("merge", 1L, null)));
+
+        assertEquals(List.of(201, 200, 201, 200, 404, 400), results.stream().map(BulkItemResult::getStatus).toList());
+        assertEquals(2, userService.getAllUsers().size());
+        assertEquals(1, userService.searchByName("ana").size());
+        assertEquals(3.0, meterRegistry.counter("users.created").count());
+        assertEquals(1.0, meterRegistry.counter("users.deleted").count());
+    }
+
+    @Test
+    @DisplayName("Búsqueda por email normalizado tras altas, cambios y bajas")
+    void testFindUsersByEmail() {
+        User juan = userService.createUser(new User(null, "Juan", "Juan@Example.com", 30));
+        userService.createUser(new User(null, "Otro Juan", "juan@example.com", 40));
+
+        assertEquals(2, userService.findUsersByEmail(" JUAN@example.com ").size());
+
+        userService.updateUser(juan.getId(), new User(null, "Juan", "juan.nuevo@example.com", 30));
+        assertEquals(1, userService.findUsersByEmail("juan@example.com").size());
+        assertEquals(juan.getId(), userService.findUsersByEmail("juan.nuevo@example.com").get(0).getId());
+
+        userService.deleteUser(juan.getId());
+        assertTrue(userService.findUsersByEmail("juan.nuevo@example.com").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Restricción de email único en altas, cambios y lotes")
+    void testUniqueEmail() {
+        userService.setUniqueEmail(true);
+        User juan = userService.createUser(new User(null, "Juan", "juan@example.com", 30));
+        User ana = userService.createUser(new User(null, "Ana", "ana@example.com", 25));
+
+        assertThrows(DuplicateEmailException.class,
+                () -> userService.createUser(new User(null, "Copia", "JUAN@example.com", 30)));
+        assertThrows(DuplicateEmailException.class,
+                () -> userService.updateUser(ana.getId(), new User(null, "Ana", "juan@example.com", 25)));
+        // Conservar el propio email no es un conflicto
+        userService.updateUser(juan.getId(), new User(null, "Juan Actualizado", "juan@example.com", 31));
+
+        List<BulkItemResult> results = userService.applyBulk(List.of(
+                new BulkOperation("create", null, new User(null, "Luis", "luis@example.com", 40)),
+                new BulkOperation("create", null, new User(null, "Luis Bis", "luis@example.com", 41)),
+                new BulkOperation("update", ana.getId(), new User(null, "Ana", "luis@example.com", 25))));
+        assertEquals(List.of(201, 409, 409), results.stream().map(BulkItemResult::getStatus).toList());
+
+        // Tras una baja el email vuelve a estar libre
+        userService.deleteUser(juan.getId());
+        userService.createUser(new User(null, "Juan Nuevo", "juan@example.com", 30));
+        assertEquals(3, userService.getAllUsers().size());
+    }
+
+    @Test
+    @DisplayName("Si el almacén falla en una operación masiva se liberan los emails y se mide la llamada")
+    void testBulkSaveFailureReleasesEmails() {
+        InMemoryUserRepository failing = new InMemoryUserRepository() {
+            @Override
+            public void saveAll(Collection<User> batch) {
+                throw new IllegalStateException("Almacén no disponible");
+            }
+        };
+        // Registro propio: el del test ya tiene los medidores del servicio de setUp
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UserService service = new UserService(new UserMetrics(registry), new BlockIdAllocator(), failing,
+                new UserIdFilter());
+        service.setUniqueEmail(true);
+
+        assertThrows(IllegalStateException.class, () -> service.applyBulk(List.of(
+                new BulkOperation("create", null, new User(null, "Luis", "luis@example.com", 40)))));
+
+        assertEquals(1, registry.get("users.operation").tag("operation", "bulk").functionTimer().count());
+        assertNotNull(service.createUser(new User(null, "Luis", "luis@example.com", 40)).getId());
+    }
+
+    @Test
+    @DisplayName("Si el almacén falla en un cambio o una importación el email no cambia de dueño")
+    void testSaveFailureRestoresEmail() {
+        AtomicBoolean failing = new AtomicBoolean();
+        InMemoryUserRepository repository = new InMemoryUserRepository() {
+            @Override
+            public void save(User user) {
+                if (failing.get()) {
+                    throw new IllegalStateException("Almacén no disponible");
+                }
+                super.save(user);
+            }
+        };
+        UserService service = new UserService(new UserMetrics(meterRegistry), new BlockIdAllocator(), repository,
+                new UserIdFilter());
+        service.setUniqueEmail(true);
+        User juan = service.createUser(new User(null, "Juan", "juan@example.com", 30));
+
+        failing.set(true);
+        assertThrows(IllegalStateException.class,
+                () -> service.updateUser(juan.getId(), new User(null, "Juan", "nuevo@example.com", 30)));
+        assertThrows(IllegalStateException.class, () -> service.importTransferred(
+                List.of(new User(500L, "Traspasado", "traspasado@example.com", 30, 1L))));
+        failing.set(false);
+
+        assertEquals(List.of(juan.getId()),
+                service.findUsersByEmail("juan@example.com").stream().map(User::getId).toList());
+        assertNotNull(service.createUser(new User(null, "Otro", "nuevo@example.com", 30)).getId());
+        assertNotNull(service.createUser(new User(null, "Otro", "traspasado@example.com", 30)).getId());
+        assertFalse(service.findUserById(500L).isPresent());
+    }
+
+    @Test
+    @DisplayName("Altas concurrentes con el mismo email: solo una gana")
+    void testUniqueEmailConcurrent() throws InterruptedException {
+        userService.setUniqueEmail(true);
+        int threads = 8;
+        Set<Long> winners = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            executor.submit(() -> {
+                for (int i = 0; i < 200; i++) {
+                    try {
+                        winners.add(userService.createUser(
+                                new User(null, "Hilo " + thread, "compartido" + i + "@example.com", 30)).getId());
+                    } catch (DuplicateEmailException e) {
+                        // Otro hilo obtuvo el email
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+        assertEquals(200, winners.size());
+        assertEquals(200, userService.getAllUsers().size());
+    }
+
+    @Test
+    @DisplayName("Versiones: cambios y bajas condicionados a la versión esperada")
+    void testVersionedUpdateAndDelete() {
+        User juan = userService.createUser(new User(null, "Juan", "juan@example.com", 30));
+        assertEquals(1L, juan.getVersion());
+
+        User updated = userService.updateUser(juan.getId(), new User(null, "Juan 2", "juan@example.com", 31), 1L);
+        assertEquals(2L, updated.getVersion());
+        assertEquals(3L, userService.updateUser(juan.getId(), new User(null, "Juan 3", "juan@example.com", 32)).getVersion());
+
+        assertThrows(VersionConflictException.class,
+                () -> userService.updateUser(juan.getId(), new User(null, "Perdido", "juan@example.com", 33), 2L));
+        assertThrows(VersionConflictException.class, () -> userService.deleteUser(juan.getId(), 2L));
+        assertEquals("Juan 3", userService.getUserById(juan.getId()).getName());
+        assertEquals(2.0, meterRegistry.counter("users.version.conflicts").count());
+
+        List<BulkItemResult> results = userService.applyBulk(List.of(
+                new BulkOperation("update", juan.getId(), new User(null, "Lote", "juan@example.com", 40), 1L),
+                new BulkOperation("delete", juan.getId(), null, 3L)));
+        assertEquals(412, results.get(0).getStatus());
+        assertEquals(200, results.get(1).getStatus());
+        assertThrows(UserNotFoundException.class, () -> userService.getUserById(juan.getId()));
+    }
+
+    @Test
+    @DisplayName("Escritores concurrentes sobre el mismo id: ningún cambio se pierde")
+    void testConcurrentVersionedUpdates() throws InterruptedException {
+        User hot = userService.createUser(new User(null, "Contador", "hot@example.com", 1));
+        int threads = 8;
+        int incrementsPerThread = 100;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < incrementsPerThread; ) {
+                    // Lectura, cambio y escritura condicionada: si otro hilo se adelantó se reintenta
+                    User current = userService.getUserById(hot.getId());
+                    User next = new User(null, current.getName(), current.getEmail(), current.getAge() % 148 + 1);
+                    try {
+                        userService.updateUser(hot.getId(), next, current.getVersion());
+                        i++;
+                    } catch (VersionConflictException e) {
+                        // Versión obsoleta: se vuelve a leer
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+        assertEquals(1L + threads * incrementsPerThread, userService.getUserById(hot.getId()).getVersion());
+    }
+
+    @Test
+    @DisplayName("Rango de edades paginado y completo tras cambios y bajas")
+    void testUsersByAge() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            ids.add(userService.createUser(new User(null, "U" + i, "u" + i + "@example.com", 20 + i % 10)).getId());
+        }
+        userService.updateUser(ids.get(0), new User(null, "U0", "u0@example.com", 60));
+        userService.deleteUser(ids.get(1));
+
+        // Edades 25-29: i % 10 en 5..9, tres de cada
+        List<User> all = userService.getUsersByAge(25, 29);
+        assertEquals(15, all.size());
+        assertTrue(all.stream().allMatch(u -> u.getAge() >= 25 && u.getAge() <= 29));
+
+        List<User> first = userService.getUsersByAge(20, 29, 0L, 10);
+        List<User> second = userService.getUsersByAge(20, 29, first.get(9).getId(), 100);
+        assertEquals(10, first.size());
+        assertEquals(18, second.size());
+        assertTrue(first.get(9).getId() < second.get(0).getId());
+        assertEquals(List.of(ids.get(0)), userService.getUsersByAge(60, 60).stream().map(User::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Estadísticas de edad desde los contadores del índice")
+    void testAgeStats() {
+        for (int age : new int[]{18, 25, 25, 31, 40, 99}) {
+            userService.createUser(new User(null, "Edad " + age, "e" + age + "@example.com", age));
+        }
+        User removed = userService.createUser(new User(null, "Baja", "baja@example.com", 70));
+        userService.deleteUser(removed.getId());
+
+        AgeStats stats = userService.getAgeStats(0, 149, 10);
+        assertEquals(6, stats.getCount());
+        assertEquals(18, stats.getMin());
+        assertEquals(99, stats.getMax());
+        assertEquals(25, stats.getP50());
+        assertEquals(99, stats.getP99());
+        assertEquals(2, stats.getHistogram().get(2).getCount());
+        assertEquals(20, stats.getHistogram().get(2).getFrom());
+
+        AgeStats range = userService.getAgeStats(20, 35, 5);
+        assertEquals(3, range.getCount());
+        assertNull(userService.getAgeStats(100, 149, 10).getMean());
+    }
+
+    @Test
+    @DisplayName("Páginas ordenadas por cada campo coinciden con el orden completo")
+    void testUsersSorted() {
+        for (int i = 0; i < 40; i++) {
+            userService.createUser(new User(null, "Nombre " + (char) ('a' + i * 7 % 26), "m" + i * 13 % 40 + "@example.com", 20 + i % 9));
+        }
+        userService.deleteUser(userService.getAllUsers().get(3).getId());
+
+        Map<String, Comparator<User>> orders = Map.of(
+                "id", Comparator.comparing(User::getId),
+                "name", Comparator.comparing(User::getName, String.CASE_INSENSITIVE_ORDER).thenComparing(User::getId),
+                "email", Comparator.comparing(User::getEmail, String.CASE_INSENSITIVE_ORDER).thenComparing(User::getId),
+                "age", Comparator.comparing(User::getAge).thenComparing(User::getId));
+        for (Map.Entry<String, Comparator<User>> order : orders.entrySet()) {
+            for (boolean descending : new boolean[]{false, true}) {
+                List<User> expected = new ArrayList<>(userService.getAllUsers());
+                expected.sort(order.getValue());
+                if (descending) {
+                    // En orden descendente los empates también van de id mayor a menor
+                    Collections.reverse(expected);
+                }
+                String label = order.getKey() + (descending ? " desc" : " asc");
+                assertEquals(expected.subList(0, 10), userService.getUsersSorted(order.getKey(), descending, 0, 10), label);
+                assertEquals(expected.subList(30, 39), userService.getUsersSorted(order.getKey(), descending, 30, 10), label);
+                assertTrue(userService.getUsersSorted(order.getKey(), descending, 39, 10).isEmpty(), label);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("La versión del almacén cambia con cada escritura aplicada")
+    void testStoreVersion() {
+        long initial = userService.storeVersion();
+        User user = userService.createUser(new User(null, "Versionado", "sv@example.com", 30));
+        userService.updateUser(user.getId(), new User(null, "Versionado", "sv2@example.com", 31));
+        userService.applyBulk(List.of(new BulkOperation("create", null, new User(null, "Lote", "lote@example.com", 20))));
+        assertEquals(initial + 3, userService.storeVersion());
+
+        // Lecturas y escrituras rechazadas no la cambian
+        userService.getUsersSorted("name", false, 0, 10);
+        assertThrows(VersionConflictException.class,
+                () -> userService.updateUser(user.getId(), new User(null, "X", "x@example.com", 30), 0L));
+        assertThrows(UserNotFoundException.class, () -> userService.deleteUser(999_999L));
+        assertEquals(initial + 3, userService.storeVersion());
+
+        userService.deleteUser(user.getId());
+        assertEquals(initial + 4, userService.storeVersion());
+    }
+
+    @Test
+    @DisplayName("El resumen del contenido no depende del orden de llegada")
+    void testContentHash() {
+        List<User> users = List.of(new User(1L, "A", "a@example.com", 20, 3L),
+                new User(2L, "B", "b@example.com", 30, 1L),
+                new User(3L, "C", "c@example.com", 40, 7L));
+        UserService other = new UserService(new SimpleMeterRegistry());
+        userService.importUsers(users);
+        other.importUsers(List.of(users.get(2), users.get(0), users.get(1)));
+        assertEquals(userService.contentHash(), other.contentHash());
+
+        long hash = userService.contentHash();
+        userService.updateUser(2L, new User(null, "B", "b@example.com", 31));
+        assertNotEquals(hash, userService.contentHash());
+        other.deleteUser(3L);
+        other.importUsers(List.of(users.get(2)));
+        assertEquals(hash, other.contentHash());
+    }
+
+    @Test
+    @DisplayName("Los usuarios traspasados se validan y respetan el email único")
+    void testImportTransferredRejectsInvalidUsers() {
+        userService.setUniqueEmail(true);
+        userService.createUser(new User(null, "Juan", "juan@example.com", 30));
+        List<Long> rejected = userService.importTransferred(List.of(
+                new User(100L, "Válido", "valido@example.com", 30, 2L),
+                new User(101L, "", "vacio@example.com", 30, 1L),
+                new User(102L, "Duplicado", "juan@example.com", 30, 1L),
+                new User(103L, "Sin versión", "sinversion@example.com", 30, 0L)));
+
+        assertEquals(List.of(101L, 102L, 103L), rejected);
+        assertEquals(2L, userService.getUserById(100L).getVersion());
+        assertTrue(userService.findUserById(102L).isEmpty());
+        assertEquals(1, userService.findUsersByEmail("juan@example.com").size());
+    }
+
+    @Test
+    @DisplayName("Reimportar versiones de un id no lo deja en el filtro tras la baja")
+    void testImportAddsIdToFilterOnce() {
+        UserIdFilter filter = new UserIdFilter();
+        UserService service = new UserService(new UserMetrics(meterRegistry), new BlockIdAllocator(),
+                new InMemoryUserRepository(), filter);
+        for (long version = 1; version <= 3; version++) {
+            service.importUsers(List.of(new User(42L, "Importado", "importado@example.com", 30, version)));
+        }
+        assertTrue(filter.mightContain(42L));
+
+        service.deleteUser(42L);
+        assertFalse(filter.mightContain(42L));
+    }
+
+    @Test
+    @DisplayName("Bajas que compiten con el alta del mismo id no dejan entradas en los índices")
+    void testCreateDeleteRace() throws Exception {
+        int total = 2000;
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            var creates = executor.submit(() -> {
+                for (int i = 0; i < total; i++) {
+                    userService.createUser(new User(null, "Carrera " + i, "carrera" + i + "@example.com", 40));
+                }
+            });
+            // Los ids salen en orden de un solo bloque: se borran en cuanto aparecen en el almacén
+            Set<Long> deleted = ConcurrentHashMap.newKeySet();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (deleted.size() < total && System.nanoTime() < deadline) {
+                for (long id = 1; id <= total; id++) {
+                    if (!deleted.contains(id)) {
+                        try {
+                            userService.deleteUser(id);
+                            deleted.add(id);
+                        } catch (UserNotFoundException e) {
+                            // Todavía no creado
+                        }
+                    }
+                }
+            }
+            creates.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(0, userService.countUsers());
+        assertEquals(0L, userService.contentHash());
+        assertEquals(0, userService.getAgeStats(0, 149, 10).getCount());
+        assertTrue(userService.searchByName("carrera").isEmpty());
+        assertTrue(userService.getUsersSorted("age", false, 0, 10).isEmpty());
+    }
 }
@@ -0,0 +1,54 @@
+package com.example.tracing;
+
+import com.example.model.SlowRequest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests del Registro de Peticiones Lentas")
+class SlowRequestLogTest {
+
+    @Test
+    @DisplayName("Conserva las últimas peticiones lentas, de la más lenta a la más rápida")
+    void testBoundedAndSorted() {
+        SlowRequestLog log = new SlowRequestLog(Duration.ofMillis(10), 3);
+        assertFalse(log.isSlow(Duration.ofMillis(9).toNanos()));
+        assertTrue(log.isSlow(Duration.ofMillis(10).toNanos()));
+
+        for (int ms : new int[]{50, 20, 40, 30}) {
+            log.add(request(ms));
+        }
+
+        // La de 50 ms era la más antigua y se ha sobrescrito
+        assertEquals(List.of(40.0, 30.0, 20.0), log.slowest().stream().map(SlowRequest::getTotalMs).toList());
+        log.clear();
+        assertTrue(log.slowest().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Fuera de una petición las fases no se registran")
+    void testRecordWithoutTrace() {
+        RequestTrace.record(Phase.STORE, System.nanoTime());
+        assertNull(RequestTrace.current());
+
+        RequestTrace trace = RequestTrace.begin();
+        try {
+            RequestTrace.record(Phase.STORE, System.nanoTime() - 1_000);
+            assertTrue(trace.phaseNanos(Phase.STORE) >= 1_000);
+            assertEquals(0, trace.phaseNanos(Phase.LOG));
+        } finally {
+            RequestTrace.end();
+        }
+        assertNull(RequestTrace.current());
+    }
+
+    private static SlowRequest request(double totalMs) {
+        return new SlowRequest(Instant.now(), "GET", "/api/users/1", "/api/users/{id}", 200, totalMs, Map.of());
+    }
+}